@@ -0,0 +1,48 @@
+package com.csc2013;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.csc2013.DungeonMaze.PlayerType;
+
+/**
+ *
+ * Benchmarks a full headless game from loading the map to the exit (or Tournament.maxSteps).
+ *
+ * SchoolPlayer's learning is kept in memory for the whole fork, so after the first game this
+ * measures a player that already knows the map, like the later rounds of a tournament.
+ *
+ * @author GE
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Damity.learning=", "-Damity.traces="})
+public class GameBenchmark {
+	@Param({"map01.tmx", "map02.tmx", "map03.tmx"})
+	public String map;
+
+	@Param({"1", "2", "5", "10", "15"})
+	public int vision;
+
+	@Param({"School", "AI"})
+	public PlayerType player;
+
+	@Benchmark
+	public int fullGame() throws Exception {
+		return new HeadlessGame(map, player, vision).run();
+	}
+}
@@ -0,0 +1,44 @@
+package com.csc2013;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ *
+ * Benchmarks for loading a map: parsing the TMX file and building the MapBox grid.
+ *
+ * @author GE
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Damity.learning=", "-Damity.traces="})
+public class MapBenchmark {
+	@Param({"map01.tmx", "map02.tmx", "map03.tmx"})
+	public String map;
+
+	@Benchmark
+	public TmxReader readTmx() throws Exception {
+		return new TmxReader("res/" + map);
+	}
+
+	@Benchmark
+	public Map loadMap() throws Exception {
+		Map m = new Map();
+		m.setMapHeadless(map);
+		return m;
+	}
+}
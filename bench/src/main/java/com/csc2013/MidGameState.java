@@ -0,0 +1,54 @@
+package com.csc2013;
+
+import java.awt.Point;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.csc2013.DungeonMaze.PlayerType;
+
+/**
+ *
+ * A SchoolPlayer game recorded part of the way through, for benchmarking single decisions.
+ * The game is played headless from the start for the given number of steps (or until it ends),
+ * so every fork starts from the same state.
+ *
+ * @author GE
+ *
+ */
+@State(Scope.Benchmark)
+public class MidGameState {
+	@Param({"map01.tmx", "map02.tmx", "map03.tmx"})
+	public String map;
+
+	@Param({"1", "2", "5", "10", "15"})
+	public int vision;
+
+	// How many actions to play before recording the state
+	@Param({"1", "20", "40"})
+	public int step;
+
+	public HeadlessGame game;
+	public FieldMap fieldMap;
+	public PlayerVision playerVision;
+	public Point gridLocation;
+	public int keys;
+
+	@Setup
+	public void record() throws Exception {
+		game = new HeadlessGame(map, PlayerType.School, vision);
+		for (int i = 0; i < step && game.isRunning(); i++) {
+			game.step();
+		}
+
+		fieldMap = game.getSchoolPlayer().map;
+		gridLocation = new Point(game.getPlayer().getPlayerGridLocation());
+		playerVision = new PlayerVision(game.getMap(), gridLocation);
+		keys = game.getPlayer().getKeys();
+
+		// Make sure the planner has seen the vision it would be deciding on
+		fieldMap.fillVision(playerVision);
+	}
+}
@@ -0,0 +1,49 @@
+package com.csc2013;
+
+import java.util.Stack;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.csc2013.DungeonMaze.BoxType;
+
+/**
+ *
+ * Benchmarks for the SchoolPlayer planners on recorded mid-game states.
+ *
+ * @author GE
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Damity.learning=", "-Damity.traces="})
+public class PlannerBenchmark {
+
+	@Benchmark
+	public Stack<Space> shortestToUnexplored(MidGameState s) {
+		return new Dijkstras(s.keys, s.fieldMap).shortestToType(s.fieldMap.getLocation(), (BoxType) null);
+	}
+
+	@Benchmark
+	public Stack<Space> shortestToKey(MidGameState s) {
+		return new Dijkstras(s.keys, s.fieldMap).shortestToType(s.fieldMap.getLocation(), BoxType.Key);
+	}
+
+	@Benchmark
+	public Stack<Space> bruteForceToUnexplored(MidGameState s) {
+		return new BruteForcePathfinder(s.keys, s.fieldMap.getLocation(), s.fieldMap.getMap(), Integer.MAX_VALUE, s.fieldMap).toType(null);
+	}
+
+	@Benchmark
+	public Stack<Space> bruteForceToExit(MidGameState s) {
+		return new BruteForcePathfinder(s.keys, s.fieldMap.getLocation(), s.fieldMap.getMap(), s.fieldMap.getBestCase(), s.fieldMap).toType(BoxType.Exit);
+	}
+}
@@ -0,0 +1,38 @@
+package com.csc2013;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ *
+ * Benchmarks for building a PlayerVision and folding it into the SchoolPlayer's map.
+ *
+ * @author GE
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Damity.learning=", "-Damity.traces="})
+public class VisionBenchmark {
+
+	@Benchmark
+	public PlayerVision playerVision(MidGameState s) {
+		return new PlayerVision(s.game.getMap(), s.gridLocation);
+	}
+
+	// The vision was already seen in setup, so this measures checking it against the known map
+	@Benchmark
+	public FieldMap fillVision(MidGameState s) {
+		s.fieldMap.fillVision(s.playerVision);
+		return s.fieldMap;
+	}
+}
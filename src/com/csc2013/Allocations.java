@@ -0,0 +1,46 @@
+package com.csc2013;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ *
+ * This class reads how many bytes the current thread has allocated so far, for measuring how much
+ * garbage each part of a move creates. It's a diagnostic mode: turn it on with -Damity.allocations=true.
+ * When it's off (or the JVM can't count allocations) current() always returns 0.
+ *
+ * @author GE
+ *
+ */
+public class Allocations {
+	private final static com.sun.management.ThreadMXBean threads = findBean();
+
+	/*
+	 * True if allocations are being counted
+	 */
+	public final static boolean enabled = Boolean.getBoolean("amity.allocations") && threads != null;
+
+	// Returns the number of bytes allocated by this thread so far, or 0 if counting is off
+	public static long current() {
+		if (!enabled) {
+			return 0;
+		}
+		return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static com.sun.management.ThreadMXBean findBean() {
+		try {
+			java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+				return null;
+			}
+			com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+			if (!threads.isThreadAllocatedMemorySupported()) {
+				return null;
+			}
+			threads.setThreadAllocatedMemoryEnabled(true);
+			return threads;
+		} catch (Throwable t) {
+			return null;
+		}
+	}
+}
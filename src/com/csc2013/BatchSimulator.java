@@ -0,0 +1,481 @@
+package com.csc2013;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import com.csc2013.DungeonMaze.Action;
+import com.csc2013.DungeonMaze.BoxType;
+
+/**
+ *
+ * This class plays many games on one maze at the same time, one step for every agent at a time,
+ * for evaluating simple policies like the sample AI over thousands of start positions.
+ *
+ * The maze is stored once as a byte per space with a border of walls around it, so looking
+ * at a neighbour never needs a bounds check. Agents are stored as parallel primitive arrays
+ * (space, keys, steps, ...) indexed by agent number rather than as one Player and Map each.
+ * The only thing an agent changes on the maze is which keys it has picked up and which doors
+ * it has opened, and that's kept per agent as a bitset with one bit per key or door.
+ *
+ * Sight lines are worked out from a shared table of how far you can see from every space in
+ * every direction with all the doors shut, and only walked past the doors an agent has opened.
+ *
+ * The rules are the same as HeadlessGame: a step is counted for every successful action and
+ * an agent stops on the exit or after Tournament.maxSteps steps. An agent that keeps failing
+ * is stopped after maxActions actions.
+ *
+ * Usage: java com.csc2013.BatchSimulator map.tmx [agents] [seed]
+ * Runs the sample AI from every open space, or from that many random open spaces.
+ *
+ * @author GE
+ *
+ */
+public class BatchSimulator {
+	public final static int maxActions = Tournament.maxSteps * 10;
+
+	public final static byte OPEN = (byte) BoxType.Open.ordinal();
+	public final static byte BLOCKED = (byte) BoxType.Blocked.ordinal();
+	public final static byte DOOR = (byte) BoxType.Door.ordinal();
+	public final static byte EXIT = (byte) BoxType.Exit.ordinal();
+	public final static byte KEY = (byte) BoxType.Key.ordinal();
+
+	public final static byte NORTH = (byte) Action.North.ordinal();
+	public final static byte SOUTH = (byte) Action.South.ordinal();
+	public final static byte EAST = (byte) Action.East.ordinal();
+	public final static byte WEST = (byte) Action.West.ordinal();
+	public final static byte PICKUP = (byte) Action.Pickup.ordinal();
+	public final static byte USE = (byte) Action.Use.ordinal();
+
+	/*
+	 * The maze, shared by every agent
+	 */
+	private final int width;
+	private final int height;
+	private final int stride;          // width + 2, spaces are (y + 1) * stride + (x + 1)
+	private final byte cells[];        // BoxType ordinals, walls all round the edge
+	private final int items[];         // bit number of the key or door on each space, or -1
+	private final int itemCount;
+	private final int words;           // longs per agent in the items bitset
+	private final int offsets[];       // space offset for North, South, East, West
+	private final byte reach[][];      // [direction][space] open spaces seen with every door shut
+
+	/*
+	 * The agents, one entry per agent in each array
+	 */
+	private int agents = 0;
+	private int space[] = new int[0];
+	private int keys[] = new int[0];
+	private int steps[] = new int[0];
+	private int actions[] = new int[0];
+	private int score[] = new int[0];
+	private boolean lastResult[] = new boolean[0];
+	private long taken[] = new long[0];  // keys picked up and doors opened, words longs each
+
+	private int running[] = new int[0];  // agents still playing, in no particular order
+	private int runningCount = 0;
+	private byte moves[] = new byte[0];
+	private long totalActions = 0;
+
+	/*
+	 * Every agent decides its next action through this, all at once
+	 */
+	public interface Policy {
+		// Called once the agents are placed, before the first step
+		void start(BatchSimulator sim);
+
+		// Fills in moves[agent] with an Action ordinal for the first count agents in running
+		void nextMoves(BatchSimulator sim, int running[], int count, byte moves[]);
+	}
+
+	// Builds the shared maze from a grid laid out as grid[x][y], like Map.Grid
+	public BatchSimulator(BoxType grid[][]) {
+		width = grid.length;
+		height = grid[0].length;
+		stride = width + 2;
+		int size = stride * (height + 2);
+		cells = new byte[size];
+		items = new int[size];
+		Arrays.fill(cells, BLOCKED);
+		Arrays.fill(items, -1);
+
+		int count = 0;
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int s = (y + 1) * stride + (x + 1);
+				cells[s] = (byte) grid[x][y].ordinal();
+				if (cells[s] == DOOR || cells[s] == KEY) {
+					items[s] = count++;
+				}
+			}
+		}
+		itemCount = count;
+		words = (count + 63) >>> 6;
+		offsets = new int[] {-stride, stride, 1, -1};
+
+		// North and West look at spaces earlier in the array, South and East at later ones
+		reach = new byte[4][size];
+		for (int s = 0; s < size; s++) {
+			reach[NORTH][s] = see(s, -stride, reach[NORTH]);
+			reach[WEST][s] = see(s, -1, reach[WEST]);
+		}
+		for (int s = size - 1; s >= 0; s--) {
+			reach[SOUTH][s] = see(s, stride, reach[SOUTH]);
+			reach[EAST][s] = see(s, 1, reach[EAST]);
+		}
+	}
+
+	// Loads a TMX map from res without any graphics
+	public static BatchSimulator load(String mapName) throws IOException {
+		return new BatchSimulator(new TmxReader("res/" + mapName).getGrid());
+	}
+
+	private byte see(int s, int offset, byte table[]) {
+		int next = s + offset;
+		if (next < 0 || next >= cells.length || (cells[next] != OPEN && cells[next] != KEY)) {
+			return 0;
+		}
+		return (byte) Math.min(Byte.MAX_VALUE, table[next] + 1);
+	}
+
+	/*
+	 * Places agent a at startX[a], startY[a] with nothing picked up
+	 */
+	public void reset(int startX[], int startY[]) {
+		agents = startX.length;
+		space = new int[agents];
+		keys = new int[agents];
+		steps = new int[agents];
+		actions = new int[agents];
+		score = new int[agents];
+		lastResult = new boolean[agents];
+		taken = new long[agents * words];
+		running = new int[agents];
+		moves = new byte[agents];
+		totalActions = 0;
+
+		runningCount = 0;
+		for (int a = 0; a < agents; a++) {
+			space[a] = (startY[a] + 1) * stride + (startX[a] + 1);
+			score[a] = -1;
+			lastResult[a] = true;
+			if (cells[space[a]] == EXIT) {
+				score[a] = 0;
+			} else {
+				running[runningCount++] = a;
+			}
+		}
+	}
+
+	/*
+	 * Plays every agent to the end. Returns the number of agents that escaped.
+	 */
+	public int run(Policy policy) {
+		policy.start(this);
+		while (step(policy)) {
+		}
+		int escaped = 0;
+		for (int a = 0; a < agents; a++) {
+			if (score[a] >= 0) {
+				escaped++;
+			}
+		}
+		return escaped;
+	}
+
+	/*
+	 * Asks the policy for every running agent's next action and applies them.
+	 * Returns false once every agent has stopped.
+	 */
+	public boolean step(Policy policy) {
+		if (runningCount == 0) {
+			return false;
+		}
+		policy.nextMoves(this, running, runningCount, moves);
+
+		int kept = 0;
+		for (int i = 0; i < runningCount; i++) {
+			int a = running[i];
+			boolean result = apply(a, moves[a]);
+			lastResult[a] = result;
+			actions[a]++;
+			if (result) {
+				steps[a]++;
+			}
+			if (cells[space[a]] == EXIT) {
+				score[a] = steps[a];
+			} else if (steps[a] < Tournament.maxSteps && actions[a] < maxActions) {
+				running[kept++] = a;
+			}
+		}
+		totalActions += runningCount;
+		runningCount = kept;
+		return runningCount > 0;
+	}
+
+	// The same checks as Player.move()
+	private boolean apply(int a, byte move) {
+		int s = space[a];
+		if (move == PICKUP) {
+			if (!hasKey(a)) {
+				return false;
+			}
+			setTaken(a, items[s]);
+			keys[a]++;
+			return true;
+		} else if (move == USE) {
+			if (keys[a] <= 0) {
+				return false;
+			}
+			for (int d = 0; d < 4; d++) {  // Map.unlockDoor() looks North, South, East, West
+				int next = s + offsets[d];
+				if (type(a, next) == DOOR) {
+					setTaken(a, items[next]);
+					keys[a]--;
+					return true;
+				}
+			}
+			return false;
+		} else if (move < 0 || move >= 4) {
+			return false;
+		}
+		int next = s + offsets[move];
+		byte t = type(a, next);
+		if (t == OPEN || t == KEY || t == EXIT) {
+			space[a] = next;
+			return true;
+		}
+		return false;
+	}
+
+	/*
+	 * What agent a sees on space s: keys it picked up and doors it opened are Open
+	 */
+	public byte type(int a, int s) {
+		byte t = cells[s];
+		if ((t == DOOR || t == KEY) && isTaken(a, items[s])) {
+			return OPEN;
+		}
+		return t;
+	}
+
+	// The BoxType ordinal next to agent a in direction d, like vision.CurrentPoint.North
+	public byte neighbour(int a, int d) {
+		return type(a, space[a] + offsets[d]);
+	}
+
+	// Whether agent a can step in direction d, like vision.CurrentPoint.NorthMove == MoveType.Open
+	public boolean canMove(int a, int d) {
+		byte t = neighbour(a, d);
+		return t == OPEN || t == KEY;
+	}
+
+	// Whether there's a key under agent a, like vision.CurrentPoint.hasKey()
+	public boolean hasKey(int a) {
+		return cells[space[a]] == KEY && !isTaken(a, items[space[a]]);
+	}
+
+	/*
+	 * How many spaces agent a can see in direction d, at most limit (up to 127), like
+	 * vision.mNorth with PlayerVision.distanceToView = limit
+	 */
+	public int sight(int a, int d, int limit) {
+		limit = Math.min(limit, Byte.MAX_VALUE);
+		int s = space[a];
+		int offset = offsets[d];
+		byte table[] = reach[d];
+		int seen = 0;
+		while (true) {
+			int r = table[s];
+			seen += r;
+			if (seen >= limit) {
+				return limit;
+			}
+			s += (r + 1) * offset;  // the space that stops the sight line
+			if (cells[s] != DOOR || !isTaken(a, items[s])) {
+				return seen;
+			}
+			seen++;  // an open door, keep looking past it
+			if (seen >= limit) {
+				return limit;
+			}
+		}
+	}
+
+	// The BoxType ordinal i spaces from agent a in direction d, like vision.North[i - 1]
+	public byte look(int a, int d, int i) {
+		return type(a, space[a] + i * offsets[d]);
+	}
+
+	private boolean isTaken(int a, int item) {
+		return (taken[a * words + (item >>> 6)] & (1L << item)) != 0;
+	}
+
+	private void setTaken(int a, int item) {
+		taken[a * words + (item >>> 6)] |= 1L << item;
+	}
+
+	public int getAgents() {
+		return agents;
+	}
+
+	public int getX(int a) {
+		return space[a] % stride - 1;
+	}
+
+	public int getY(int a) {
+		return space[a] / stride - 1;
+	}
+
+	public int getKeys(int a) {
+		return keys[a];
+	}
+
+	public int getSteps(int a) {
+		return steps[a];
+	}
+
+	// Steps taken if agent a escaped, otherwise -1
+	public int getScore(int a) {
+		return score[a];
+	}
+
+	// Whether agent a's last action worked, the lastAction passed to nextMove()
+	public boolean getLastResult(int a) {
+		return lastResult[a];
+	}
+
+	// Actions applied so far over every agent
+	public long getTotalActions() {
+		return totalActions;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	// How many keys and doors the maze has, the bits in each agent's bitset
+	public int getItemCount() {
+		return itemCount;
+	}
+
+	/*
+	 * The sample AI in AIPlayer and PlayerController, with its two fields kept as arrays
+	 */
+	public static class SampleAI implements Policy {
+		private byte nextMove[];
+		private byte lastDirection[];
+
+		public void start(BatchSimulator sim) {
+			nextMove = new byte[sim.getAgents()];
+			lastDirection = new byte[sim.getAgents()];
+			Arrays.fill(nextMove, EAST);
+			Arrays.fill(lastDirection, EAST);
+		}
+
+		public void nextMoves(BatchSimulator sim, int running[], int count, byte moves[]) {
+			for (int i = 0; i < count; i++) {
+				int a = running[i];
+				moves[a] = nextMove(sim, a);
+			}
+		}
+
+		private byte nextMove(BatchSimulator sim, int a) {
+			byte north = sim.neighbour(a, NORTH);
+			byte south = sim.neighbour(a, SOUTH);
+			byte east = sim.neighbour(a, EAST);
+			byte west = sim.neighbour(a, WEST);
+
+			if (south == EXIT) { return nextMove[a] = SOUTH; }
+			if (north == EXIT) { return nextMove[a] = NORTH; }
+			if (west == EXIT) { return nextMove[a] = WEST; }
+			if (east == EXIT) { return nextMove[a] = EAST; }
+
+			if (sim.hasKey(a)) { return PICKUP; }
+
+			if (south == KEY) { return nextMove[a] = SOUTH; }
+			if (north == KEY) { return nextMove[a] = NORTH; }
+			if (west == KEY) { return nextMove[a] = WEST; }
+			if (east == KEY) { return nextMove[a] = EAST; }
+
+			if (sim.getKeys(a) > 0) {
+				if (south == DOOR || north == DOOR || east == DOOR || west == DOOR) { return USE; }
+			}
+
+			byte move = nextMove[a];
+			if (sim.canMove(a, SOUTH)) { move = SOUTH; }
+			else if (sim.canMove(a, NORTH)) { move = NORTH; }
+			else if (sim.canMove(a, WEST)) { move = WEST; }
+			else if (sim.canMove(a, EAST)) { move = EAST; }
+
+			// Keep going the same way if possible, otherwise turn
+			byte order[] = turns[lastDirection[a]];
+			for (int i = 0; i < order.length; i++) {
+				if (sim.neighbour(a, order[i]) == OPEN) {
+					move = order[i];
+					break;
+				}
+			}
+
+			nextMove[a] = move;
+			lastDirection[a] = move;
+			return move;
+		}
+
+		private final static byte turns[][] = {
+			{NORTH, WEST, EAST, SOUTH},
+			{SOUTH, WEST, EAST, NORTH},
+			{EAST, NORTH, SOUTH, WEST},
+			{WEST, SOUTH, NORTH, EAST}
+		};
+	}
+
+	public static void main(String[] argv) throws IOException {
+		if (argv.length < 1) {
+			System.out.println("Usage: java com.csc2013.BatchSimulator map.tmx [agents] [seed]");
+			return;
+		}
+		BatchSimulator sim = load(argv[0]);
+
+		// Every open space, or a random sample of them
+		int open[] = new int[sim.width * sim.height];
+		int openCount = 0;
+		for (int y = 0; y < sim.height; y++) {
+			for (int x = 0; x < sim.width; x++) {
+				byte t = sim.cells[(y + 1) * sim.stride + (x + 1)];
+				if (t == OPEN || t == KEY) {
+					open[openCount++] = y * sim.width + x;
+				}
+			}
+		}
+		int count = (argv.length > 1) ? Integer.parseInt(argv[1]) : openCount;
+		Random random = new Random((argv.length > 2) ? Long.parseLong(argv[2]) : 0);
+		int startX[] = new int[count];
+		int startY[] = new int[count];
+		for (int a = 0; a < count; a++) {
+			int p = (argv.length > 1) ? open[random.nextInt(openCount)] : open[a];
+			startX[a] = p % sim.width;
+			startY[a] = p / sim.width;
+		}
+
+		long time = System.nanoTime();
+		sim.reset(startX, startY);
+		int escaped = sim.run(new SampleAI());
+		time = System.nanoTime() - time;
+
+		long total = 0;
+		for (int a = 0; a < count; a++) {
+			if (sim.getScore(a) >= 0) {
+				total += sim.getScore(a);
+			}
+		}
+		System.out.println(count + " agents, " + escaped + " escaped"
+				+ (escaped > 0 ? " in " + (total / (double) escaped) + " steps on average" : ""));
+		System.out.println(sim.getTotalActions() + " actions in " + (time / 1000000) + " ms, "
+				+ (long) (sim.getTotalActions() * 1e9 / Math.max(1, time)) + " actions/s");
+	}
+}
@@ -0,0 +1,309 @@
+package com.csc2013;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import com.csc2013.DungeonMaze.BoxType;
+
+/**
+ *
+ * This class holds the MapBox grid of a very large map in square chunks that are read from a
+ * binary map file the first time one of their spaces is needed. Loaded chunks are kept in a least
+ * recently used cache and the oldest ones are dropped when the cache goes over its byte budget.
+ *
+ * Spaces that change during the game (keys picked up, doors opened) are remembered separately so
+ * they survive a chunk being dropped and read again.
+ *
+ * File layout (big endian):
+ *   int magic, int version, int width, int height, int chunkSize
+ *   long offset[chunks + 1]   where chunk c's data is from offset[c] to offset[c + 1]
+ *   chunk data                deflated BoxType ordinals of the chunk plus a 1 space border
+ *                             around it, row by row, with Blocked outside the map
+ *
+ * @author GE
+ *
+ */
+public class ChunkedGrid {
+	public final static int MAGIC = 0x414D5A43;
+	public final static int VERSION = 1;
+
+	/*
+	 * Default chunk size and cache budget
+	 */
+	public final static int chunkSize = 64;
+	public final static long defaultBudget = 64L << 20;
+
+	// Rough heap use of one loaded space: its MapBox plus the array slot and type byte
+	private final static int bytesPerSpace = 64;
+
+	private final static BoxType types[] = BoxType.values();
+
+	private RandomAccessFile file;
+	private FileChannel channel;
+	private int width;
+	private int height;
+	private int size;          // chunk size used by the file
+	private int chunksWide;
+	private int chunksHigh;
+	private long offsets[];
+	private long budget;
+	private long used = 0;
+	private long loads = 0;
+
+	// Loaded chunks in least recently used order
+	private LinkedHashMap<Integer, Chunk> chunks = new LinkedHashMap<Integer, Chunk>(16, 0.75f, true);
+
+	// Spaces changed since the map was loaded, by y * width + x
+	private HashMap<Integer, BoxType> changed = new HashMap<Integer, BoxType>();
+
+	private static class Chunk {
+		final byte types[];      // (size + 2) squared, including the border
+		final MapBox boxes[];    // size squared
+
+		Chunk(byte types[], MapBox boxes[]) {
+			this.types = types;
+			this.boxes = boxes;
+		}
+	}
+
+	public ChunkedGrid(File mapFile, long budget) throws IOException {
+		file = new RandomAccessFile(mapFile, "r");
+		channel = file.getChannel();
+		this.budget = budget;
+
+		if (file.readInt() != MAGIC) {
+			file.close();
+			throw new IOException(mapFile + " is not a chunked map file");
+		}
+		int version = file.readInt();
+		if (version != VERSION) {
+			file.close();
+			throw new IOException(mapFile + " has unsupported version " + version);
+		}
+		width = file.readInt();
+		height = file.readInt();
+		size = file.readInt();
+		chunksWide = (width + size - 1) / size;
+		chunksHigh = (height + size - 1) / size;
+
+		offsets = new long[chunksWide * chunksHigh + 1];
+		ByteBuffer table = ByteBuffer.allocate(8 * offsets.length);
+		while (table.hasRemaining()) {
+			if (channel.read(table, 5 * 4 + table.position()) < 0) {
+				file.close();
+				throw new IOException(mapFile + " is truncated");
+			}
+		}
+		table.flip();
+		table.asLongBuffer().get(offsets);
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public synchronized MapBox getMapBox(int x, int y) {
+		Chunk chunk = chunk(x, y);
+		return chunk.boxes[(y % size) * size + (x % size)];
+	}
+
+	public synchronized BoxType getType(int x, int y) {
+		Chunk chunk = chunk(x, y);
+		return types[chunk.types[(y % size + 1) * (size + 2) + (x % size + 1)]];
+	}
+
+	/*
+	 * Changes the type of a space and rebuilds the MapBoxes that can see it
+	 */
+	public synchronized void setType(int x, int y, BoxType type) {
+		changed.put(y * width + x, type);
+
+		// The space may be in the border of up to 4 other loaded chunks
+		for (int cy = (y - 1) / size; cy <= (y + 1) / size; cy++) {
+			for (int cx = (x - 1) / size; cx <= (x + 1) / size; cx++) {
+				if (cx < 0 || cy < 0 || cx >= chunksWide || cy >= chunksHigh) {
+					continue;
+				}
+				Chunk chunk = chunks.get(cy * chunksWide + cx);
+				if (chunk == null) {
+					continue;
+				}
+				int lx = x - cx * size + 1;
+				int ly = y - cy * size + 1;
+				if (lx < 0 || ly < 0 || lx > size + 1 || ly > size + 1) {
+					continue;
+				}
+				chunk.types[ly * (size + 2) + lx] = (byte) type.ordinal();
+				rebuild(chunk, lx - 1, ly - 1);
+				rebuild(chunk, lx - 1, ly - 2);
+				rebuild(chunk, lx - 1, ly);
+				rebuild(chunk, lx, ly - 1);
+				rebuild(chunk, lx - 2, ly - 1);
+			}
+		}
+	}
+
+	// Number of chunks read from the file so far
+	public synchronized long getLoads() {
+		return loads;
+	}
+
+	public synchronized int getLoadedChunks() {
+		return chunks.size();
+	}
+
+	public synchronized void close() throws IOException {
+		chunks.clear();
+		file.close();
+	}
+
+	// Returns the loaded chunk holding x,y, reading it if needed
+	private Chunk chunk(int x, int y) {
+		if (x < 0 || y < 0 || x >= width || y >= height) {
+			throw new ArrayIndexOutOfBoundsException(x + "," + y + " is outside the map");
+		}
+		int cx = x / size;
+		int cy = y / size;
+		int index = cy * chunksWide + cx;
+		Chunk chunk = chunks.get(index);
+		if (chunk == null) {
+			chunk = load(index, cx, cy);
+			chunks.put(index, chunk);
+			used += chunkBytes();
+
+			// Drop the least recently used chunks until we're back under the budget (always keep this one)
+			Iterator<Chunk> oldest = chunks.values().iterator();
+			while (used > budget && chunks.size() > 1) {
+				oldest.next();
+				oldest.remove();
+				used -= chunkBytes();
+			}
+		}
+		return chunk;
+	}
+
+	private Chunk load(int index, int cx, int cy) {
+		loads++;
+		int length = (int) (offsets[index + 1] - offsets[index]);
+		ByteBuffer data = ByteBuffer.allocate(length);
+		byte chunkTypes[] = new byte[(size + 2) * (size + 2)];
+		try {
+			while (data.hasRemaining()) {
+				if (channel.read(data, offsets[index] + data.position()) < 0) {
+					throw new IOException("Map file is truncated");
+				}
+			}
+			Inflater inflater = new Inflater();
+			inflater.setInput(data.array());
+			inflater.inflate(chunkTypes);
+			inflater.end();
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to read chunk " + cx + "," + cy, e);
+		} catch (DataFormatException e) {
+			throw new IllegalStateException("Chunk " + cx + "," + cy + " is corrupt", e);
+		}
+
+		// Put back anything that changed while the chunk wasn't loaded
+		for (java.util.Map.Entry<Integer, BoxType> change : changed.entrySet()) {
+			int lx = change.getKey() % width - cx * size + 1;
+			int ly = change.getKey() / width - cy * size + 1;
+			if (lx >= 0 && ly >= 0 && lx <= size + 1 && ly <= size + 1) {
+				chunkTypes[ly * (size + 2) + lx] = (byte) change.getValue().ordinal();
+			}
+		}
+
+		Chunk chunk = new Chunk(chunkTypes, new MapBox[size * size]);
+		for (int j = 0; j < size; j++) {
+			for (int i = 0; i < size; i++) {
+				rebuild(chunk, i, j);
+			}
+		}
+		return chunk;
+	}
+
+	// Builds the MapBox for space i,j of a chunk the same way Map.initBoxes() does
+	private void rebuild(Chunk chunk, int i, int j) {
+		if (i < 0 || j < 0 || i >= size || j >= size) {
+			return;
+		}
+		int row = size + 2;
+		int at = (j + 1) * row + (i + 1);
+		BoxType here = types[chunk.types[at]];
+		chunk.boxes[j * size + i] = new MapBox(types[chunk.types[at - row]], types[chunk.types[at + row]],
+				types[chunk.types[at + 1]], types[chunk.types[at - 1]], here == BoxType.Key, here == BoxType.Exit);
+	}
+
+	private long chunkBytes() {
+		return (long) size * size * bytesPerSpace;
+	}
+
+	/*
+	 * Writes a map file from BoxType ordinals laid out as cells[y * width + x]
+	 */
+	public static void write(File mapFile, int width, int height, byte cells[]) throws IOException {
+		int chunksWide = (width + chunkSize - 1) / chunkSize;
+		int chunksHigh = (height + chunkSize - 1) / chunkSize;
+		long offsets[] = new long[chunksWide * chunksHigh + 1];
+		byte blocked = (byte) BoxType.Blocked.ordinal();
+
+		RandomAccessFile out = new RandomAccessFile(mapFile, "rw");
+		try {
+			out.setLength(0);
+			FileChannel channel = out.getChannel();
+			long position = 5 * 4 + 8L * offsets.length;
+
+			byte chunkTypes[] = new byte[(chunkSize + 2) * (chunkSize + 2)];
+			byte packed[] = new byte[chunkTypes.length + 64];
+			Deflater deflater = new Deflater();
+			for (int cy = 0; cy < chunksHigh; cy++) {
+				for (int cx = 0; cx < chunksWide; cx++) {
+					int n = 0;
+					for (int y = cy * chunkSize - 1; y <= (cy + 1) * chunkSize; y++) {
+						for (int x = cx * chunkSize - 1; x <= (cx + 1) * chunkSize; x++) {
+							boolean inside = x >= 0 && y >= 0 && x < width && y < height;
+							chunkTypes[n++] = inside ? cells[y * width + x] : blocked;
+						}
+					}
+					deflater.reset();
+					deflater.setInput(chunkTypes);
+					deflater.finish();
+					int length = deflater.deflate(packed);
+
+					offsets[cy * chunksWide + cx] = position;
+					ByteBuffer data = ByteBuffer.wrap(packed, 0, length);
+					while (data.hasRemaining()) {
+						position += channel.write(data, position);
+					}
+				}
+			}
+			deflater.end();
+			offsets[offsets.length - 1] = position;
+
+			ByteBuffer header = ByteBuffer.allocate(5 * 4 + 8 * offsets.length);
+			header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).putInt(chunkSize);
+			for (long offset : offsets) {
+				header.putLong(offset);
+			}
+			header.flip();
+			long at = 0;
+			while (header.hasRemaining()) {
+				at += channel.write(header, at);
+			}
+		} finally {
+			out.close();
+		}
+	}
+}
@@ -1,5 +1,5 @@
-package com.csc2013;
-
-public class Consumable {
-
+package com.csc2013;
+
+public class Consumable {
+
 }
\ No newline at end of file
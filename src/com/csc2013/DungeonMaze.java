@@ -1,291 +1,558 @@
-package com.csc2013;
-import org.newdawn.slick.BasicGame;
-import org.newdawn.slick.GameContainer;
-import org.newdawn.slick.Graphics;
-import org.newdawn.slick.Input;
-import org.newdawn.slick.SlickException;
-
-/**
- * 
- * This class contains the logic to run a DungeonMaze game.
- * 
- * @author GE
- *
- */
-public class DungeonMaze extends BasicGame {
-    
-	private Player player;
-	private SchoolPlayer school;
-	private AIPlayer ai;
-	private Map map;
-	@SuppressWarnings("unused")	private float gameTime = 0;  // This is not unused
-	private boolean lastAction = true;
-	private float playerMoveTime = 0;
-	private final float moveTime = 50;
-	private int steps = 0;
-	private boolean gameRunning = true;
-	private PlayerType curPlayer;
-	private String mapName = "";
-	private int mapTracker = 0;
-	private int personTracker = 0;
-	private int visionTracker = 0;
-	private int score[][][] = new int[Tournament.vision.length][Tournament.players.length][Tournament.maps.length];
-	
-	public enum PlayerType {
-	        School, Human, AI
-	};
-	
-    public enum BoxType {
-        Open, Blocked, Door, Exit, Key
-    };
-    
-    public enum MoveType {
-        Open, Blocked
-    };
-    
-    public enum Direction {
-        North, South, East, West
-    };
-    
-    public enum Actionx {
-        Move, Pickup, Use
-    };
-    
-    public enum Action {
-        North, South, East, West, Pickup, Use
-    };
-
-
-	public DungeonMaze() {
-		super("Dungeon Maze");
-	}
-	
-	public DungeonMaze(String mapName, PlayerType type) {
-		super("Dungeon Maze");
-		this.mapName = mapName;
-		this.curPlayer = type;
-	}
-	
-	// Build GameContainer, limit FPS to 60, instantiate the map and player
-	public void init(GameContainer container) throws SlickException {
-		// suppress Slick2Ds output
-		container.setVerbose(false);
-		
-		//set the vision each time init() is called
-		PlayerVision.distanceToView = Tournament.vision[visionTracker];
-
-		// if all maps run through go back to first map				
-		if (mapTracker == Tournament.maps.length) {
-			personTracker++;
-			mapTracker = 0;
-		}
-		this.mapName = Tournament.maps[mapTracker];
-		// If all players are run through restart with the next set of vision
-		if (personTracker == Tournament.players.length) { 
-			visionTracker++;
-			personTracker = 0;
-
-			if (visionTracker < Tournament.vision.length) {
-				PlayerVision.distanceToView = Tournament.vision[visionTracker];
-			}
-		}
-        
-		if (visionTracker == Tournament.vision.length) { //END GAME
-			System.out.println();
-			System.out.println("****** FINAL RESULTS ******");
-			System.out.println("Maximum steps allowed: " + Tournament.maxSteps);
-			for (int v = 0; v < Tournament.vision.length; v++) {
-				System.out.println("--- Results for Vision Distance Set at " + Tournament.vision[v] + " ---");
-				System.out.print("\t");
-				for (int i = 0; i < Tournament.maps.length; i++) {
-					System.out.print(Tournament.maps[i] + "\t");
-				}
-				System.out.print("\n");
-				for (int r = 0; r < Tournament.players.length; r++) {
-					System.out.print(Tournament.players[r] + "\t");
-					for (int c = 0; c < Tournament.maps.length; c++) {
-						System.out.print(score[v][r][c] + "\t\t");
-					}
-					System.out.print("\n");
-				}
-				System.out.print("\n");
-			}
-			container.setForceExit(false);
-			container.exit();
-		} else { // if (re)starting a game
-			//set the current player
-			this.curPlayer = Tournament.players[personTracker];
-			
-			// set up rendering options
-			container.setVSync(true);
-			container.setTargetFrameRate(60);
-			container.setShowFPS(false);
-			
-			// set up map and player objects
-			map = new Map();
-			map.setMap(mapName);
-			player = new Player(map);
-			
-			// Set players here
-			if (curPlayer == PlayerType.AI) {
-				ai = new AIPlayer();
-			} else if (curPlayer == PlayerType.School) {
-				school = new SchoolPlayer();
-			}
-			
-			// output for each run what the tournament settings are
-			System.out.println("-----");
-			System.out.println("Starting a DungeonMaze run with the following settings:");
-			System.out.println("Map: " + Tournament.maps[mapTracker]);
-			System.out.println("Player: " + Tournament.players[personTracker]);
-			System.out.println("Vision distance: " + Tournament.vision[visionTracker]);
-		}
-	}
-	
-	@SuppressWarnings("unused")
-	public void update(GameContainer container, int delta) {
-		gameTime += delta;
-		if(playerMoveTime > 0) {
-			playerMoveTime -= delta;
-		}
-        player.setMapBox();
-        boolean show = true;
-		if(playerMoveTime <= 0 && gameRunning) {
-		    if(curPlayer == PlayerType.Human) {
-                PlayerVision vision = new PlayerVision(map, player.getPlayerGridLocation());
-    			if (container.getInput().isKeyDown(Input.KEY_LEFT)) {show = true; lastAction = player.move(Action.West); if (lastAction == true) {steps++;}}
-    			else if (container.getInput().isKeyDown(Input.KEY_RIGHT)) {show = true; lastAction = player.move(Action.East);if (lastAction == true) {steps++;}}
-    			else if (container.getInput().isKeyDown(Input.KEY_UP)) {show = true; lastAction = player.move(Action.North); if (lastAction == true) {steps++;}}
-    			else if (container.getInput().isKeyDown(Input.KEY_DOWN)) {show = true; lastAction = player.move(Action.South); if (lastAction == true) {steps++;}}
-                else if (container.getInput().isKeyDown(Input.KEY_SPACE)) {show = true; lastAction = player.move(Action.Pickup); if (lastAction == true) {steps++;} /*printPlayerLoc(vision);*/}
-                else if (container.getInput().isKeyDown(Input.KEY_ENTER)) {show = true; lastAction = player.move(Action.Use); if (lastAction == true) {steps++;} /*printPlayerVision(vision);*/}
-    			else if (container.getInput().isKeyPressed(Input.KEY_ESCAPE)){System.exit(0);}
-    			else if(container.getInput().isKeyPressed(Input.KEY_0)) { 
-    	            show = false;
-    	        }
-		    } else if (curPlayer == PlayerType.AI) {
-		        PlayerVision vision = new PlayerVision(map, player.getPlayerGridLocation());
-		        lastAction = player.move(ai.nextMove(vision, player.getKeys(), lastAction));
-		        if (lastAction == true) {
-		        	steps++;
-		        }
-		    } else if (curPlayer == PlayerType.School) {
-		    	PlayerVision vision = new PlayerVision(map, player.getPlayerGridLocation());
-		    	lastAction = player.move(school.nextMove(vision, player.getKeys(), lastAction));
-		    	if (lastAction == true) {
-		    		steps++;
-		    	}
-		    }
-		    
-            if (player.end() || (steps >= Tournament.maxSteps)) {
-                if (steps >= Tournament.maxSteps) {
-                	System.out.println("Failed to escape the dungeon and become Gollum :(");
-                	// update scoreboard
-                    score[visionTracker][personTracker][mapTracker] = -1;
-                } else {
-                	System.out.println("Escaped the dungeon in "+ steps + " steps :)");
-                	// update scoreboard
-                    score[visionTracker][personTracker][mapTracker] = steps;
-                }
-
-                // restart the game
-                mapTracker++;
-                steps = 0;
-                try {
-					container.reinit();
-				} catch (SlickException e) {
-					// TODO Auto-generated catch block
-					e.printStackTrace();
-				}
-            }
-            playerMoveTime = moveTime;
-		}
-	}
-	
-	public void printPlayerLoc(PlayerVision vision) {
-        System.out.println("---------------------------------");
-        System.out.print(vision.CurrentPoint.North);
-        System.out.print(vision.CurrentPoint.South);
-        System.out.print(vision.CurrentPoint.East);
-        System.out.print(vision.CurrentPoint.West);
-        System.out.println("---------------------------------");
-	}
-	
-	public void printPlayerVision(PlayerVision vision) {
-        System.out.println("---------------------------------");
-        System.out.print("North: ");
-	    //System.out.print(vision.CurrentPoint.North);
-	    for(int i = 0; i < vision.mNorth; i++) {
-            if(vision.North[i].hasKey()) {
-                System.out.print("Key");
-            } 
-            System.out.print(vision.North[i].North);
-            System.out.print(vision.North[i].South);
-            System.out.print(vision.North[i].East);
-            System.out.print(vision.North[i].West);
-            
-            System.out.print(" ");
-	    }
-	    System.out.println("//");
-        System.out.print("South: ");
-        //System.out.print(vision.CurrentPoint.South);
-        for(int i = 0; i < vision.mSouth; i++) {
-            if(vision.South[i].hasKey()) {
-                System.out.print("Has");
-            }
-            System.out.print(vision.South[i].North);
-            System.out.print(vision.South[i].South);
-            System.out.print(vision.South[i].East);
-            System.out.print(vision.South[i].West);
-            
-            System.out.print(" ");
-        }
-        System.out.println("//");
-        System.out.print("East: ");
-        //System.out.print(vision.CurrentPoint.East);
-        for(int i = 0; i < vision.mEast; i++) {
-            if(vision.East[i].hasKey()) {
-                System.out.print("Key");
-            } 
-            System.out.print(vision.East[i].North);
-            System.out.print(vision.East[i].South);
-            System.out.print(vision.East[i].East);
-            System.out.print(vision.East[i].West);
-            
-            System.out.print(" ");
-        }
-        System.out.println("//");
-        System.out.print("West: ");
-        //System.out.print(vision.CurrentPoint.West);
-        for(int i = 0; i < vision.mWest; i++) {
-            if(vision.West[i].hasKey()) {
-                System.out.print("Key");
-            } 
-            System.out.print(vision.West[i].North);
-            System.out.print(vision.West[i].South);
-            System.out.print(vision.West[i].East);
-            System.out.print(vision.West[i].West);
-            
-            System.out.print(" ");
-        }
-        System.out.println("//");
-        System.out.println("---------------------------------");
-	    
-	}
-	
-	/*
-	 * Mike
-	 * @see org.newdawn.slick.Game#render(org.newdawn.slick.GameContainer, org.newdawn.slick.Graphics)
-	 * 
-	 * Render Method: Draws the player in the center of the map and moves the map around it
-	 * 				Map rendering starts at 0,0 (top left).
-	 * 				Formula: x = (half of the screen width pixels) - the player's x position on the grid * 16 pixels
-	 * 						 y = (half of the screen height pixels) - the player's y position on the grid * 16 pixels
-	 * 
-	 */
-	public void render(GameContainer container, Graphics g)  {
-		map.getMap().render(320 - (int) ((float)player.getPlayerGridLocation().getX()*16),
-				240 - (int) ((float)player.getPlayerGridLocation().getY()*16));
-		g.drawAnimation(player.getPlayerAnimation(), (640/2),(480/2));
-	}
+package com.csc2013;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.newdawn.slick.BasicGame;
+import org.newdawn.slick.GameContainer;
+import org.newdawn.slick.Graphics;
+import org.newdawn.slick.Input;
+import org.newdawn.slick.SlickException;
+
+/**
+ * 
+ * This class contains the logic to run a DungeonMaze game.
+ * 
+ * @author GE
+ *
+ */
+public class DungeonMaze extends BasicGame {
+    
+	private Player player;
+	private SchoolPlayer school;
+	private ExecutorService planner;    // makes the School player's decisions off the render thread
+	private Future<Action> planning;    // the decision being made, or null
+	private volatile long planningStarted;  // when the planner thread started on it, 0 until then
+	private long planningDue;               // when the move it's for is due
+	private boolean planningLate = false;
+	private ExecutorService solver;     // works out optimal scores which aren't cached yet off the render thread
+	private AIPlayer ai;
+	private Map map;
+	private MapRenderer renderer;
+	@SuppressWarnings("unused")	private float gameTime = 0;  // This is not unused
+	private boolean lastAction = true;
+	private float playerMoveTime = 0;
+	private final float moveTime = 50;
+	private int speed = Tournament.speed;  // 0 is as fast as possible
+	private final int maxSpeed = 64;
+	private final long turboTime = 12000000;  // ns of moves per update when faster than normal
+	private int steps = 0;
+	private boolean gameRunning = true;
+	private PlayerType curPlayer;
+	private String mapName = "";
+	private int mapTracker = 0;
+	private int personTracker = 0;
+	private int visionTracker = 0;
+	private int score[][][] = new int[Tournament.vision.length][Tournament.players.length][Tournament.maps.length];
+	private int optimal[] = new int[Tournament.maps.length];
+	private TraceWriter.Game trace;
+	private PlannerStats stats[][][] = new PlannerStats[Tournament.vision.length][Tournament.players.length][Tournament.maps.length];
+	
+	public enum PlayerType {
+	        School, Human, AI
+	};
+	
+    public enum BoxType {
+        Open, Blocked, Door, Exit, Key
+    };
+    
+    public enum MoveType {
+        Open, Blocked
+    };
+    
+    public enum Direction {
+        North, South, East, West
+    };
+    
+    public enum Actionx {
+        Move, Pickup, Use
+    };
+    
+    public enum Action {
+        North, South, East, West, Pickup, Use
+    };
+
+
+	public DungeonMaze() {
+		super("Dungeon Maze");
+	}
+	
+	public DungeonMaze(String mapName, PlayerType type) {
+		super("Dungeon Maze");
+		this.mapName = mapName;
+		this.curPlayer = type;
+	}
+	
+	// Build GameContainer, limit FPS to 60, instantiate the map and player
+	public void init(GameContainer container) throws SlickException {
+		// suppress Slick2Ds output
+		container.setVerbose(false);
+		
+		//set the vision each time init() is called
+		PlayerVision.distanceToView = Tournament.vision[visionTracker];
+
+		// if all maps run through go back to first map				
+		if (mapTracker == Tournament.maps.length) {
+			personTracker++;
+			mapTracker = 0;
+		}
+		this.mapName = Tournament.maps[mapTracker];
+		// If all players are run through restart with the next set of vision
+		if (personTracker == Tournament.players.length) { 
+			visionTracker++;
+			personTracker = 0;
+
+			if (visionTracker < Tournament.vision.length) {
+				PlayerVision.distanceToView = Tournament.vision[visionTracker];
+			}
+		}
+        
+		if (visionTracker == Tournament.vision.length) { //END GAME
+			finishSolving();
+			System.out.println();
+			System.out.println("****** FINAL RESULTS ******");
+			System.out.println("Maximum steps allowed: " + Tournament.maxSteps);
+			for (int v = 0; v < Tournament.vision.length; v++) {
+				System.out.println("--- Results for Vision Distance Set at " + Tournament.vision[v] + " ---");
+				System.out.print("\t");
+				for (int i = 0; i < Tournament.maps.length; i++) {
+					System.out.print(Tournament.maps[i] + "\t");
+				}
+				System.out.print("\n");
+				for (int r = 0; r < Tournament.players.length; r++) {
+					System.out.print(Tournament.players[r] + "\t");
+					for (int c = 0; c < Tournament.maps.length; c++) {
+						System.out.print(score[v][r][c] + "\t\t");
+					}
+					System.out.print("\n");
+				}
+				System.out.print("Optimal\t");
+				for (int c = 0; c < Tournament.maps.length; c++) {
+					System.out.print(describeOptimal(optimal[c]) + "\t\t");
+				}
+				System.out.print("\n");
+				System.out.print("\n");
+			}
+			writeStats();
+			container.setForceExit(false);
+			container.exit();
+		} else { // if (re)starting a game
+			//set the current player
+			this.curPlayer = Tournament.players[personTracker];
+			
+			// set up rendering options
+			container.setVSync(true);
+			container.setTargetFrameRate(60);
+			container.setShowFPS(false);
+			
+			// set up map and player objects
+			map = new Map();
+			map.setMap(mapName);
+			if (renderer != null) {
+				renderer.destroy();
+			}
+			renderer = new MapRenderer(map);
+			player = new Player(map);
+			Integer known = OptimalSolver.cachedSteps(map);
+			if (known != null) {
+				optimal[mapTracker] = known;
+			} else {
+				startSolving(map, mapTracker);
+			}
+			trace = TraceWriter.begin(mapName, Tournament.vision[visionTracker], curPlayer, Player.startX, Player.startY);
+			
+			// Set players here
+			if (curPlayer == PlayerType.AI) {
+				ai = new AIPlayer();
+			} else if (curPlayer == PlayerType.School) {
+				school = new SchoolPlayer();
+			}
+			
+			// output for each run what the tournament settings are
+			System.out.println("-----");
+			System.out.println("Starting a DungeonMaze run with the following settings:");
+			System.out.println("Map: " + Tournament.maps[mapTracker]);
+			System.out.println("Player: " + Tournament.players[personTracker]);
+			System.out.println("Vision distance: " + Tournament.vision[visionTracker]);
+			System.out.println("Optimal solution: " + ((known != null) ? describeOptimal(known) + " steps" : "being worked out"));
+		}
+	}
+	
+	@SuppressWarnings("unused")
+	public void update(GameContainer container, int delta) {
+		gameTime += delta;
+		changeSpeed(container.getInput());
+		int rate = (curPlayer == PlayerType.Human) ? 1 : speed;
+		if(playerMoveTime > 0) {
+			playerMoveTime -= (rate == 0) ? playerMoveTime : delta * rate;
+		}
+        player.setMapBox();
+        boolean show = true;
+        long deadline = System.nanoTime() + turboTime;
+		while(playerMoveTime <= 0 && gameRunning) {
+		    if(curPlayer == PlayerType.Human) {
+                PlayerVision vision = new PlayerVision(map, player.getPlayerGridLocation());
+    			if (container.getInput().isKeyDown(Input.KEY_LEFT)) {show = true; lastAction = move(Action.West); if (lastAction == true) {steps++;}}
+    			else if (container.getInput().isKeyDown(Input.KEY_RIGHT)) {show = true; lastAction = move(Action.East);if (lastAction == true) {steps++;}}
+    			else if (container.getInput().isKeyDown(Input.KEY_UP)) {show = true; lastAction = move(Action.North); if (lastAction == true) {steps++;}}
+    			else if (container.getInput().isKeyDown(Input.KEY_DOWN)) {show = true; lastAction = move(Action.South); if (lastAction == true) {steps++;}}
+                else if (container.getInput().isKeyDown(Input.KEY_SPACE)) {show = true; lastAction = move(Action.Pickup); if (lastAction == true) {steps++;} /*printPlayerLoc(vision);*/}
+                else if (container.getInput().isKeyDown(Input.KEY_ENTER)) {show = true; lastAction = move(Action.Use); if (lastAction == true) {steps++;} /*printPlayerVision(vision);*/}
+    			else if (container.getInput().isKeyPressed(Input.KEY_ESCAPE)){System.exit(0);}
+    			else if(container.getInput().isKeyPressed(Input.KEY_0)) { 
+    	            show = false;
+    	        }
+		    } else if (curPlayer == PlayerType.AI) {
+		        PlayerVision vision = new PlayerVision(map, player.getPlayerGridLocation());
+		        lastAction = move(ai.nextMove(vision, player.getKeys(), lastAction));
+		        if (lastAction == true) {
+		        	steps++;
+		        }
+		    } else if (curPlayer == PlayerType.School) {
+		    	if (planning == null) {
+		    		startPlanning();
+		    	}
+		    	if (!waitForPlan((rate == 1) ? 0 : deadline - System.nanoTime())) {
+		    		break;  // still thinking, keep drawing frames
+		    	}
+		    	lastAction = move(takePlan());
+		    	if (lastAction == true) {
+		    		steps++;
+		    	}
+		    }
+		    
+            if (player.end() || (steps >= Tournament.maxSteps)) {
+                if (steps >= Tournament.maxSteps) {
+                	System.out.println("Failed to escape the dungeon and become Gollum :(");
+                	// update scoreboard
+                    score[visionTracker][personTracker][mapTracker] = -1;
+                } else {
+                	System.out.println("Escaped the dungeon in "+ steps + " steps :)");
+                	// update scoreboard
+                    score[visionTracker][personTracker][mapTracker] = steps;
+                }
+                if (curPlayer == PlayerType.School) {
+                    stats[visionTracker][personTracker][mapTracker] = school.getStats();
+                }
+                trace.end(score[visionTracker][personTracker][mapTracker]);
+
+                // restart the game
+                mapTracker++;
+                steps = 0;
+                try {
+					container.reinit();
+				} catch (SlickException e) {
+					// TODO Auto-generated catch block
+					e.printStackTrace();
+				}
+                playerMoveTime = moveTime;
+                break;
+            }
+
+            // Faster than normal, keep moving until this frame's share of time is used up
+            if (rate == 1) {
+                playerMoveTime = moveTime;
+                planAhead();
+                break;
+            }
+            playerMoveTime += (rate == 0) ? 0 : moveTime / rate;
+            if (System.nanoTime() > deadline) {
+                playerMoveTime = Math.max(playerMoveTime, 0);
+                planAhead();
+                break;
+            }
+            player.setMapBox();
+		}
+	}
+	
+	// Works out the optimal score for a map on the solver thread, it's filled in when done
+	private void startSolving(final Map map, final int c) {
+		optimal[c] = -1;
+		if (solver == null) {
+			solver = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "Optimal solver");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		solver.execute(new Runnable() {
+			public void run() {
+				optimal[c] = OptimalSolver.optimalSteps(map);
+			}
+		});
+	}
+	
+	// Waits for the optimal scores still being worked out so the results have them
+	private void finishSolving() {
+		if (solver != null) {
+			solver.shutdown();
+			try {
+				solver.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+			}
+			solver = null;
+		}
+	}
+	
+	// An optimal score for people to read, -1 means it's unknown
+	private static String describeOptimal(int steps) {
+		return (steps < 0) ? "unknown" : Integer.toString(steps);
+	}
+	
+	// Starts the School player deciding its next move on the planner thread
+	private void startPlanning() {
+		if (planner == null) {
+			planner = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "School planner");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		long allocated = Allocations.current();
+		final PlayerVision vision = new PlayerVision(map, player.getPlayerGridLocation());
+		school.getStats().recordVisionAllocation(Allocations.current() - allocated);
+		final SchoolPlayer school = this.school;
+		final int keys = player.getKeys();
+		final boolean last = lastAction;
+		planningStarted = 0;
+		planningDue = System.nanoTime();
+		planningLate = false;
+		planning = planner.submit(new Callable<Action>() {
+			public Action call() {
+				planningStarted = System.nanoTime();
+				return school.nextMove(vision, keys, last);
+			}
+		});
+	}
+	
+	/*
+	 * Starts the School player's next decision now rather than when the next move is due.
+	 * Nothing changes while the game waits out playerMoveTime, so the vision it will get then
+	 * is the one it gets now and the decision is ready (or nearly) when it's needed. The
+	 * timeout still counts from when the move is due.
+	 */
+	private void planAhead() {
+		if (curPlayer == PlayerType.School && gameRunning && planning == null) {
+			startPlanning();
+			planningDue += (long) (Math.max(playerMoveTime, 0) * 1000000);
+		}
+	}
+	
+	/*
+	 * Waits up to wait ns for the decision. Returns false if it isn't ready yet.
+	 * Past the timeout it returns true straight away without the decision, so the player
+	 * makes a simple move this turn. The timeout counts from when the move is due or when the planner
+	 * thread got to the decision, whichever is later, so one late decision doesn't make
+	 * the next one late too.
+	 */
+	private boolean waitForPlan(long wait) {
+		if (!planning.isDone() && wait > 0) {
+			try {
+				planning.get(wait, TimeUnit.NANOSECONDS);
+			} catch (TimeoutException e) {
+			} catch (InterruptedException e) {
+			} catch (ExecutionException e) {
+			}
+		}
+		if (planning.isDone()) {
+			return true;
+		}
+		long started = planningStarted;
+		if (Tournament.planTimeout > 0 && started != 0
+				&& System.nanoTime() - Math.max(started, planningDue) > Tournament.planTimeout * 1000000L) {
+			planningLate = true;
+			System.out.println("The School player took over " + Tournament.planTimeout + " ms to move, it makes a simple move this turn");
+			return true;
+		}
+		return false;
+	}
+	
+	/*
+	 * The finished decision, or the School player's simple move if it was too late (or broke).
+	 * A late decision is thrown away when it's done. The player is told which move was made
+	 * for it before the planner thread gets to its next decision, so its map stays right.
+	 * The simple move is a normal step, so the game still ends and the trace can be replayed.
+	 */
+	private Action takePlan() {
+		Future<Action> done = planning;
+		planning = null;
+		if (!planningLate) {
+			try {
+				return done.get();
+			} catch (InterruptedException e) {
+			} catch (ExecutionException e) {
+				e.getCause().printStackTrace();
+			}
+		}
+		final SchoolPlayer school = this.school;
+		final Action simple = school.getSimpleAction(new PlayerVision(map, player.getPlayerGridLocation()));
+		planner.execute(new Runnable() {
+			public void run() {
+				school.moveReplaced(simple);
+			}
+		});
+		return simple;
+	}
+	
+	// + and - double or halve the speed of the AI and School players, past maxSpeed is as fast as possible
+	private void changeSpeed(Input input) {
+		if (input.isKeyPressed(Input.KEY_EQUALS) || input.isKeyPressed(Input.KEY_ADD)) {
+			if (speed != 0) {
+				speed = (speed >= maxSpeed) ? 0 : speed * 2;
+			}
+		} else if (input.isKeyPressed(Input.KEY_MINUS) || input.isKeyPressed(Input.KEY_SUBTRACT)) {
+			if (speed == 0) {
+				speed = maxSpeed;
+			} else if (speed > 1) {
+				speed /= 2;
+			}
+		}
+	}
+	
+	// Apply an action to the player and add it to the game's trace
+	private boolean move(Action action) {
+		int x = player.getPlayerGridLocation().x;
+		int y = player.getPlayerGridLocation().y;
+		int keys = player.getKeys();
+		boolean result = player.move(action);
+		trace.step(x, y, keys, action, result);
+		return result;
+	}
+	
+	// Write the planner statistics of every School game next to the score table, as JSON and CSV
+	private void writeStats() {
+		try {
+			PrintWriter json = new PrintWriter(new FileWriter(Tournament.statsFile + ".json"));
+			PrintWriter csv = new PrintWriter(new FileWriter(Tournament.statsFile + ".csv"));
+			json.println("[");
+			csv.println("vision,player,map,score,optimal," + PlannerStats.csvHeader());
+			boolean first = true;
+			for (int v = 0; v < Tournament.vision.length; v++) {
+				for (int r = 0; r < Tournament.players.length; r++) {
+					for (int c = 0; c < Tournament.maps.length; c++) {
+						if (stats[v][r][c] == null) {
+							continue;
+						}
+						if (!first) {
+							json.println(",");
+						}
+						first = false;
+						json.print("  {\"vision\": " + Tournament.vision[v] + ", \"player\": \"" + Tournament.players[r] + "\", \"map\": \"" + Tournament.maps[c]
+								+ "\", \"score\": " + score[v][r][c] + ", \"optimal\": " + optimal[c] + ", " + stats[v][r][c].toJsonFields() + "}");
+						csv.println(Tournament.vision[v] + "," + Tournament.players[r] + "," + Tournament.maps[c] + "," + score[v][r][c] + "," + optimal[c] + "," + stats[v][r][c].toCsv());
+					}
+				}
+			}
+			json.println();
+			json.println("]");
+			json.close();
+			csv.close();
+			System.out.println("Planner statistics written to " + Tournament.statsFile + ".json and " + Tournament.statsFile + ".csv");
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	public void printPlayerLoc(PlayerVision vision) {
+        System.out.println("---------------------------------");
+        System.out.print(vision.CurrentPoint.North);
+        System.out.print(vision.CurrentPoint.South);
+        System.out.print(vision.CurrentPoint.East);
+        System.out.print(vision.CurrentPoint.West);
+        System.out.println("---------------------------------");
+	}
+	
+	public void printPlayerVision(PlayerVision vision) {
+        System.out.println("---------------------------------");
+        System.out.print("North: ");
+	    //System.out.print(vision.CurrentPoint.North);
+	    for(int i = 0; i < vision.mNorth; i++) {
+            if(vision.North[i].hasKey()) {
+                System.out.print("Key");
+            } 
+            System.out.print(vision.North[i].North);
+            System.out.print(vision.North[i].South);
+            System.out.print(vision.North[i].East);
+            System.out.print(vision.North[i].West);
+            
+            System.out.print(" ");
+	    }
+	    System.out.println("//");
+        System.out.print("South: ");
+        //System.out.print(vision.CurrentPoint.South);
+        for(int i = 0; i < vision.mSouth; i++) {
+            if(vision.South[i].hasKey()) {
+                System.out.print("Has");
+            }
+            System.out.print(vision.South[i].North);
+            System.out.print(vision.South[i].South);
+            System.out.print(vision.South[i].East);
+            System.out.print(vision.South[i].West);
+            
+            System.out.print(" ");
+        }
+        System.out.println("//");
+        System.out.print("East: ");
+        //System.out.print(vision.CurrentPoint.East);
+        for(int i = 0; i < vision.mEast; i++) {
+            if(vision.East[i].hasKey()) {
+                System.out.print("Key");
+            } 
+            System.out.print(vision.East[i].North);
+            System.out.print(vision.East[i].South);
+            System.out.print(vision.East[i].East);
+            System.out.print(vision.East[i].West);
+            
+            System.out.print(" ");
+        }
+        System.out.println("//");
+        System.out.print("West: ");
+        //System.out.print(vision.CurrentPoint.West);
+        for(int i = 0; i < vision.mWest; i++) {
+            if(vision.West[i].hasKey()) {
+                System.out.print("Key");
+            } 
+            System.out.print(vision.West[i].North);
+            System.out.print(vision.West[i].South);
+            System.out.print(vision.West[i].East);
+            System.out.print(vision.West[i].West);
+            
+            System.out.print(" ");
+        }
+        System.out.println("//");
+        System.out.println("---------------------------------");
+	    
+	}
+	
+	/*
+	 * Mike
+	 * @see org.newdawn.slick.Game#render(org.newdawn.slick.GameContainer, org.newdawn.slick.Graphics)
+	 * 
+	 * Render Method: Draws the player in the center of the map and moves the map around it
+	 * 				Map rendering starts at 0,0 (top left).
+	 * 				Formula: x = (half of the screen width pixels) - the player's x position on the grid * 16 pixels
+	 * 						 y = (half of the screen height pixels) - the player's y position on the grid * 16 pixels
+	 * 				Only the tiles on the screen are drawn, see MapRenderer.
+	 * 
+	 */
+	public void render(GameContainer container, Graphics g)  {
+		renderer.render(g, 320 - (int) ((float)player.getPlayerGridLocation().getX()*16),
+				240 - (int) ((float)player.getPlayerGridLocation().getY()*16), 640, 480);
+		g.drawAnimation(player.getPlayerAnimation(), (640/2),(480/2));
+		if (speed != 1) {
+			g.drawString("Speed: " + ((speed == 0) ? "max" : "x" + speed), 10, 10);
+		}
+	}
 }
\ No newline at end of file
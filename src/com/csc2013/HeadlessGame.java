@@ -0,0 +1,129 @@
+package com.csc2013;
+
+import java.awt.Point;
+
+import org.newdawn.slick.SlickException;
+
+import com.csc2013.DungeonMaze.Action;
+import com.csc2013.DungeonMaze.PlayerType;
+
+/**
+ *
+ * This class runs a single DungeonMaze game without a window, graphics or move delays.
+ * The rules are the same as DungeonMaze.update(): a step is counted for every successful action
+ * and the game ends on the exit or after Tournament.maxSteps steps.
+ *
+ * Map keeps its grid in a static field, so only one game can run at a time.
+ *
+ * @author GE
+ *
+ */
+public class HeadlessGame {
+	private Map map;
+	private Player player;
+	private SchoolPlayer school;
+	private AIPlayer ai;
+	private PlayerType curPlayer;
+	private boolean lastAction = true;
+	private int steps = 0;
+	private boolean gameRunning = true;
+	private TraceWriter.Game trace;
+
+	public HeadlessGame(String mapName, PlayerType type, int vision) throws SlickException {
+		this(loadMap(mapName), type, vision);
+	}
+
+	// Plays on a map that's already loaded, e.g. with Map.setMapHeadless(name, grid)
+	public HeadlessGame(Map map, PlayerType type, int vision) throws SlickException {
+		if (type == PlayerType.Human) {
+			throw new IllegalArgumentException("A human player needs the window");
+		}
+		PlayerVision.distanceToView = vision;
+		curPlayer = type;
+
+		this.map = map;
+		player = new Player(map, false);
+
+		if (curPlayer == PlayerType.AI) {
+			ai = new AIPlayer();
+		} else {
+			school = new SchoolPlayer();
+		}
+		Point start = player.getPlayerGridLocation();
+		trace = TraceWriter.begin(map.getMapName(), vision, type, start.x, start.y);
+	}
+
+	private static Map loadMap(String mapName) throws SlickException {
+		Map map = new Map();
+		map.setMapHeadless(mapName);
+		return map;
+	}
+
+	// Plays the whole game. Returns the number of steps taken or -1 if the player didn't escape.
+	public int run() {
+		while (step()) {
+		}
+		return getScore();
+	}
+
+	// Asks the player for one action and applies it. Returns false once the game is over.
+	public boolean step() {
+		if (!gameRunning) {
+			return false;
+		}
+		player.setMapBox();
+
+		long allocated = Allocations.current();
+		PlayerVision vision = new PlayerVision(map, player.getPlayerGridLocation());
+		if (school != null) {
+			school.getStats().recordVisionAllocation(Allocations.current() - allocated);
+		}
+		Action action;
+		if (curPlayer == PlayerType.AI) {
+			action = ai.nextMove(vision, player.getKeys(), lastAction);
+		} else {
+			action = school.nextMove(vision, player.getKeys(), lastAction);
+		}
+		Point location = player.getPlayerGridLocation();
+		int x = location.x;
+		int y = location.y;
+		int keys = player.getKeys();
+		lastAction = player.move(action);
+		trace.step(x, y, keys, action, lastAction);
+		if (lastAction == true) {
+			steps++;
+		}
+
+		if (player.end() || (steps >= Tournament.maxSteps)) {
+			gameRunning = false;
+			trace.end(getScore());
+		}
+		return gameRunning;
+	}
+
+	// The score the tournament would record: steps taken, or -1 if the player failed to escape
+	public int getScore() {
+		return player.end() ? steps : -1;
+	}
+
+	public int getSteps() {
+		return steps;
+	}
+
+	public boolean isRunning() {
+		return gameRunning;
+	}
+
+	public Map getMap() {
+		return map;
+	}
+
+	public Player getPlayer() {
+		return player;
+	}
+
+	// The SchoolPlayer being run, or null for other players
+	public SchoolPlayer getSchoolPlayer() {
+		return school;
+	}
+}
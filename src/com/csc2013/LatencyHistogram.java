@@ -0,0 +1,113 @@
+package com.csc2013;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of times in nanoseconds (or any other non-negative amounts, like bytes) with about 6% precision.
+ * Values are grouped by their highest set bit and the 4 bits after it, so it takes a fixed 8KB array and
+ * recording is one increment with no allocation and no locks.
+ * 
+ * @author Daniel Centore
+ *
+ */
+public class LatencyHistogram
+{
+	private static final int SUB_BITS = 4;						// Bits of precision kept below the highest bit
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder total = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a single value
+	 * @param nanos The time taken (negative values are counted as 0)
+	 */
+	public void record(long nanos)
+	{
+		if (nanos < 0)
+			nanos = 0;
+
+		counts.incrementAndGet(bucket(nanos));
+		total.increment();
+		sum.add(nanos);
+
+		long m;
+		while (nanos > (m = max.get()) && !max.compareAndSet(m, nanos))
+			;
+	}
+
+	public long getCount()
+	{
+		return total.sum();
+	}
+
+	public long getMax()
+	{
+		return max.get();
+	}
+
+	/**
+	 * @return The sum of every recorded value
+	 */
+	public long getTotal()
+	{
+		return sum.sum();
+	}
+
+	/**
+	 * Finds the value which the given percentage of recorded values are less than or equal to
+	 * @param percentile From 0 to 100
+	 * @return The upper end of the bucket it falls in (never more than the max), or 0 if nothing was recorded
+	 */
+	public long getPercentile(double percentile)
+	{
+		long count = getCount();
+		if (count == 0)
+			return 0;
+
+		long wanted = Math.max(1, (long) Math.ceil(count * percentile / 100));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++)
+		{
+			seen += counts.get(i);
+			if (seen >= wanted)
+				return Math.min(highest(i), getMax());
+		}
+
+		return getMax();
+	}
+
+	/**
+	 * @param value A value to record
+	 * @return The bucket it belongs in
+	 */
+	private static int bucket(long value)
+	{
+		if (value < SUB_BUCKETS)
+			return (int) value;
+
+		int magnitude = 63 - Long.numberOfLeadingZeros(value);		// At least SUB_BITS
+		int sub = (int) (value >>> (magnitude - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return (magnitude - SUB_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * @param bucket A bucket
+	 * @return The largest value that goes in it
+	 */
+	private static long highest(int bucket)
+	{
+		if (bucket < SUB_BUCKETS)
+			return bucket;
+
+		int magnitude = bucket / SUB_BUCKETS + SUB_BITS - 1;
+		int sub = bucket % SUB_BUCKETS;
+		long lowest = (1L << magnitude) | ((long) sub << (magnitude - SUB_BITS));
+		return lowest + (1L << (magnitude - SUB_BITS)) - 1;
+	}
+}
@@ -0,0 +1,123 @@
+package com.csc2013;
+
+import java.awt.Point;
+import java.util.List;
+
+import org.newdawn.slick.Color;
+import org.newdawn.slick.Graphics;
+import org.newdawn.slick.Image;
+import org.newdawn.slick.SlickException;
+import org.newdawn.slick.tiled.TiledMap;
+
+/**
+ *
+ * This class draws the part of a map that's on the screen.
+ *
+ * The map's layers are drawn once into an offscreen image a bit bigger than the window, and
+ * each frame just draws that image. It's only drawn again when the player gets near its edge.
+ * When a key is picked up or a door opened, Map remembers the tile and only that tile is drawn
+ * again in the image.
+ *
+ * If offscreen images aren't supported the visible tiles are drawn straight to the screen.
+ *
+ * @author GE
+ *
+ */
+public class MapRenderer {
+	/*
+	 * Size of the offscreen image in tiles. It should be a good bit bigger than the window
+	 * (40x30 tiles) so it doesn't have to be redrawn too often.
+	 */
+	public final static int cacheWidth = 64;
+	public final static int cacheHeight = 48;
+
+	private Map map;
+	private TiledMap tiles;
+	private int tileSize;
+	private Image cache;
+	private Graphics cacheGraphics;
+	private boolean cacheFailed = false;
+	private boolean cacheValid = false;
+	private int cacheX;  // tile in the cache's top left corner
+	private int cacheY;
+
+	public MapRenderer(Map map) {
+		this.map = map;
+		this.tiles = map.getMap();
+		this.tileSize = map.getMapBoxWidth();
+	}
+
+	/*
+	 * Draws the map with its top left corner at x,y on a screen of the given size
+	 */
+	public void render(Graphics g, int x, int y, int screenWidth, int screenHeight) {
+		// The tiles that are on the screen
+		int startX = Math.max(0, -x / tileSize);
+		int startY = Math.max(0, -y / tileSize);
+		int endX = Math.min(tiles.getWidth(), (screenWidth - x + tileSize - 1) / tileSize);
+		int endY = Math.min(tiles.getHeight(), (screenHeight - y + tileSize - 1) / tileSize);
+		if (endX <= startX || endY <= startY) {
+			map.takeChangedTiles();
+			return;
+		}
+
+		if (!cacheFailed && cache == null) {
+			try {
+				cache = new Image(cacheWidth * tileSize, cacheHeight * tileSize);
+				cacheGraphics = cache.getGraphics();
+			} catch (SlickException e) {
+				cacheFailed = true;  // no FBO or pbuffer support
+				cache = null;
+			}
+		}
+		if (cacheFailed) {
+			map.takeChangedTiles();
+			Graphics.setCurrent(g);
+			tiles.render(x + startX * tileSize, y + startY * tileSize, startX, startY, endX - startX, endY - startY);
+			return;
+		}
+
+		if (!cacheValid || startX < cacheX || startY < cacheY || endX > cacheX + cacheWidth || endY > cacheY + cacheHeight) {
+			// Centre the cache on the screen so the player can go either way
+			cacheX = Math.max(0, startX - (cacheWidth - (endX - startX)) / 2);
+			cacheY = Math.max(0, startY - (cacheHeight - (endY - startY)) / 2);
+			map.takeChangedTiles();
+			Graphics.setCurrent(cacheGraphics);
+			cacheGraphics.clear();
+			tiles.render(0, 0, cacheX, cacheY, Math.min(cacheWidth, tiles.getWidth() - cacheX), Math.min(cacheHeight, tiles.getHeight() - cacheY));
+			cacheGraphics.flush();
+			cacheValid = true;
+		} else {
+			List<Point> changed = map.takeChangedTiles();
+			if (!changed.isEmpty()) {
+				Graphics.setCurrent(cacheGraphics);
+				for (Point tile : changed) {
+					if (tile.x < cacheX || tile.y < cacheY || tile.x >= cacheX + cacheWidth || tile.y >= cacheY + cacheHeight) {
+						continue;
+					}
+					int tileX = (tile.x - cacheX) * tileSize;
+					int tileY = (tile.y - cacheY) * tileSize;
+					cacheGraphics.setColor(Color.black);
+					cacheGraphics.fillRect(tileX, tileY, tileSize, tileSize);
+					tiles.render(tileX, tileY, tile.x, tile.y, 1, 1);
+				}
+				cacheGraphics.flush();
+			}
+		}
+
+		g.drawImage(cache, x + cacheX * tileSize, y + cacheY * tileSize);
+	}
+
+	// Frees the offscreen image, call when the map is no longer drawn
+	public void destroy() {
+		if (cache != null) {
+			try {
+				cache.destroy();
+			} catch (SlickException e) {
+				e.printStackTrace();
+			}
+			cache = null;
+			cacheGraphics = null;
+		}
+	}
+}
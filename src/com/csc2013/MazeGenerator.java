@@ -0,0 +1,483 @@
+package com.csc2013;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import com.csc2013.DungeonMaze.BoxType;
+
+/**
+ *
+ * This class generates random mazes with keys and doors for testing players on large maps.
+ * The same seed and settings always give the same maze.
+ *
+ * Spaces inside the border with both coordinates even are rooms and the spaces between two rooms
+ * are passages, so the player's start (Player.startX, Player.startY) is always a room. The border
+ * is always wall since Map expects a space on every side of a key or door. The maze starts as a
+ * spanning tree of the rooms grown from the start, and the exit is the room farthest from it.
+ *
+ *  density - chance that each remaining wall between two rooms is knocked down, adding loops.
+ *            0 is a perfect maze, 1 leaves no walls between rooms.
+ *  gates   - number of doors. Each door locks everything behind it in the tree and has a key
+ *            placed in the region in front of it, so every maze can be solved.
+ *  depth   - how many of the doors are on the way to the exit, i.e. how deeply the exit is
+ *            nested inside locked regions. The rest of the doors lock side branches.
+ *
+ * Walls are never knocked down between two different locked regions, so doors can't be skipped.
+ *
+ * Usage: java com.csc2013.MazeGenerator file width height [seed] [density] [gates] [depth]
+ * A file ending in .tmx is written as a TMX map, anything else as a chunked map file (see ChunkedGrid).
+ *
+ * @author GE
+ *
+ */
+public class MazeGenerator {
+	/*
+	 * Largest maze we'll generate in each direction
+	 */
+	public final static int maxSize = 10000;
+
+	// Tile ids used in the TMX file, from the tilesets of the shipped maps
+	private final static int floorTile = 18;
+	private final static int collideTile = 65;
+	private final static int keyTile = 75;
+	private final static int doorTile = 76;
+	private final static int endTile = 81;
+
+	// Moves between rooms: North, South, East, West (2 spaces at a time)
+	private final static int dx[] = {0, 0, 1, -1};
+	private final static int dy[] = {-1, 1, 0, 0};
+	private final static byte NONE = 4;
+
+	private final static BoxType types[] = BoxType.values();
+
+	private long seed;
+	private int width;
+	private int height;
+	private double density;
+	private int gates;
+	private int depth;
+
+	private byte cells[];     // BoxType ordinal of every space, y * width + x
+	private int roomsWide;
+	private int roomsHigh;
+	private byte parent[];    // direction from each room back toward the start
+	private int region[];     // locked region of each room, 0 is the start's
+	private int exit;         // room index of the exit
+	private Random random;
+
+	public MazeGenerator(long seed, int width, int height, double density, int gates, int depth) {
+		if (width < Player.startX + 2 || height < Player.startY + 2 || width > maxSize || height > maxSize) {
+			throw new IllegalArgumentException("Maze size must be from " + (Player.startX + 2) + "x" + (Player.startY + 2) + " to " + maxSize + "x" + maxSize);
+		}
+		if (density < 0 || density > 1) {
+			throw new IllegalArgumentException("Density must be from 0 to 1");
+		}
+		if (depth < 0 || gates < depth) {
+			throw new IllegalArgumentException("Need 0 <= depth <= gates");
+		}
+		this.seed = seed;
+		this.width = width;
+		this.height = height;
+		this.density = density;
+		this.gates = gates;
+		this.depth = depth;
+	}
+
+	/*
+	 * Builds the maze. Called automatically by the methods that need it.
+	 */
+	public void generate() {
+		if (cells != null) {
+			return;
+		}
+		random = new Random(seed);
+		roomsWide = (width - 2) / 2;
+		roomsHigh = (height - 2) / 2;
+
+		cells = new byte[width * height];
+		Arrays.fill(cells, (byte) BoxType.Blocked.ordinal());
+
+		carve();
+		placeDoors();
+		labelRegions();
+		placeKeys();
+		braid();
+
+		set(roomX(exit), roomY(exit), BoxType.Exit);
+
+		// Only needed while building
+		parent = null;
+		region = null;
+		random = null;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public BoxType getType(int x, int y) {
+		generate();
+		return types[cells[y * width + x]];
+	}
+
+	/*
+	 * Returns the maze as grid[x][y], the same layout as Map.Grid
+	 */
+	public BoxType[][] toGrid() {
+		generate();
+		BoxType grid[][] = new BoxType[width][height];
+		for (int i = 0; i < width; i++) {
+			for (int j = 0; j < height; j++) {
+				grid[i][j] = types[cells[j * width + i]];
+			}
+		}
+		return grid;
+	}
+
+	/*
+	 * Writes the maze as a TMX map using the same layers and tilesets as the shipped maps,
+	 * so it can be loaded with Map.setMap() if it's saved in res.
+	 */
+	public void writeTmx(File file) throws IOException {
+		generate();
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16);
+		try {
+			write(out, "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+			write(out, "<map version=\"1.0\" orientation=\"orthogonal\" width=\"" + width + "\" height=\"" + height + "\" tilewidth=\"16\" tileheight=\"16\">\n");
+			write(out, " <tileset firstgid=\"1\" name=\"tiles\" tilewidth=\"16\" tileheight=\"16\">\n  <image source=\"tiles.png\" width=\"262\" height=\"64\"/>\n </tileset>\n");
+			writeTileset(out, collideTile, "collision", "collision.png", 80, 32, "collide", 1);
+			writeTileset(out, keyTile, "key", "key.png", 16, 16, "keyed", 1);
+			writeTileset(out, doorTile, "door", "doors.png", 64, 16, "doored", 4);
+			write(out, " <tileset firstgid=\"80\" name=\"end\" tilewidth=\"16\" tileheight=\"16\">\n  <image source=\"flashy.png\" trans=\"ff00ff\" width=\"48\" height=\"16\"/>\n");
+			write(out, "  <tile id=\"1\">\n   <properties>\n    <property name=\"ended\" value=\"true\"/>\n   </properties>\n  </tile>\n </tileset>\n");
+
+			writeLayer(out, "collision", BoxType.Blocked, collideTile);
+			writeLayer(out, "tiles", null, floorTile);
+			writeLayer(out, "key", BoxType.Key, keyTile);
+			writeLayer(out, "door", BoxType.Door, doorTile);
+			writeLayer(out, "end", BoxType.Exit, endTile);
+			write(out, "</map>\n");
+		} finally {
+			out.close();
+		}
+	}
+
+	/*
+	 * Writes the maze as a binary map file that Map.setMapChunked() reads a chunk at a time
+	 */
+	public void writeChunked(File file) throws IOException {
+		generate();
+		ChunkedGrid.write(file, width, height, cells);
+	}
+
+	// Randomized depth first search from the start, remembering the way back in parent
+	private void carve() {
+		parent = new byte[roomsWide * roomsHigh];
+		Arrays.fill(parent, NONE);
+
+		int start = room(Player.startX, Player.startY);
+		set(Player.startX, Player.startY, BoxType.Open);
+		int current = start;
+		int length = 0;
+		int longest = 0;
+		exit = start;
+
+		int order[] = {0, 1, 2, 3};
+		while (true) {
+			int rx = current % roomsWide;
+			int ry = current / roomsWide;
+
+			// Try the directions in a random order
+			for (int i = 3; i > 0; i--) {
+				int j = random.nextInt(i + 1);
+				int t = order[i];
+				order[i] = order[j];
+				order[j] = t;
+			}
+			int next = -1;
+			for (int i = 0; i < 4; i++) {
+				int d = order[i];
+				int nx = rx + dx[d];
+				int ny = ry + dy[d];
+				if (nx >= 0 && ny >= 0 && nx < roomsWide && ny < roomsHigh) {
+					int n = ny * roomsWide + nx;
+					if (n != start && parent[n] == NONE) {
+						parent[n] = (byte) (d ^ 1);  // the opposite direction
+						set(2 * rx + 2 + dx[d], 2 * ry + 2 + dy[d], BoxType.Open);
+						set(2 * nx + 2, 2 * ny + 2, BoxType.Open);
+						next = n;
+						break;
+					}
+				}
+			}
+
+			if (next >= 0) {
+				current = next;
+				length++;
+				if (length > longest) {
+					longest = length;
+					exit = current;
+				}
+			} else if (current == start) {
+				break;
+			} else {
+				current = step(current, parent[current]);
+				length--;
+			}
+		}
+	}
+
+	// Puts depth doors along the way to the exit and the rest on random side branches
+	private void placeDoors() {
+		ArrayList<Integer> path = new ArrayList<Integer>();
+		for (int r = exit; parent[r] != NONE; r = step(r, parent[r])) {
+			path.add(r);
+		}
+		int doors = Math.min(depth, path.size());
+		for (int i = 1; i <= doors; i++) {
+			// path runs backwards from the exit
+			lock(path.get(path.size() - 1 - (i * path.size()) / (doors + 1)));
+		}
+
+		int start = room(Player.startX, Player.startY);
+		int onPath[] = new int[path.size()];
+		for (int i = 0; i < onPath.length; i++) {
+			onPath[i] = path.get(i);
+		}
+		Arrays.sort(onPath);
+
+		int rooms = roomsWide * roomsHigh;
+		int left = gates - doors;
+		for (int tries = 0; left > 0 && tries < 100 * gates; tries++) {
+			int r = random.nextInt(rooms);
+			if (r != start && r != exit && parent[r] != NONE && Arrays.binarySearch(onPath, r) < 0 && lock(r)) {
+				left--;
+			}
+		}
+	}
+
+	// Puts a door in the passage from a room back toward the start. Returns false if there already is one.
+	private boolean lock(int r) {
+		int x = roomX(r) + dx[parent[r]];
+		int y = roomY(r) + dy[parent[r]];
+		if (getCell(x, y) == BoxType.Door) {
+			return false;
+		}
+		set(x, y, BoxType.Door);
+		return true;
+	}
+
+	// Numbers the regions between doors by flood filling the tree, starting with the start's
+	private void labelRegions() {
+		int rooms = roomsWide * roomsHigh;
+		region = new int[rooms];
+		Arrays.fill(region, -1);
+		int queue[] = new int[rooms];
+		int regions = 0;
+
+		// Each door starts a new region, found when the flood reaches it
+		int doorQueue[] = new int[gates + 1];
+		int doorHead = 0;
+		int doorTail = 0;
+		doorQueue[doorTail++] = room(Player.startX, Player.startY);
+
+		while (doorHead < doorTail) {
+			int first = doorQueue[doorHead++];
+			int label = regions++;
+			int head = 0;
+			int tail = 0;
+			queue[tail++] = first;
+			region[first] = label;
+			while (head < tail) {
+				int r = queue[head++];
+				int rx = r % roomsWide;
+				int ry = r / roomsWide;
+				for (int d = 0; d < 4; d++) {
+					int nx = rx + dx[d];
+					int ny = ry + dy[d];
+					if (nx < 0 || ny < 0 || nx >= roomsWide || ny >= roomsHigh) {
+						continue;
+					}
+					int n = ny * roomsWide + nx;
+					if (region[n] >= 0) {
+						continue;
+					}
+					BoxType passage = getCell(2 * rx + 2 + dx[d], 2 * ry + 2 + dy[d]);
+					if (passage == BoxType.Open) {
+						region[n] = label;
+						queue[tail++] = n;
+					} else if (passage == BoxType.Door) {
+						region[n] = -2;  // claimed, labeled when its region is filled
+						doorQueue[doorTail++] = n;
+					}
+				}
+			}
+		}
+	}
+
+	// Places one key for each door in the region in front of it
+	private void placeKeys() {
+		int rooms = roomsWide * roomsHigh;
+		int start = room(Player.startX, Player.startY);
+		for (int r = 0; r < rooms; r++) {
+			if (parent[r] == NONE) {
+				continue;
+			}
+			int x = roomX(r) + dx[parent[r]];
+			int y = roomY(r) + dy[parent[r]];
+			if (getCell(x, y) != BoxType.Door) {
+				continue;
+			}
+
+			int label = region[step(r, parent[r])];
+			int key = -1;
+			for (int tries = 0; tries < 1000 && key < 0; tries++) {
+				int k = random.nextInt(rooms);
+				if (region[k] == label && k != start && k != exit && getCell(roomX(k), roomY(k)) == BoxType.Open) {
+					key = k;
+				}
+			}
+			for (int k = 0; k < rooms && key < 0; k++) {
+				if (region[k] == label && k != start && k != exit && getCell(roomX(k), roomY(k)) == BoxType.Open) {
+					key = k;
+				}
+			}
+
+			if (key >= 0) {
+				set(roomX(key), roomY(key), BoxType.Key);
+			} else {
+				// No room for a key in front of it, so leave the passage open instead
+				set(x, y, BoxType.Open);
+			}
+		}
+	}
+
+	// Knocks down walls between rooms of the same region
+	private void braid() {
+		if (density <= 0) {
+			return;
+		}
+		for (int ry = 0; ry < roomsHigh; ry++) {
+			for (int rx = 0; rx < roomsWide; rx++) {
+				int r = ry * roomsWide + rx;
+				// Only look East and South so each wall is tried once
+				for (int d = 1; d <= 2; d++) {
+					int nx = rx + dx[d];
+					int ny = ry + dy[d];
+					if (nx >= roomsWide || ny >= roomsHigh) {
+						continue;
+					}
+					int px = 2 * rx + 2 + dx[d];
+					int py = 2 * ry + 2 + dy[d];
+					if (getCell(px, py) == BoxType.Blocked && region[r] == region[ny * roomsWide + nx] && random.nextDouble() < density) {
+						set(px, py, BoxType.Open);
+					}
+				}
+			}
+		}
+	}
+
+	// Writes one layer, using tile for spaces of the given type (or every walkable space if type is null)
+	private void writeLayer(OutputStream out, String name, BoxType type, int tile) throws IOException {
+		write(out, " <layer name=\"" + name + "\" width=\"" + width + "\" height=\"" + height + "\">\n");
+		write(out, "  <data encoding=\"base64\" compression=\"gzip\">\n   ");
+
+		// Keep the file open after the encoder is closed
+		OutputStream base64 = Base64.getEncoder().wrap(new FilterOutputStream(out) {
+			public void close() throws IOException {
+				flush();
+			}
+		});
+		GZIPOutputStream gzip = new GZIPOutputStream(base64, 1 << 16);
+		byte row[] = new byte[width * 4];
+		for (int j = 0; j < height; j++) {
+			for (int i = 0; i < width; i++) {
+				BoxType here = types[cells[j * width + i]];
+				boolean marked = (type == null) ? (here != BoxType.Blocked) : (here == type);
+				int gid = marked ? tile : 0;
+				row[4 * i] = (byte) gid;
+				row[4 * i + 1] = (byte) (gid >> 8);
+				row[4 * i + 2] = 0;
+				row[4 * i + 3] = 0;
+			}
+			gzip.write(row);
+		}
+		gzip.close();
+
+		write(out, "\n  </data>\n </layer>\n");
+	}
+
+	private void writeTileset(OutputStream out, int firstGid, String name, String image, int imageWidth, int imageHeight, String property, int tiles) throws IOException {
+		write(out, " <tileset firstgid=\"" + firstGid + "\" name=\"" + name + "\" tilewidth=\"16\" tileheight=\"16\">\n");
+		write(out, "  <image source=\"" + image + "\"" + (name.equals("collision") ? "" : " trans=\"ff00ff\"") + " width=\"" + imageWidth + "\" height=\"" + imageHeight + "\"/>\n");
+		for (int i = 0; i < tiles; i++) {
+			write(out, "  <tile id=\"" + i + "\">\n   <properties>\n    <property name=\"" + property + "\" value=\"true\"/>\n   </properties>\n  </tile>\n");
+		}
+		write(out, " </tileset>\n");
+	}
+
+	private void write(OutputStream out, String text) throws IOException {
+		out.write(text.getBytes("UTF-8"));
+	}
+
+	private BoxType getCell(int x, int y) {
+		return types[cells[y * width + x]];
+	}
+
+	private void set(int x, int y, BoxType type) {
+		cells[y * width + x] = (byte) type.ordinal();
+	}
+
+	private int room(int x, int y) {
+		return ((y - 2) / 2) * roomsWide + (x - 2) / 2;
+	}
+
+	private int roomX(int r) {
+		return 2 * (r % roomsWide) + 2;
+	}
+
+	private int roomY(int r) {
+		return 2 * (r / roomsWide) + 2;
+	}
+
+	// The room next to r in direction d
+	private int step(int r, int d) {
+		return r + dy[d] * roomsWide + dx[d];
+	}
+
+	public static void main(String[] argv) throws IOException {
+		if (argv.length < 3) {
+			System.out.println("Usage: java com.csc2013.MazeGenerator file width height [seed] [density] [gates] [depth]");
+			return;
+		}
+		int width = Integer.parseInt(argv[1]);
+		int height = Integer.parseInt(argv[2]);
+		long seed = (argv.length > 3) ? Long.parseLong(argv[3]) : 0;
+		double density = (argv.length > 4) ? Double.parseDouble(argv[4]) : 0.1;
+		int gates = (argv.length > 5) ? Integer.parseInt(argv[5]) : 4;
+		int depth = (argv.length > 6) ? Integer.parseInt(argv[6]) : Math.min(2, gates);
+
+		long time = System.currentTimeMillis();
+		MazeGenerator generator = new MazeGenerator(seed, width, height, density, gates, depth);
+		generator.generate();
+		if (argv[0].endsWith(".tmx")) {
+			generator.writeTmx(new File(argv[0]));
+		} else {
+			generator.writeChunked(new File(argv[0]));
+		}
+		System.out.println("Wrote " + argv[0] + " in " + (System.currentTimeMillis() - time) + " ms");
+	}
+}
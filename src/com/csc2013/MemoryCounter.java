@@ -1,121 +1,306 @@
 package com.csc2013;
 
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
-import java.util.IdentityHashMap;
-import java.util.Stack;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 
+/*
+ * Estimates how much heap an object graph uses.
+ *
+ * What we learn about each class (its size and where its references are) is worked out
+ * once and cached, and the graph is walked with plain arrays rather than collections so
+ * the walk itself allocates next to nothing. Header, reference and alignment sizes come
+ * from the running JVM's flags, and an object's size is its header plus its fields rounded
+ * up to the alignment (HotSpot packs fields tightly, so this is at most a few bytes off).
+ *
+ * A budget limits how many objects one estimate visits, so it can be run during a game.
+ * If the budget runs out the objects still waiting to be visited are counted at the
+ * average size of the (non-array) ones we did visit and isComplete() returns false.
+ * Objects already waiting may be visited later through another path, so this is rough.
+ */
 public final class MemoryCounter {
 	  private static final MemorySizes sizes = new MemorySizes();
-	  private final IdentityHashMap visited = new IdentityHashMap();
-	  private final Stack stack = new Stack();
 
-	  public synchronized long estimate(Object obj) {
-	    assert visited.isEmpty();
-	    assert stack.isEmpty();
-	    long result = _estimate(obj);
-	    while (!stack.isEmpty()) {
-	      result += _estimate(stack.pop());
+	  private static final ClassValue<Layout> layouts = new ClassValue<Layout>() {
+	    protected Layout computeValue(Class<?> clazz) {
+	      return new Layout(clazz);
 	    }
-	    visited.clear();
-	    return result;
+	  };
+
+	  private Object[] visited = new Object[1024];    // open addressing identity set
+	  private int visitedCount = 0;
+	  private Object[] stack = new Object[256];
+	  private int stackSize = 0;
+	  private boolean complete = true;
+	  private int lastVisits = 0;
+
+	  public synchronized long estimate(Object obj) {
+	    return estimate(obj, Integer.MAX_VALUE);
 	  }
 
-	  private boolean skipObject(Object obj) {
-	    if (obj instanceof String) {
-	      // this will not cause a memory leak since
-	      // unused interned Strings will be thrown away
-	      if (obj == ((String) obj).intern()) {
-	        return true;
+	  // Visits at most budget objects, extrapolating the rest
+	  public synchronized long estimate(Object obj, int budget) {
+	    long result = 0;
+	    int visits = 0;
+	    long plainResult = 0;   // objects that aren't arrays, for extrapolating
+	    int plainVisits = 0;
+	    push(obj);
+	    while (stackSize > 0 && visits < budget) {
+	      Object next = stack[--stackSize];
+	      stack[stackSize] = null;
+	      if (!visit(next)) {
+	        continue;
 	      }
+	      long size = _estimate(next);
+	      result += size;
+	      visits++;
+	      if (!next.getClass().isArray()) {
+	        plainResult += size;
+	        plainVisits++;
+	      }
+	    }
+
+	    // Big arrays are usually near the root, so the rest are guessed from ordinary objects
+	    complete = (stackSize == 0);
+	    if (!complete && plainVisits > 0) {
+	      result += (plainResult / plainVisits) * stackSize;
 	    }
-	    return (obj == null)
-	        || visited.containsKey(obj);
+	    lastVisits = visits;
+	    clear();
+	    return result;
+	  }
+
+	  // Whether the last estimate visited everything
+	  public synchronized boolean isComplete() {
+	    return complete;
+	  }
+
+	  // How many objects the last estimate visited
+	  public synchronized int getLastVisits() {
+	    return lastVisits;
 	  }
 
 	  private long _estimate(Object obj) {
-	    if (skipObject(obj)) return 0;
-	    visited.put(obj, null);
-	    long result = 0;
-	    Class clazz = obj.getClass();
+	    Class<?> clazz = obj.getClass();
 	    if (clazz.isArray()) {
 	      return _estimateArray(obj);
 	    }
-	    while (clazz != null) {
-	      Field[] fields = clazz.getDeclaredFields();
-	      for (int i = 0; i < fields.length; i++) {
-	        if (!Modifier.isStatic(fields[i].getModifiers())) {
-	          if (fields[i].getType().isPrimitive()) {
-	            result += sizes.getPrimitiveFieldSize(
-	                fields[i].getType());
-	          } else {
-	            result += sizes.getPointerSize();
-	            fields[i].setAccessible(true);
-	            try {
-	              Object toBeDone = fields[i].get(obj);
-	              if (toBeDone != null) {
-	                stack.add(toBeDone);
-	              }
-	            } catch (IllegalAccessException ex) { assert false; }
-	          }
-	        }
-	      }
-	      clazz = clazz.getSuperclass();
+	    Layout layout = layouts.get(clazz);
+	    layout.pushReferences(obj, this);
+	    if (layout.closed) {
+	      return layout.size + _estimateContents(obj);
 	    }
-	    result += sizes.getClassSize();
-	    return roundUpToNearestEightBytes(result);
+	    return layout.size;
 	  }
 
-	  private long roundUpToNearestEightBytes(long result) {
-	    if ((result % 8) != 0) {
-	      result += 8 - (result % 8);
+	  // The JDK doesn't let us read its classes' fields, so collections are followed through their
+	  // own methods instead, with a table slot and (for maps) an entry object counted per element
+	  private long _estimateContents(Object obj) {
+	    try {
+	      if (obj instanceof java.util.Map) {
+	        java.util.Map<?, ?> map = (java.util.Map<?, ?>) obj;
+	        for (java.util.Map.Entry<?, ?> entry : map.entrySet()) {
+	          push(entry.getKey());
+	          push(entry.getValue());
+	        }
+	        long entrySize = sizes.align(sizes.getObjectHeaderSize() + 4 + 3L * sizes.getPointerSize());
+	        return map.size() * (entrySize + sizes.getPointerSize());
+	      }
+	      if (obj instanceof Collection) {
+	        Collection<?> collection = (Collection<?>) obj;
+	        for (Object element : collection) {
+	          push(element);
+	        }
+	        return (long) collection.size() * sizes.getPointerSize();
+	      }
+	    } catch (RuntimeException e) {
+	      // changed while we were looking, what we counted will do
 	    }
-	    return result;
+	    if (obj instanceof String) {
+	      return sizes.align(sizes.getArrayHeaderSize() + ((String) obj).length());
+	    }
+	    return 0;
 	  }
 
 	  protected long _estimateArray(Object obj) {
-	    long result = 16;
+	    Class<?> component = obj.getClass().getComponentType();
 	    int length = Array.getLength(obj);
-	    if (length != 0) {
-	      Class arrayElementClazz = obj.getClass().getComponentType();
-	      if (arrayElementClazz.isPrimitive()) {
-	        result += length *
-	            sizes.getPrimitiveArrayElementSize(arrayElementClazz);
-	      } else {
-	        for (int i = 0; i < length; i++) {
-	          result += sizes.getPointerSize() +
-	              _estimate(Array.get(obj, i));
+	    long result = sizes.getArrayHeaderSize() + (long) length * sizes.getArrayElementSize(component);
+	    if (!component.isPrimitive()) {
+	      Object[] elements = (Object[]) obj;
+	      for (int i = 0; i < length; i++) {
+	        push(elements[i]);
+	      }
+	    }
+	    return sizes.align(result);
+	  }
+
+	  void push(Object obj) {
+	    if (obj == null || obj instanceof Class) {
+	      return;
+	    }
+	    if (stackSize == stack.length) {
+	      stack = Arrays.copyOf(stack, stackSize * 2);
+	    }
+	    stack[stackSize++] = obj;
+	  }
+
+	  // Adds an object to the visited set, returns false if it was already there
+	  private boolean visit(Object obj) {
+	    if (2 * (visitedCount + 1) > visited.length) {
+	      Object[] old = visited;
+	      visited = new Object[old.length * 2];
+	      for (int i = 0; i < old.length; i++) {
+	        if (old[i] != null) {
+	          insert(old[i]);
+	        }
+	      }
+	    }
+	    if (!insert(obj)) {
+	      return false;
+	    }
+	    visitedCount++;
+	    return true;
+	  }
+
+	  private boolean insert(Object obj) {
+	    int mask = visited.length - 1;
+	    int i = (System.identityHashCode(obj) * 0x9E3779B9) & mask;
+	    while (visited[i] != null) {
+	      if (visited[i] == obj) {
+	        return false;
+	      }
+	      i = (i + 1) & mask;
+	    }
+	    visited[i] = obj;
+	    return true;
+	  }
+
+	  private void clear() {
+	    Arrays.fill(stack, 0, stackSize, null);
+	    stackSize = 0;
+	    if (visited.length > (1 << 20)) {
+	      visited = new Object[1024];   // don't hang on to a huge table
+	    } else {
+	      Arrays.fill(visited, null);
+	    }
+	    visitedCount = 0;
+	  }
+
+	  /*
+	   * The size of a class's instances and how to find their references
+	   */
+	  private static class Layout {
+	    final long size;
+	    final Field[] fields;   // reference fields (null entries can't be read)
+	    final boolean closed;   // some of the reference fields can't be read
+
+	    Layout(Class<?> clazz) {
+	      List<Field> references = new ArrayList<Field>();
+	      long total = sizes.getObjectHeaderSize();
+	      for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+	        for (Field field : c.getDeclaredFields()) {
+	          if (Modifier.isStatic(field.getModifiers())) {
+	            continue;
+	          }
+	          Class<?> type = field.getType();
+	          total += type.isPrimitive() ? sizes.getPrimitiveFieldSize(type) : sizes.getPointerSize();
+	          if (!type.isPrimitive()) {
+	            references.add(field);
+	          }
+	        }
+	      }
+
+	      size = sizes.align(total);
+	      fields = new Field[references.size()];
+	      boolean unreadable = false;
+	      for (int i = 0; i < fields.length; i++) {
+	        try {
+	          references.get(i).setAccessible(true);
+	          fields[i] = references.get(i);
+	        } catch (RuntimeException e) {
+	          unreadable = true;   // not open to us (e.g. JDK internals), counted but not followed
+	        }
+	      }
+	      closed = unreadable;
+	    }
+
+	    void pushReferences(Object obj, MemoryCounter counter) {
+	      for (int i = 0; i < fields.length; i++) {
+	        if (fields[i] != null) {
+	          try {
+	            counter.push(fields[i].get(obj));
+	          } catch (IllegalAccessException ex) { assert false; }
 	        }
 	      }
 	    }
-	    return result;
 	  }
 	}
 
 class MemorySizes {
-	  private final IdentityHashMap primitiveSizes = new IdentityHashMap() {
-	    {
-	      put(boolean.class, new Integer(1));
-	      put(byte.class, new Integer(1));
-	      put(char.class, new Integer(2));
-	      put(short.class, new Integer(2));
-	      put(int.class, new Integer(4));
-	      put(float.class, new Integer(4));
-	      put(double.class, new Integer(8));
-	      put(long.class, new Integer(8));
+	  private final int pointerSize;
+	  private final int objectHeaderSize;
+	  private final int arrayHeaderSize;
+	  private final int alignment;
+
+	  MemorySizes() {
+	    boolean smallPointers = flag("UseCompressedOops", !"64".equals(System.getProperty("sun.arch.data.model")));
+	    boolean smallClassPointers = flag("UseCompressedClassPointers", smallPointers);
+	    String align = vmOption("ObjectAlignmentInBytes");
+	    alignment = (align != null) ? Integer.parseInt(align) : 8;
+
+	    // The header is a mark word and a class pointer, unless the JVM folds the class pointer into the mark word.
+	    // An array's length comes after it, and its elements are counted from the next 8 byte boundary.
+	    pointerSize = smallPointers ? 4 : 8;
+	    if (flag("UseCompactObjectHeaders", false)) {
+	      objectHeaderSize = 8;
+	    } else {
+	      objectHeaderSize = smallClassPointers ? 12 : 16;
 	    }
-	  };
-	  public int getPrimitiveFieldSize(Class clazz) {
-	    return ((Integer) primitiveSizes.get(clazz)).intValue();
+	    arrayHeaderSize = (objectHeaderSize + 4 + 7) / 8 * 8;
+	  }
+
+	  public int getPrimitiveFieldSize(Class<?> clazz) {
+	    if (clazz == boolean.class || clazz == byte.class) return 1;
+	    if (clazz == char.class || clazz == short.class) return 2;
+	    if (clazz == int.class || clazz == float.class) return 4;
+	    return 8;
 	  }
-	  public int getPrimitiveArrayElementSize(Class clazz) {
-	    return getPrimitiveFieldSize(clazz);
+	  public int getArrayElementSize(Class<?> clazz) {
+	    return clazz.isPrimitive() ? getPrimitiveFieldSize(clazz) : pointerSize;
 	  }
 	  public int getPointerSize() {
-	    return 4;
+	    return pointerSize;
 	  }
-	  public int getClassSize() {
-	    return 8;
+	  public int getObjectHeaderSize() {
+	    return objectHeaderSize;
+	  }
+	  public int getArrayHeaderSize() {
+	    return arrayHeaderSize;
+	  }
+	  public long align(long size) {
+	    return (size + alignment - 1) / alignment * alignment;
+	  }
+
+	  // A HotSpot boolean flag, or fallback if we're not on HotSpot or it doesn't have the flag
+	  private static boolean flag(String name, boolean fallback) {
+	    String value = vmOption(name);
+	    return (value != null) ? value.equals("true") : fallback;
 	  }
-	}
\ No newline at end of file
+
+	  // A HotSpot flag's value, or null if we're not on HotSpot
+	  private static String vmOption(String name) {
+	    try {
+	      com.sun.management.HotSpotDiagnosticMXBean bean =
+	          ManagementFactory.getPlatformMXBean(com.sun.management.HotSpotDiagnosticMXBean.class);
+	      return bean.getVMOption(name).getValue();
+	    } catch (Throwable t) {
+	      return null;
+	    }
+	  }
+	}
@@ -0,0 +1,395 @@
+package com.csc2013;
+
+import java.awt.Point;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.csc2013.DungeonMaze.BoxType;
+
+/**
+ *
+ * This class finds the true optimal number of steps for a map using full knowledge of the grid.
+ * It is used to show how far each player's score is from the best possible one.
+ *
+ * Steps are counted the same way the game counts them: every move, every key pickup and every
+ * door opened is one step, and the game ends on the step onto an exit. The search is exact over
+ * the player's position, which keys have been picked up and which doors have been opened. It is
+ * an A* search guided by the distance to the exit with every door open, which is never more than
+ * the real distance, so the first time it reaches an exit is the shortest way there.
+ *
+ * That can still be a lot of states on a big map with many keys and doors, so the search gives up
+ * after maxStates of them and the optimal score is reported as unknown (-1) instead.
+ *
+ * @author GE
+ *
+ */
+public class OptimalSolver {
+	/*
+	 * File the results are cached in so each map only has to be solved once
+	 */
+	public final static String cacheFile = "optimal.properties";
+
+	/*
+	 * The most states the search may visit before giving up (each takes a few dozen bytes)
+	 */
+	public final static int maxStates = 5000000;
+
+	// Results we already have during this run, by map name
+	private static ConcurrentHashMap<String, Integer> solved = new ConcurrentHashMap<String, Integer>();
+
+	private BoxType[][] grid;
+	private int width;
+	private int height;
+	private int keyIndex[];   // the number of each key cell, or -1
+	private int doorIndex[];  // the number of each door cell, or -1
+	private boolean tooBig;   // more keys or doors than fit in the masks
+
+	// Every combination of keys and doors reached so far, numbered in the order they were found
+	private long maskKeys[];
+	private long maskDoors[];
+	private int masks;
+	private int maskTable[];  // open addressing table of mask numbers + 1, 0 is empty
+
+	// Visited states (mask number * cells + position) + 1 in an open addressing table, 0 is empty
+	private long visited[];
+	private int visits;
+
+	// States waiting to be visited, by the number of steps they'd take to the exit with every door open
+	private long open[][];
+	private int openSize[];
+
+	/*
+	 * Returns the optimal number of steps for a loaded map, or -1 if it can't be solved or is too big to solve.
+	 * Results are cached per map file, both in memory and in the cache file.
+	 * Solving can take a while, so the game calls this off the render thread unless cachedSteps has the answer.
+	 */
+	public static synchronized int optimalSteps(Map map) {
+		Integer cached = cachedSteps(map);
+		if (cached != null) {
+			return cached;
+		}
+
+		String key = cacheKey(map.getMapName());
+		int steps = new OptimalSolver(map.Grid).solve(new Point(Player.startX, Player.startY));
+
+		solved.put(key, steps);
+
+		Properties cache = loadCache();
+		cache.setProperty(key, Integer.toString(steps));
+		saveCache(cache);
+		return steps;
+	}
+
+	/*
+	 * Returns the optimal number of steps for a loaded map if it's already known (see optimalSteps), or null if it
+	 * still has to be solved. This never solves anything so it's quick enough to call from the render thread.
+	 */
+	public static Integer cachedSteps(Map map) {
+		if (map.Grid == null) {
+			return -1;  // chunked maps are too big to solve
+		}
+		String key = cacheKey(map.getMapName());
+		Integer steps = solved.get(key);
+		if (steps == null) {
+			String value = loadCache().getProperty(key);
+			if (value != null) {
+				steps = Integer.parseInt(value);
+				solved.put(key, steps);
+			}
+		}
+		return steps;
+	}
+
+	public OptimalSolver(BoxType[][] grid) {
+		this.grid = grid;
+		width = grid.length;
+		height = grid[0].length;
+
+		keyIndex = new int[width * height];
+		doorIndex = new int[width * height];
+		int keys = 0;
+		int doors = 0;
+		for (int j = 0; j < height; j++) {
+			for (int i = 0; i < width; i++) {
+				keyIndex[cell(i, j)] = (grid[i][j] == BoxType.Key) ? keys++ : -1;
+				doorIndex[cell(i, j)] = (grid[i][j] == BoxType.Door) ? doors++ : -1;
+			}
+		}
+
+		tooBig = keys > 64 || doors > 64;  // the masks only hold 64 of each
+	}
+
+	/*
+	 * A* search over (position, keys picked up, doors opened).
+	 * Returns the number of steps to reach an exit from start, or -1 if there is no way out
+	 * or the map is too big to solve (more than 64 keys or doors, or more than maxStates states).
+	 */
+	public int solve(Point start) {
+		int toExit[] = exitDistances();
+		if (tooBig || toExit[cell(start.x, start.y)] < 0) {
+			return -1;
+		}
+
+		maskKeys = new long[16];
+		maskDoors = new long[16];
+		masks = 0;
+		maskTable = new int[32];
+		visited = new long[1 << 16];
+		visits = 0;
+		open = new long[16][];
+		openSize = new int[16];
+
+		int first = cell(start.x, start.y);
+		push(toExit[first], first + (long) maskNumber(0, 0) * cells());
+
+		int dx[] = {0, 0, 1, -1};
+		int dy[] = {-1, 1, 0, 0};
+
+		// Each state is (mask number * cells + position), and the steps to it are its estimate less the distance left
+		for (int estimate = 0; estimate < open.length; estimate++) {
+			while (openSize[estimate] > 0) {
+				long state = open[estimate][--openSize[estimate]];
+				if (!visit(state)) {
+					continue;
+				}
+				if (visits > maxStates) {
+					return -1;  // too big to solve, the score stays unknown
+				}
+				int mask = (int) (state / cells());
+				int pos = (int) (state % cells());
+				int steps = estimate - toExit[pos];
+				int x = pos % width;
+				int y = pos / width;
+				if (grid[x][y] == BoxType.Exit) {
+					return steps;
+				}
+				long keyMask = maskKeys[mask];
+				long doorMask = maskDoors[mask];
+
+				// Move: North, South, East, West
+				for (int d = 0; d < 4; d++) {
+					int nx = x + dx[d];
+					int ny = y + dy[d];
+					if (walkable(nx, ny, doorMask)) {
+						int next = cell(nx, ny);
+						push(steps + 1 + toExit[next], next + (long) mask * cells());
+					}
+				}
+
+				// Pickup: only if we're standing on a key that's still there
+				int k = keyIndex[pos];
+				if (k >= 0 && (keyMask & (1L << k)) == 0) {
+					push(estimate + 1, pos + (long) maskNumber(keyMask | (1L << k), doorMask) * cells());
+				}
+
+				// Use: opens the first closed door found North, South, East, West if we have a key
+				if (Long.bitCount(keyMask) > Long.bitCount(doorMask)) {
+					for (int d = 0; d < 4; d++) {
+						int door = closedDoor(x + dx[d], y + dy[d], doorMask);
+						if (door >= 0) {
+							push(estimate + 1, pos + (long) maskNumber(keyMask, doorMask | (1L << door)) * cells());
+							break;
+						}
+					}
+				}
+			}
+			open[estimate] = null;  // never needed again
+		}
+
+		return -1;
+	}
+
+	// Distance from every cell to the nearest exit with every door open, or -1 if there's no way there
+	private int[] exitDistances() {
+		int distance[] = new int[cells()];
+		Arrays.fill(distance, -1);
+		int queue[] = new int[cells()];
+		int head = 0;
+		int tail = 0;
+		for (int j = 0; j < height; j++) {
+			for (int i = 0; i < width; i++) {
+				if (grid[i][j] == BoxType.Exit) {
+					distance[cell(i, j)] = 0;
+					queue[tail++] = cell(i, j);
+				}
+			}
+		}
+
+		int dx[] = {0, 0, 1, -1};
+		int dy[] = {-1, 1, 0, 0};
+		while (head < tail) {
+			int pos = queue[head++];
+			for (int d = 0; d < 4; d++) {
+				int nx = pos % width + dx[d];
+				int ny = pos / width + dy[d];
+				if (nx < 0 || ny < 0 || nx >= width || ny >= height || grid[nx][ny] == BoxType.Blocked || distance[cell(nx, ny)] >= 0) {
+					continue;
+				}
+				distance[cell(nx, ny)] = distance[pos] + 1;
+				queue[tail++] = cell(nx, ny);
+			}
+		}
+		return distance;
+	}
+
+	// Queues a state to be visited unless it already was. Among equal estimates the last one queued goes first.
+	private void push(int estimate, long state) {
+		if (visited[slot(visited, state + 1)] != 0) {
+			return;
+		}
+		if (estimate >= open.length) {
+			open = Arrays.copyOf(open, Math.max(estimate + 1, open.length * 2));
+			openSize = Arrays.copyOf(openSize, open.length);
+		}
+		if (open[estimate] == null) {
+			open[estimate] = new long[16];
+		} else if (openSize[estimate] == open[estimate].length) {
+			open[estimate] = Arrays.copyOf(open[estimate], openSize[estimate] * 2);
+		}
+		open[estimate][openSize[estimate]++] = state;
+	}
+
+	// Marks a state as visited, returns false if it already was
+	private boolean visit(long state) {
+		if (visits * 4 >= visited.length * 3) {
+			long old[] = visited;
+			visited = new long[old.length * 2];
+			for (long entry : old) {
+				if (entry != 0) {
+					visited[slot(visited, entry)] = entry;
+				}
+			}
+		}
+		int slot = slot(visited, state + 1);
+		if (visited[slot] != 0) {
+			return false;
+		}
+		visited[slot] = state + 1;
+		visits++;
+		return true;
+	}
+
+	// The slot holding entry in an open addressing table, or the empty slot where it belongs
+	private static int slot(long table[], long entry) {
+		int mask = table.length - 1;
+		int slot = (int) mix(entry) & mask;
+		while (table[slot] != 0 && table[slot] != entry) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	// Returns the number of a combination of keys and doors, numbering it if it's new
+	private int maskNumber(long keyMask, long doorMask) {
+		if (masks * 2 >= maskTable.length) {
+			maskTable = new int[maskTable.length * 2];
+			for (int m = 0; m < masks; m++) {
+				maskTable[maskSlot(maskKeys[m], maskDoors[m])] = m + 1;
+			}
+		}
+		int slot = maskSlot(keyMask, doorMask);
+		if (maskTable[slot] == 0) {
+			if (masks == maskKeys.length) {
+				maskKeys = Arrays.copyOf(maskKeys, masks * 2);
+				maskDoors = Arrays.copyOf(maskDoors, masks * 2);
+			}
+			maskKeys[masks] = keyMask;
+			maskDoors[masks] = doorMask;
+			maskTable[slot] = ++masks;
+		}
+		return maskTable[slot] - 1;
+	}
+
+	// The slot holding a combination of keys and doors, or the empty slot where it belongs
+	private int maskSlot(long keyMask, long doorMask) {
+		int mask = maskTable.length - 1;
+		int slot = (int) mix(keyMask * 31 + doorMask) & mask;
+		while (maskTable[slot] != 0 && (maskKeys[maskTable[slot] - 1] != keyMask || maskDoors[maskTable[slot] - 1] != doorMask)) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	// Spreads the bits of a key over the whole long so nearby keys land in different slots
+	private static long mix(long key) {
+		key *= 0x9E3779B97F4A7C15L;
+		return key ^ (key >>> 32);
+	}
+
+	private boolean walkable(int x, int y, long doorMask) {
+		if (x < 0 || y < 0 || x >= width || y >= height) {
+			return false;
+		}
+		switch (grid[x][y]) {
+			case Blocked: return false;
+			case Door: return (doorMask & (1L << doorIndex[cell(x, y)])) != 0;
+			default: return true;
+		}
+	}
+
+	// Returns the number of the closed door at x,y or -1 if there isn't one
+	private int closedDoor(int x, int y, long doorMask) {
+		if (x < 0 || y < 0 || x >= width || y >= height || grid[x][y] != BoxType.Door) {
+			return -1;
+		}
+		int door = doorIndex[cell(x, y)];
+		return ((doorMask & (1L << door)) == 0) ? door : -1;
+	}
+
+	private int cell(int x, int y) {
+		return y * width + x;
+	}
+
+	private int cells() {
+		return width * height;
+	}
+
+	// The map name plus the file's size and modification time so an edited map gets solved again
+	private static String cacheKey(String mapName) {
+		File file = new File("res/" + mapName);
+		return mapName + "@" + file.length() + "@" + file.lastModified();
+	}
+
+	private static Properties loadCache() {
+		Properties cache = new Properties();
+		File file = new File(cacheFile);
+		if (file.isFile()) {
+			try {
+				InputStream in = new FileInputStream(file);
+				try {
+					cache.load(in);
+				} finally {
+					in.close();
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		return cache;
+	}
+
+	// Written to a temporary file first so cachedSteps can't read it half written
+	private static void saveCache(Properties cache) {
+		try {
+			File temp = new File(cacheFile + ".tmp");
+			OutputStream out = new FileOutputStream(temp);
+			try {
+				cache.store(out, "Optimal steps per map (see OptimalSolver)");
+			} finally {
+				out.close();
+			}
+			Files.move(temp.toPath(), new File(cacheFile).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,196 @@
+package com.csc2013;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts what the planners do during a single game and how long each decision takes.
+ * Cheap enough to leave on all the time, unlike {@link SchoolPlayer#VERBOSE}.
+ * 
+ * Each {@link SchoolPlayer} has its own stats and makes them the current ones for its thread while it decides on a move,
+ * so the planners can find them without having them passed in. Everything is recorded with atomic adders so nothing
+ * ever waits on a lock, even if the stats are read from another thread.
+ * 
+ * @author Daniel Centore
+ *
+ */
+public class PlannerStats
+{
+	// The stats of the game being played on each thread. Planners run outside of a game record into a throwaway instance.
+	private static final ThreadLocal<PlannerStats> CURRENT = new ThreadLocal<PlannerStats>()
+	{
+		@Override
+		protected PlannerStats initialValue()
+		{
+			return new PlannerStats();
+		}
+	};
+
+	private final LatencyHistogram decisions = new LatencyHistogram();	// Time taken by each call to nextMove
+	private final LongAdder shortestToType = new LongAdder();			// Dijkstra searches
+	private final LongAdder pathsCreated = new LongAdder();			// Paths made by the brute force (including clones)
+	private final LongAdder dupsRemoved = new LongAdder();				// Paths thrown out by findDups
+	private final LongAdder deltaRestarts = new LongAdder();			// Brute force retries with a cutoff SMALLEST_DELTA higher
+	private final LongAdder replans = new LongAdder();					// Times we threw out our move list and asked for a new one
+
+	// Footprint sampling: every FOOTPRINT_EVERY chances (0 for never) estimate the size of the planner state,
+	// visiting at most FOOTPRINT_BUDGET objects so it doesn't hold up the game
+	private static final int FOOTPRINT_EVERY = Integer.getInteger("amity.footprint", 0);
+	private static final int FOOTPRINT_BUDGET = Integer.getInteger("amity.footprint.budget", 200000);
+
+	private final MemoryCounter memory = new MemoryCounter();
+	private final AtomicInteger mapChances = new AtomicInteger();
+	private final AtomicInteger pathChances = new AtomicInteger();
+	private final AtomicLong maxMapBytes = new AtomicLong();			// Largest FieldMap we've sampled
+	private final AtomicLong maxPathsBytes = new AtomicLong();			// Largest set of brute force paths we've sampled
+
+	// Bytes allocated by each stage of a move. Only counted when Allocations.enabled.
+	private final LatencyHistogram decisionBytes = new LatencyHistogram();	// Per call to nextMove
+	private final LongAdder visionBytes = new LongAdder();				// Building the PlayerVision we're handed
+	private final LongAdder toTypeBytes = new LongAdder();				// BruteForcePathfinder.toType
+
+	/**
+	 * @return The stats of the game being played on this thread
+	 */
+	public static PlannerStats current()
+	{
+		return CURRENT.get();
+	}
+
+	/**
+	 * Makes these the stats the planners on this thread record into
+	 */
+	public void makeCurrent()
+	{
+		CURRENT.set(this);
+	}
+
+	public void recordDecision(long nanos)
+	{
+		decisions.record(nanos);
+	}
+
+	public void countShortestToType()
+	{
+		shortestToType.increment();
+	}
+
+	public void countPathCreated()
+	{
+		pathsCreated.increment();
+	}
+
+	public void countDupsRemoved(int dups)
+	{
+		dupsRemoved.add(dups);
+	}
+
+	public void countDeltaRestart()
+	{
+		deltaRestarts.increment();
+	}
+
+	public void countReplan()
+	{
+		replans.increment();
+	}
+
+	public void recordDecisionAllocation(long bytes)
+	{
+		if (Allocations.enabled)
+			decisionBytes.record(bytes);
+	}
+
+	public void recordVisionAllocation(long bytes)
+	{
+		if (Allocations.enabled)
+			visionBytes.add(bytes);
+	}
+
+	public void recordToTypeAllocation(long bytes)
+	{
+		if (Allocations.enabled)
+			toTypeBytes.add(bytes);
+	}
+
+	/**
+	 * Estimates the size of the map we've built up, if it's time for a sample
+	 * @param map The game's map of spaces (from FieldMap.getMap())
+	 */
+	public void sampleMap(HashMap<?, ?> map)
+	{
+		if (FOOTPRINT_EVERY > 0 && mapChances.incrementAndGet() % FOOTPRINT_EVERY == 0)
+			max(maxMapBytes, memory.estimate(map, FOOTPRINT_BUDGET));
+	}
+
+	/**
+	 * Estimates the size of the paths the brute force is working on, if it's time for a sample
+	 * @param paths The paths still being evaluated
+	 */
+	public void samplePaths(List<?> paths)
+	{
+		if (FOOTPRINT_EVERY > 0 && pathChances.incrementAndGet() % FOOTPRINT_EVERY == 0)
+			max(maxPathsBytes, memory.estimate(paths, FOOTPRINT_BUDGET));
+	}
+
+	/**
+	 * Raises a maximum without locking
+	 * @param max The maximum so far
+	 * @param value The new value
+	 */
+	private static void max(AtomicLong max, long value)
+	{
+		long m;
+		while (value > (m = max.get()) && !max.compareAndSet(m, value))
+			;
+	}
+
+	public LatencyHistogram getDecisions()
+	{
+		return decisions;
+	}
+
+	/**
+	 * The column names for {@link #toCsv()}
+	 * @return A line of comma separated names
+	 */
+	public static String csvHeader()
+	{
+		return "decisions,p50_ns,p99_ns,max_ns,shortest_to_type,paths_created,dups_removed,delta_restarts,replans,map_bytes,paths_bytes,"
+				+ "alloc_decision_p50,alloc_decision_p99,alloc_decision_max,alloc_decision_total,alloc_vision_total,alloc_totype_total";
+	}
+
+	/**
+	 * @return The stats as a line of comma separated values, in the order of {@link #csvHeader()}
+	 */
+	public String toCsv()
+	{
+		return decisions.getCount() + "," + decisions.getPercentile(50) + "," + decisions.getPercentile(99) + "," + decisions.getMax() + ","
+				+ shortestToType.sum() + "," + pathsCreated.sum() + "," + dupsRemoved.sum() + "," + deltaRestarts.sum() + "," + replans.sum() + ","
+				+ maxMapBytes.get() + "," + maxPathsBytes.get() + ","
+				+ decisionBytes.getPercentile(50) + "," + decisionBytes.getPercentile(99) + "," + decisionBytes.getMax() + "," + decisionBytes.getTotal() + ","
+				+ visionBytes.sum() + "," + toTypeBytes.sum();
+	}
+
+	/**
+	 * @return The stats as the fields of a JSON object (without the braces) so callers can add their own fields
+	 */
+	public String toJsonFields()
+	{
+		return "\"decisions\": " + decisions.getCount()
+				+ ", \"latency_ns\": {\"p50\": " + decisions.getPercentile(50) + ", \"p99\": " + decisions.getPercentile(99) + ", \"max\": " + decisions.getMax() + "}"
+				+ ", \"shortest_to_type\": " + shortestToType.sum()
+				+ ", \"paths_created\": " + pathsCreated.sum()
+				+ ", \"dups_removed\": " + dupsRemoved.sum()
+				+ ", \"delta_restarts\": " + deltaRestarts.sum()
+				+ ", \"replans\": " + replans.sum()
+				+ ", \"map_bytes\": " + maxMapBytes.get()
+				+ ", \"paths_bytes\": " + maxPathsBytes.get()
+				+ ", \"allocated_bytes\": {\"decision_p50\": " + decisionBytes.getPercentile(50) + ", \"decision_p99\": " + decisionBytes.getPercentile(99)
+				+ ", \"decision_max\": " + decisionBytes.getMax() + ", \"decision_total\": " + decisionBytes.getTotal()
+				+ ", \"vision_total\": " + visionBytes.sum() + ", \"totype_total\": " + toTypeBytes.sum() + "}";
+	}
+}
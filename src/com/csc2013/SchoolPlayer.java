@@ -1,1797 +1,5221 @@
-package com.csc2013;
-
-import java.awt.Point;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Queue;
-import java.util.Stack;
-
-import com.csc2013.Dijkstras.GetKeyException;
-import com.csc2013.DungeonMaze.Action;
-import com.csc2013.DungeonMaze.BoxType;
-import com.csc2013.DungeonMaze.Direction;
-import com.csc2013.DungeonMaze.MoveType;
-
-/**
- * 
- * The Amity Regional High School Case Study Solution
- * 
- * Algorithm Outline:
- * - If we have never found a solution to the current map
- * 		- Look for the closest area in the map we have never been to
- * 		- Go to it
- * - If we have solved it before
- * 		- Use a mixture of brute force and dijkstra's algorithm to find the bestish solution based on all our knowledge
- * 
- * @author Daniel Centore
- *
- */
-public class SchoolPlayer
-{
-	// Print out debug data?
-	public static final boolean VERBOSE = false;
-
-	// The data that we save across all runs
-	private static final LearningTracker LEARNING_TRACKER = new LearningTracker();
-
-	public FieldMap map = new FieldMap(LEARNING_TRACKER);		// The map for the current game
-	private Stack<Space> currentStack = null;					// The current stack of moves we're following
-	private int moves = 0;										// The number of moves we've taken so far
-	private boolean giveUp = false;								// True if we have issued any bad moves and want to give up
-
-	/** 
-	 * Called by the GE code.
-	 * This just finds the action we want to take, applies it to our current map, and returns it
-	 * 
-	 * @param vision Our current {@link PlayerVision} data
-	 * @param keyCount 
-	 * @param lastAction
-	 * @return Action
-	 */
-	public Action nextMove(final PlayerVision vision, final int keyCount, final boolean lastAction)
-	{
-		if (!lastAction || giveUp)		// We failed, so let's just give up.
-		{
-			if (VERBOSE)
-				System.out.println("FAILED. JUST DOING RANDOM MOVES.");
-
-			giveUp = true;
-
-			return getSimpleAction(vision);
-		}
-
-		// Request our next move from the program
-		Action action = null;
-		try
-		{
-			action = amityNextMove(vision, keyCount);
-		} catch (Throwable t)
-		{
-			// In case something goes horribly wrong, this is better than getting disqualified.
-			if (VERBOSE)
-				t.printStackTrace();
-
-			giveUp = true;
-
-			return getSimpleAction(vision);
-		}
-
-		// Apply the action we are about to take to our own map
-		switch (action)
-		{
-		case North:
-			map.applyMove(Direction.North);
-			break;
-
-		case South:
-			map.applyMove(Direction.South);
-			break;
-
-		case East:
-			map.applyMove(Direction.East);
-			break;
-
-		case West:
-			map.applyMove(Direction.West);
-			break;
-
-		case Pickup:
-			map.applyPickupKey();
-			break;
-
-		case Use:
-			map.applyOpenDoor();
-			break;
-		}
-
-		return action;
-	}
-
-	/**
-	 * Comes up with a legal move. This is the "everything else failed" plan.
-	 * @param vision The current vision
-	 * @return A legal {@link Action}
-	 */
-	private Action getSimpleAction(PlayerVision vision)
-	{
-		if (vision.CurrentPoint.NorthMove != MoveType.Blocked)
-			return Action.North;
-
-		if (vision.CurrentPoint.SouthMove != MoveType.Blocked)
-			return Action.South;
-
-		if (vision.CurrentPoint.EastMove != MoveType.Blocked)
-			return Action.East;
-
-		if (vision.CurrentPoint.WestMove != MoveType.Blocked)
-			return Action.West;
-
-		// This should never happen (then again, this method shouldn't be running at all either)
-		return Action.Use;
-	}
-
-	/**
-	 * Figures out the next move to take
-	 * 
-	 * @param vision The current {@link PlayerVision}
-	 * @param keyCount The number of keys we have
-	 * @return An {@link Action} to take
-	 */
-	public Action amityNextMove(PlayerVision vision, int keyCount)
-	{
-		int oldMapSize = map.getMap().size();	// Calculate the amount of data we knew before applying our new vision
-		map.fillVision(vision);					// Fill in any new data we learned from the vision
-
-		// Recalculate the best path if:
-		if (oldMapSize < map.getMap().size()		// The map changed, or
-				|| currentStack == null				// The last iteration requested a recalculation, or
-				|| currentStack.size() < 2)			// We have no moves left!
-		{
-			try
-			{
-				currentStack = new Dijkstras(keyCount, map).getNext();		// Request new move list
-
-			} catch (GetKeyException e)		// The algorithm requested that we pick up a key
-			{
-				currentStack = null;		// Force a recalculation next time.
-				return Action.Pickup;		// Pickup the key
-			}
-		}
-
-		// Pickup a key if we are on top of it
-		if (map.getMap().get(map.getLocation()).getType() == BoxType.Key)
-		{
-			return Action.Pickup;			// Pickup the key
-		}
-
-		moves++;		// Keep track of how many moves we've taken
-
-		// About to hit the exit. Save our best solved exit case time so far to improve future algorithm runtimes.
-		if (currentStack.get(currentStack.size() - 2).getType() == BoxType.Exit)
-		{
-			LEARNING_TRACKER.setBestCase(moves);
-		}
-
-		Action act = toAction(currentStack);		// Takes the next 2 positions and finds out what action is appropriate to take next
-		if (act != Action.Use)
-			currentStack.pop(); 												// Pop off our last movement
-		else
-			currentStack.get(currentStack.size() - 2).setType(BoxType.Open);	// The door is now open. Mark it as such and we'll walk to it next move.
-
-		return act;
-	}
-
-	/**
-	 * Finds the direction between the next two moves on the stack and then the appropriate action to take based on this
-	 * 
-	 * @param toExit The move list
-	 * @throws RuntimeException If the stack is bad (ie The two moves are not consecutive)
-	 * @return The action appropriate to take (either moving in a direction or opening a door)
-	 */
-	private Action toAction(Stack<Space> toExit)
-	{
-		if (toExit.get(toExit.size() - 2).getType() == BoxType.Door)		// If next space is a door, open it
-			return Action.Use;
-
-		Point a = toExit.get(toExit.size() - 1).getPoint();		// The two points
-		Point b = toExit.get(toExit.size() - 2).getPoint();
-
-		// Find the direction between them
-		if (b.y - 1 == a.y)
-			return Action.North;
-		if (b.y + 1 == a.y)
-			return Action.South;
-		if (b.x - 1 == a.x)
-			return Action.East;
-		if (b.x + 1 == a.x)
-			return Action.West;
-
-		throw new RuntimeException("Bad stack: " + toExit.toString());
-	}
-}
-
-/**
- * The map of the current game.
- * Handles parsing vision data as well
- * 
- * @author Daniel Centore 
- *
- */
-class FieldMap
-{
-	// Map of how much we know of the maze
-	// This map is a running map of the *current* game
-	private HashMap<Point, Space> map = new HashMap<>();
-
-	// Map of the original maze
-	// As we collect data about the maze we add it here
-	// However, if we pick up a key or open a door, this new knowledge is not added
-	// This is so we can reuse the map in the future.
-	private HashMap<Point, Space> originalMap = null;
-
-	// Player's current location
-	private Point location = new Point(0, 0);
-
-	// The best case we have encountered for this map so far (or Integer.MAX_VALUE if it has never been solved)
-	private int bestCase;
-
-	/**
-	 * Instantiates the {@link FieldMap}
-	 * @param lt The {@link LearningTracker} which keeps track of how much we know about the map already
-	 */
-	public FieldMap(LearningTracker lt)
-	{
-		originalMap = lt.nextMap();
-		bestCase = lt.getBestCase();
-
-		updateData(originalMap);		// Deep copies how much we know about the map already
-	}
-
-	/**
-	 * Inserts all the data from 'data' into this.map without referencing any of the original objects.
-	 * Performs a deep copy.
-	 * @param data A map of the field
-	 */
-	private void updateData(HashMap<Point, Space> data)
-	{
-		for (Space s : data.values())
-		{
-			saveSpace(s.getX(), s.getY(), s.getType());
-		}
-	}
-
-	/**
-	 * Fills in our map with as much information as can be derived from the {@link PlayerVision}
-	 * @param vision The {@link PlayerVision} we are pulling info from
-	 */
-	public void fillVision(PlayerVision vision)
-	{
-		// Current square
-		fillSurrounding(vision.CurrentPoint, location.x, location.y);
-
-		// North
-		for (int i = 0; i < vision.mNorth; i++)
-			fillSurrounding(vision.North[i], location.x, location.y + i + 1);
-
-		// South
-		for (int i = 0; i < vision.mSouth; i++)
-			fillSurrounding(vision.South[i], location.x, location.y - i - 1);
-
-		// East
-		for (int i = 0; i < vision.mEast; i++)
-			fillSurrounding(vision.East[i], location.x + i + 1, location.y);
-
-		// West
-		for (int i = 0; i < vision.mWest; i++)
-			fillSurrounding(vision.West[i], location.x - i - 1, location.y);
-	}
-
-	/**
-	 * Fills in information of all the squares surrounding a {@link MapBox}
-	 * @param box The {@link MapBox} to extract the info from. Must be either Open or a Key.
-	 * @param x X coordinate of the square
-	 * @param y Y coordinate of the square
-	 */
-	private void fillSurrounding(MapBox box, int x, int y)
-	{
-		BoxType type = BoxType.Open; 	// Assume it's open as we only get spaces that we can walk on
-
-		if (box.hasKey()) 			// If it has a key mark it as a key
-			type = BoxType.Key;
-
-		// Save the original space
-		saveSpace(x, y, type);
-
-		// Now save the surroundings
-		saveSpace(x, y + 1, box.North);
-		saveSpace(x, y - 1, box.South);
-		saveSpace(x + 1, y, box.East);
-		saveSpace(x - 1, y, box.West);
-	}
-
-	/**
-	 * If a space already exists, verify that it is correct.
-	 * If it doesn't, add it
-	 * 
-	 * @throws RuntimeException If the space already exists and the previous type contrasts with the new one
-	 * 
-	 * @param x X coordinate of the {@link Space}
-	 * @param y Y coordinate of the {@link Space}
-	 * @param type The type of space it is
-	 * 
-	 * @return The {@link Space} which either already existed in the map or which we added.
-	 */
-	private Space saveSpace(int x, int y, BoxType type)
-	{
-		Point p = new Point(x, y);
-
-		if (map.containsKey(p))		// If the point already exists
-		{
-			Space sp = map.get(p);
-
-			if (sp.getType() != type)	// The new one we want to add contrasts with the already existing one
-				throw new RuntimeException("Expected type " + sp + " at " + p.x + "," + p.y + " but asked to save " + type);
-
-			return sp;
-		}
-		else
-		{
-			if (!originalMap.containsKey(p))		// add the space as it existed in the original map to the learned map
-				originalMap.put(p, new Space(x, y, type));
-
-			Space sp = new Space(x, y, type);		// add the new space
-			map.put(p, sp);
-
-			return sp;
-		}
-	}
-
-	/**
-	 * Lets the map know that we moved in a direction and updates the location accordingly 
-	 * @param dir The {@link Direction} we moved in
-	 */
-	public void applyMove(Direction dir)
-	{
-		switch (dir)
-		{
-		case North:
-			location = new Point(location.x, location.y + 1);
-			break;
-
-		case South:
-			location = new Point(location.x, location.y - 1);
-			break;
-
-		case East:
-			location = new Point(location.x + 1, location.y);
-			break;
-
-		case West:
-			location = new Point(location.x - 1, location.y);
-			break;
-		}
-	}
-
-	/**
-	 * Lets the map know we just picked up a key on the space we're on.
-	 */
-	public void applyPickupKey()
-	{
-		map.get(location).setType(BoxType.Open);
-	}
-
-	/**
-	 * Lets the map know we just opened a door.
-	 */
-	public void applyOpenDoor()
-	{
-		Point p = new Point();
-		Space sp;
-
-		// Look around us and open any doors (there should theoretically only be 1)
-
-		// North
-		p.x = location.x;
-		p.y = location.y + 1;
-		if (map.containsKey(p) && (sp = map.get(p)).getType() == BoxType.Door)
-			sp.setType(BoxType.Open);
-
-		// South
-		p.x = location.x;
-		p.y = location.y - 1;
-		if (map.containsKey(p) && (sp = map.get(p)).getType() == BoxType.Door)
-			sp.setType(BoxType.Open);
-
-		// East
-		p.x = location.x + 1;
-		p.y = location.y;
-		if (map.containsKey(p) && (sp = map.get(p)).getType() == BoxType.Door)
-			sp.setType(BoxType.Open);
-
-		// West
-		p.x = location.x - 1;
-		p.y = location.y;
-		if (map.containsKey(p) && (sp = map.get(p)).getType() == BoxType.Door)
-			sp.setType(BoxType.Open);
-	}
-
-	/**
-	 * Gets the entire map. The key is the {@link Point} the {@link Space} is located on relative to (0,0) being the initial position.
-	 * North, South, East, and West are +y,-y,+x,-x respectively. Please do not edit the map.
-	 * @return The map.
-	 */
-	public HashMap<Point, Space> getMap()
-	{
-		return map;
-	}
-
-	/**
-	 * Our player's current location relative to (0,0) being their initial position.
-	 * @return Their location
-	 */
-	public Point getLocation()
-	{
-		return location;
-	}
-
-	/**
-	 * Get's the best number of moves we've encountered so far for the map.
-	 * Be careful because since this can be Integer.MAX_VALUE you need to watch out for overflow
-	 * @return The number of moves (or Integer.MAX_VALUE if it has never been solved)
-	 */
-	public int getBestCase()
-	{
-		return bestCase;
-	}
-
-}
-
-/**
- * Represents a single space on the board
- * 
- * @author Daniel Centore
- *
- */
-class Space
-{
-	private BoxType type; // type of space we are
-
-	// The (x,y) coordinate of this space
-	private final int x;
-	private final int y;
-
-	// Just a Point representation of (x,y) for quick access
-	private final Point point;
-
-	// True if this Space is representing all spaces we haven't been to yet 
-	private boolean unexplored = false;
-
-	// == Dijkstra's algorithm Variables == //
-	private int length;						// The distance of this Space from root
-	private boolean removed = false;		// Whether or not this space has been removed
-	private Space previous = null;			// The previous space on the chain back to root
-
-	/**
-	 * Creates a space
-	 * @param x X coordinate of the space
-	 * @param y Y coordinate of the space
-	 * @param type The {@link BoxType} of the space.
-	 */
-	public Space(int x, int y, BoxType type)
-	{
-		this.x = x;
-		this.y = y;
-		this.type = type;
-
-		point = new Point(x, y);
-	}
-
-	/**
-	 * Gets the current {@link BoxType} of this space
-	 * @return The type of space we are representing
-	 */
-	public BoxType getType()
-	{
-		return type;
-	}
-
-	/**
-	 * Sets the type of this space.
-	 * You should really only be setting this to empty after opening a door or picking up a key.
-	 * @param type The {@link BoxType} to set it to.
-	 */
-	public void setType(BoxType type)
-	{
-		this.type = type;
-	}
-
-	/**
-	 * Gets the X coordinate of the space
-	 * @return The X coordinate
-	 */
-	public int getX()
-	{
-		return x;
-	}
-
-	/**
-	 * Gets the Y coordinate of the space
-	 * @return The Y coordinate
-	 */
-	public int getY()
-	{
-		return y;
-	}
-
-	/**
-	 * Gets the position of the point as a {@link Point}
-	 * @return The position
-	 */
-	public Point getPoint()
-	{
-		return point;
-	}
-
-	@Override
-	public String toString()
-	{
-		return "Space [type=" + type + ", x=" + x + ", y=" + y + ", removed=" + removed + "]";
-	}
-
-	/**
-	 * Override the hashcode and equals so that two Spaces are considered equal whenever they are located in the same position
-	 * This is to make things easier when referencing them in HashMaps and the like
-	 */
-
-	@Override
-	public int hashCode()
-	{
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + x;
-		result = prime * result + y;
-		return result;
-	}
-
-	@Override
-	public boolean equals(Object obj)
-	{
-		if (this == obj)
-			return true;
-		if (obj == null)
-			return false;
-		if (getClass() != obj.getClass())
-			return false;
-		Space other = (Space) obj;
-		if (x != other.x)
-			return false;
-		if (y != other.y)
-			return false;
-		return true;
-	}
-
-	/**
-	 * Finds the current distance of the space from root
-	 * @return  The length
-	 */
-	public int getLength()
-	{
-		return length;
-	}
-
-	/**
-	 * Sets the current distance of the space from root
-	 * @param length The length
-	 */
-	public void setLength(int length)
-	{
-		this.length = length;
-	}
-
-	/**
-	 * Checks if the space has been visited/removed from the graph
-	 * @return True if it has been removed; False otherwise
-	 */
-	public boolean isRemoved()
-	{
-		return removed;
-	}
-
-	/**
-	 * Sets if the space has been visited/removed from the graph
-	 * @param removed True if it has been removed; False otherwise
-	 */
-	public void setRemoved(boolean removed)
-	{
-		this.removed = removed;
-	}
-
-	/**
-	 * Gets the previous space on the chain back to the root node
-	 * @return The previous space or null if this is root
-	 */
-	public Space getPrevious()
-	{
-		return previous;
-	}
-
-	/**
-	 * Sets the previous space on the chain back to root
-	 * @param previous The space to set it to
-	 */
-	public void setPrevious(Space previous)
-	{
-		this.previous = previous;
-	}
-
-	/**
-	 * Is this space a marker for unexplored territory?
-	 * @return True if it is; False otherwise
-	 */
-	public boolean isUnexplored()
-	{
-		return unexplored;
-	}
-
-	/**
-	 * Sets whether or not this space is a marker for unexplored territory
-	 * @param unexplored True if it is; False otherwise
-	 */
-	public void setUnexplored(boolean unexplored)
-	{
-		this.unexplored = unexplored;
-	}
-}
-
-/**
- * Uses Dijkstra's pathfinding algorithm to find the shortest route between 2 nodes.
- * This class also handles finding the next path to take.
- * 
- * @author Daniel Centore
- *
- */
-class Dijkstras
-{
-	/**
-	 * This exception is used to tell the {@link SchoolPlayer} that we want to pick up a key rather than
-	 * follow a path.
-	 */
-	class GetKeyException extends Exception
-	{
-		private static final long serialVersionUID = 1L;
-	}
-
-	private int keys;							// How many keys we have right now
-	private Point location;						// The player's current location
-	private HashMap<Point, Space> map;			// The player's current map
-	private int bestCase;						// The best case the player has encountered in this map
-
-	// The space that represents somewhere we haven't been to yet
-	private static final Space UNEXP;
-	static
-	{
-		UNEXP = new Space(Integer.MAX_VALUE, Integer.MAX_VALUE, null);
-		UNEXP.setUnexplored(true);
-		UNEXP.setLength(Integer.MAX_VALUE);
-	}
-	// The location to go along with that space
-	private static final Point INFI = new Point(Integer.MAX_VALUE, Integer.MAX_VALUE);
-
-	/**
-	 * Creates an instance of the Dijkstra's algorithm solver
-	 * @param keys Number of keys the player has
-	 * @param map The current {@link FieldMap} from which we extract other data
-	 */
-	public Dijkstras(int keys, FieldMap map)
-	{
-		this(keys, map.getLocation(), map.getMap(), map.getBestCase());
-	}
-
-	/**
-	 * Creates an instance of the Dijkstra's algorithm solver
-	 * @param keys Number of keys the player has
-	 * @param location The player's current location
-	 * @param map The player's current map
-	 * @param bestCase The best case the player has encountered in this map
-	 */
-	public Dijkstras(int keys, Point location, HashMap<Point, Space> map, int bestCase)
-	{
-		this.keys = keys;
-		this.location = location;
-		this.map = map;
-		this.bestCase = bestCase;
-	}
-
-	/**
-	 * Figures out which path to take next.
-	 * @return A {@link Stack} which gives you the moves you should take in order.
-	 * 			The first and last elements are where you are and where you want to be, respectively. 
-	 * @throws GetKeyException If we want you to pick up a key instead of following a path
-	 */
-	public Stack<Space> getNext() throws GetKeyException
-	{
-		// Find shortest path to an exit. Take it if it exists.
-		// This uses a brute force to try to find the very most ideal path
-		try
-		{
-			// Check to see if we even know about the existence of an exit
-			boolean hasExit = false;
-			for (Space s : map.values())
-			{
-				if (s.getType() == BoxType.Exit)
-				{
-					hasExit = true;
-					break;
-				}
-			}
-
-			// If we know about an exit, try to find the best path to it
-			if (hasExit)
-			{
-
-				Stack<Space> toExit = new BruteForcePathfinder(keys, location, map, bestCase).toType(BoxType.Exit);
-				if (toExit != null)
-					return toExit;
-			}
-		} catch (Throwable e)
-		{
-			// If the brute force algorithm fails (unexpectedly) then fall back on this algorithm
-			if (SchoolPlayer.VERBOSE)
-				e.printStackTrace();
-		}
-
-		// If standing on key, grab it
-		if (map.get(location).getType() == BoxType.Key)
-			throw new GetKeyException();
-
-		// Grab keys if we need them and they are nearby
-		Stack<Space> toCloseKey = shortestToType(location, BoxType.Key);
-		if (toCloseKey != null)
-		{
-			int dist = toCloseKey.size();
-
-			dist -= 1;		// don't include the space we're on
-
-			if (keys == 0 && dist <= 7)
-				return toCloseKey;
-			else if (keys == 1 & dist <= 3)
-				return toCloseKey;
-		}
-
-		// == Find shortest path to an unexplored area ==
-		Stack<Space> toUnknown = new BruteForcePathfinder(keys, location, map, Integer.MAX_VALUE).toType(null);
-
-		if (toUnknown == null)
-		{
-			String s = "This map is seemingly impossible to solve in the current state.\n" +
-					"We've explored all unexplored areas and used all available key+door combinations.\n" +
-					"This usually means the map has some sort of flaw in it which permits one to use\n" +
-					"all of the map's keys but still have some doors locked.";
-
-			throw new RuntimeException(s);
-		}
-
-		return toUnknown;		// Return the shortest path
-	}
-
-	/**
-	 * Returns the shortest path to a type
-	 * Special Case: If the start point IS of type type, then it returns NULL!
-	 * @param start The initial point
-	 * @param type The type of space we want to go to
-	 * @return The shortest path to the closest space of the requested type
-	 */
-	public Stack<Space> shortestToType(Point start, BoxType type)
-	{
-		return shortestToType(start, type, null);
-	}
-
-	/**
-	 * Returns the shortest path to a space
-	 * @param start The initial point
-	 * @param goal The space we want to go to
-	 * @return The shortest path to the requested space
-	 */
-	public Stack<Space> shortestToType(Point start, Space goal)
-	{
-		Stack<Space> stack = shortestToType(goal.getPoint(), null, map.get(start));
-		if (stack == null)
-			return null;
-
-		Stack<Space> result = new Stack<>();		// checks in reverse order (fails faster
-
-		while (!stack.isEmpty())
-			result.add(stack.pop());
-
-		return result;
-	}
-
-	/**
-	 * Finds the shortest path from a {@link Point} to a goal using Dijkstra's algorithm.
-	 * The goal can be either a certain type of space (like unexplored, door, key) or to a specific space (like 2,5)
-	 * 
-	 * @param start The starting {@link Point}
-	 * @param type The {@link BoxType} we are looking for. Set to null if you want unexplored or to use the {@link Space} goal instead.
-	 * @param goal The {@link Space} goal we want to go to. Set to null to use the {@link BoxType} goal.
-	 * 
-	 * @return The {@link Stack} of moves to follow. The first element will be the {@link Space} on {@link Point} and the last element is the goal.
-	 * 			This can be null if there is no possible path.
-	 */
-	private Stack<Space> shortestToType(Point start, BoxType type, Space goal)
-	{
-		if (goal != null)
-		{
-
-		}
-		if (!map.containsKey(INFI))		// Add unknown as a possible goal
-			map.put(INFI, UNEXP);
-
-		List<Space> unremoved = new ArrayList<>();		// All spaces that have not been visited by Dijkstra's
-		List<Space> removed = new ArrayList<>();		// All spaces that have been visited
-
-		// Add all non-blocked spaces to the algorithm list
-		for (Space k : map.values())
-		{
-			if (k.getType() != BoxType.Blocked)
-				unremoved.add(k);
-		}
-
-		// Clear out the pathfinding data in those nodes
-		reset(start, unremoved);
-
-		while (true)
-		{
-			// Is the goal still in the graph?
-			for (Space sw : removed)
-			{
-				if ((goal != null && !sw.isUnexplored() && sw.equals(goal))				// If we found the Space goal, or
-						|| (goal == null && !sw.isUnexplored() && sw.getType() == type)	// If we found the type goal,  or
-						|| (goal == null && sw.isUnexplored() && type == null)			// If we found the type goal (for unexplored)
-				)
-				{
-					// Generate a stack of the path and return it
-					// This is based on the backward linking of one node in the path to the next
-					Stack<Space> fullPath = new Stack<>();
-
-					Space path = sw;
-					do
-					{
-						fullPath.push(path);
-						path = path.getPrevious();
-
-					} while (path != null);
-
-					if (fullPath.size() <= 1) // Need to be at least 2 elements to be a path, otherwise we've got a dud.
-						return null;
-
-					return fullPath;
-				}
-			}
-
-			// Choose the vertex with the least distance
-			Space min = min(unremoved);
-
-			if (min == null) 	// No possible path to our goal
-				return null;
-
-			// Remove it from the graph (or "mark it as visited")
-			min.setRemoved(true);
-			removed.add(min);
-			unremoved.remove(min);
-
-			if (min != null)
-			{
-				// Calculate distances between the vertex with the smallest distance and neighbors still in the graph
-				for (Space sp : MapUtils.findSurroundingSpaces(map, min, UNEXP))
-				{
-					if (sp.isRemoved())			// Ignore the item if we've already visited it
-						continue;
-
-					// Ignore null spaces unless we are actually looking for unexplored areas
-					if ((sp.isUnexplored()) && (type != null || goal != null))
-						continue;
-
-					// Don't include doors if we are not looking for a door
-					if (sp.getType() == BoxType.Door && type != BoxType.Door && !sp.equals(goal))
-						continue;
-
-					int length = min.getLength() + 1; 		// Difficulty for getting anywhere is 1
-
-					// If this is the shortest path to the node so far, label it as such.
-					if (length < sp.getLength())
-					{
-						sp.setLength(length);
-						sp.setPrevious(min);
-					}
-				}
-			}
-
-			// Time for another iteration of the while loop....
-		}
-	}
-
-	/**
-	 * Find the element in the collection with the shortest length.
-	 * 
-	 * @param collection The {@link Collection} of nodes
-	 * @return The {@link Space} with the smallest value.
-	 */
-	private Space min(Collection<Space> collection)
-	{
-		Space shortest = null;
-		Iterator<Space> itr = collection.iterator();
-
-		while (itr.hasNext())
-		{
-			Space next = itr.next();
-
-			if (shortest == null || shortest.getLength() > next.getLength())
-				shortest = next;
-			else if (shortest.getLength() == next.getLength())
-				shortest = next;
-		}
-
-		if (shortest == null || shortest.getLength() == Integer.MAX_VALUE)		// The 'shortest' path is impossible to get to.
-		{
-			return null;
-		}
-
-		return shortest;
-	}
-
-	/**
-	 * Resets all the {@link Space}s in terms of the temporary pathfinding variables
-	 * @param start The point which will have an initial length of 0 for this algorithm run
-	 * @param parts The {@link List} to go through
-	 */
-	private void reset(Point start, List<Space> parts)
-	{
-		for (Space s : parts)
-		{
-			if (s == null)
-				continue;
-
-			int dist = Integer.MAX_VALUE;
-			if (s.getPoint().equals(start))
-				dist = 0;
-
-			s.setLength(dist);
-			s.setRemoved(false);
-			s.setPrevious(null);
-		}
-	}
-
-	/**
-	 * Collects a {@link List} of all the {@link Space}s in our map which are not blocked.
-	 * This function includes doors.
-	 * @return The list
-	 */
-	public List<Space> getUnblockedSpaces()
-	{
-		ArrayList<Space> result = new ArrayList<>();
-
-		for (Space sp : map.values())
-		{
-			if (sp.getType() != BoxType.Blocked)
-				result.add(sp);
-		}
-
-		return result;
-	}
-
-}
-
-/**
- * Looks for the shortest possible path to a type.
- * This uses a combination of brute forcing and dijkstras algorithm to find the ideal path including door+key combinations.
- * 
- * Uses the following algorithm:
- *  1. Look for all possible paths to the type. Add them to the 'solved' list.
- *  2. Branch for all possible paths to keys.
- *  3. Branch for all possible paths to doors.
- *  4. Repeat until all possible key+door combinations are exhausted.
- * 
- * The algorithm uses some approximations in this "brute force" so it doesn't take days to run:
- *  - Once a door has been opened, all keys before that door are marked as nonexistant for future iterations along the path
- *  - Instead of finding *all* key combinations, it instead finds the shortest route to 0,1,2,...,n keys and uses each of these as a branch.
- *  	This is further described within the algorithm
- * 
- * @author Daniel Centore
- *
- */
-class BruteForcePathfinder
-{
-	// The algorithm is first run cutting off all paths that get longer than 100 moves.
-	// If it failed to solve the map it is increased to 200, then 300, and so on.
-	// This is so we don't end up with massive amounts of time going into solving very long paths.
-	private static final int SMALLEST_DELTA = 100;
-
-	private int currentKeys;					// How many keys we have right now
-	private Point currentLocation;				// Our actual current location
-	private HashMap<Point, Space> currentMap;	// Our actual current map
-	private int bestCase;						// The best exit case we have encountered so far (or Integer.MAX_VALUE if it has not yet been solved)
-
-	/**
-	 * Instantiates the class
-	 * @param keys The number of keys we have right now
-	 * @param currentLocation The player's current location
-	 * @param currentMap The player's current map
-	 * @param bestCase The best case we have encountered on the map so far (or Integer.MAX_VALUE if it has never been solved)
-	 */
-	public BruteForcePathfinder(int keys, Point currentLocation, HashMap<Point, Space> currentMap, int bestCase)
-	{
-		this.currentKeys = keys;
-		this.currentLocation = currentLocation;
-		this.currentMap = currentMap;
-		this.bestCase = bestCase;
-	}
-
-	/**
-	 * Finds the shortest path to a {@link BoxType} using the algorithm outlined in the class javadoc
-	 * @param type The {@link BoxType} to look for (you can also use null to indicate an unexplored area)
-	 * @return The stack of moves to follow
-	 */
-	public Stack<Space> toType(BoxType type)
-	{
-		int input = SMALLEST_DELTA;		// Initial cutoff value for path length
-		int shortest = (bestCase == Integer.MAX_VALUE ? Tournament.maxSteps : bestCase);		// Absolute maximum cutoff value
-		boolean lastTry = false;		// If this is the last iteration we can perform before giving up
-
-		// Once we are using the maximum cutoff value as out cutoff, label this as the last iteration
-		if (input > shortest)
-		{
-			input = shortest;
-			lastTry = true;
-		}
-
-		while (true)
-		{
-			Stack<Space> result = toTypeSub(type, input);		// Try getting a result for the current cutoff value
-
-			if (result != null)
-			{
-				return result;
-			}
-
-			input += SMALLEST_DELTA;	// Increase the cutoff value
-
-			if (lastTry)				// Time to give up
-				break;
-
-			if (input > shortest)		// Once we are using the maximum cutoff value as out cutoff, label this as the last iteration
-			{
-				input = shortest;
-				lastTry = true;
-			}
-		}
-
-		return null;
-
-	}
-
-	/**
-	 * Actually does the calculation trying to find the shortest path to a type
-	 * @param type The {@link BoxType} we are trying to get to
-	 * @param shortest The maximum path length
-	 * @return The stack of moves to follow
-	 */
-	private Stack<Space> toTypeSub(BoxType type, int shortest)
-	{
-		if (SchoolPlayer.VERBOSE)
-			System.out.println("Goal: " + type);
-
-		int iteration = 1;
-		List<Path> solved = new ArrayList<>();		// List of paths that lead to an exit
-		List<Path> paths = new ArrayList<>();		// List of paths we are still evaluating
-
-		paths.add(new Path(currentMap, currentLocation, currentKeys));		// Add an initial path which we'll branch off of
-
-		// While there are still paths to evaluate, evaluate them!
-		while (paths.size() > 0)
-		{
-			if (SchoolPlayer.VERBOSE)
-			{
-				System.out.println();
-				System.out.println("=== STARTING ITERATION " + (iteration++) + " ===");
-				System.out.println("Checking for duplicates...");
-			}
-
-			// Check for duplicates
-			List<Path> dups = findDups(paths);
-			int initialSize = paths.size();
-
-			paths.removeAll(dups);		// Remove all the duplicates
-
-			if (SchoolPlayer.VERBOSE)
-				System.out.println("Finished Checking. Removed [" + (initialSize - paths.size()) + "]");
-
-			dups = null;		// Clean up our references
-
-			// PART 1: For each path, see if there is a way to get to the goal without going through doors
-			// If there is, add the path to the solved list.
-			if (SchoolPlayer.VERBOSE)
-				System.out.println("Looking for paths to goal [" + type + "]...");
-
-			Iterator<Path> itr = paths.iterator();
-			while (itr.hasNext())		// Go through all the paths
-			{
-				Path p = itr.next();
-
-				Dijkstras d = new Dijkstras(p.getKeys(), p.getLocation(), p.getMap(), -1);
-
-				Stack<Space> toExit = d.shortestToType(p.getLocation(), type);		// Find shortest path to an exit
-				if (toExit != null)			// There is such a path
-				{
-					p = p.clone();
-					p.addToPath(toExit);		// Add going to the exit to the path
-					solved.add(p);				// Add the path to the solved list
-
-					if (p.getPathSize() < shortest)		// Mark the path as shortest if it is
-						shortest = p.getPathSize();
-				}
-			}
-			itr = null;
-
-			if (SchoolPlayer.VERBOSE)
-			{
-				System.out.println("Solved Paths:  " + solved.size());
-				System.out.println("Shortest Path: " + shortest);
-				System.out.println("Total Paths:   " + paths.size());
-				System.out.println();
-			}
-
-			// PART 2: For each path, find all possible reasonable paths to keys
-
-			if (SchoolPlayer.VERBOSE)
-				System.out.println("Looking for paths to keys...");
-
-			List<Path> tempPaths = toKeys(paths, shortest);
-			paths.addAll(tempPaths);
-
-			if (SchoolPlayer.VERBOSE)
-			{
-				System.out.println("Added key paths. Total paths: " + paths.size());
-				System.out.println("Looking for paths to doors....");
-			}
-			tempPaths = null;
-			
-			// PART 3: For all paths, find all possible paths to doors
-			tempPaths = toDoors(paths, shortest);
-			paths.addAll(tempPaths);
-
-			if (SchoolPlayer.VERBOSE)
-				System.out.println("Found paths to doors. Total paths: " + paths.size());
-		}
-
-		// END: Find the shortest path in our solved list
-
-		Path ideal = null;
-		for (Path s : solved)
-		{
-			if (ideal == null || s.getPathSize() < ideal.getPathSize())
-				ideal = s;
-		}
-
-		if (ideal == null)		// No known path exits
-		{
-			return null;
-		}
-
-		// A path does exist - Put it on a stack in the format we like
-		List<Space> l = ideal.getPath();
-		Stack<Space> result = new Stack<>();
-		for (int i = l.size() - 1; i >= 0; i--)
-		{
-			result.push(l.get(i));
-		}
-
-		return result;
-	}
-
-	/**
-	 * Finds all reasonable paths to doors (helper method)
-	 * @param paths The list of paths to iterate through
-	 * @param shortest The cutoff distance for paths
-	 * @return The new list of paths
-	 */
-	private List<Path> toDoors(List<Path> paths, int shortest)
-	{
-		List<Path> tempPaths = new ArrayList<>();
-
-		Iterator<Path> itr = paths.iterator();
-		while (itr.hasNext())		// Go through all the paths
-		{
-			Path p = itr.next();
-
-			itr.remove();		// Don't need the original path anymore. We'll either give up on it or branch from it.
-
-			if (p.getKeys() == 0)
-			{
-				// We can't go to a door from this path because there are no keys left
-				continue;
-			}
-			Point pLoc = p.getLocation();
-
-			// Get a list of all doors that we can walk to without going through other doors
-			Dijkstras k = new Dijkstras(p.getKeys(), pLoc, p.getMap(), -1);
-
-			for (Space s : p.getMap().values())
-			{
-				if (s.getType() == BoxType.Door)
-				{
-					Stack<Space> toDoor = k.shortestToType(pLoc, s);
-
-					if (toDoor == null)			// No possible path to that door
-						continue;
-
-					// The path will be too long. Don't add it.
-					if (toDoor.size() + p.getPathSize() > shortest)
-						continue;
-
-					Path next = p.clone();		// Clone the original path
-
-					next.addToPath(toDoor);		// Add the path to the door to it
-					tempPaths.add(next);		// Add it to the list of paths
-
-				}
-			}
-		}
-
-		return tempPaths;
-	}
-
-	/**
-	 * Finds all reasonable paths to keys (helper method)
-	 * @param paths The list of paths to iterate through
-	 * @param shortest The cutoff distance for paths
-	 * @return The new list of paths
-	 */
-	private List<Path> toKeys(List<Path> paths, int shortest)
-	{
-		List<Path> tempPaths = new ArrayList<>();
-
-		Iterator<Path> itr = paths.iterator();
-		while (itr.hasNext())
-		{
-			Path p = itr.next();
-
-			if (p.getPathSize() > shortest)		// Prune paths that are already greater than the shortest one so far
-			{
-				itr.remove();
-				continue;
-			}
-
-			// Get a list of all keys that we can walk to without going through doors
-			Queue<Space> keys = new LinkedList<>();		// The list of keys
-			Path temp = p.clone();
-
-			Dijkstras k = new Dijkstras(temp.getKeys(), temp.getLocation(), temp.getMap(), -1);
-			while (true)
-			{
-				k = new Dijkstras(temp.getKeys(), temp.getLocation(), temp.getMap(), -1);
-
-				Stack<Space> toKey = k.shortestToType(temp.getLocation(), BoxType.Key);
-				if (toKey == null)
-					break;
-				else
-				{
-					temp.addToPath(toKey);
-					keys.offer(p.getMap().get(temp.getLocation()));		// Use p's map so we use original value
-				}
-			}
-
-			// There are no more keys to get and we're out of keys. Kill the potential path.
-			if (keys.size() == 0 && p.getKeys() == 0)
-			{
-				itr.remove();
-				continue;
-			}
-
-			// Count the number of doors left on the board
-			int doors = 0;
-			for (Space s : p.getMap().values())
-			{
-				if (s.getType() == BoxType.Door)
-					doors++;
-			}
-			
-			doors -= p.getKeys();		// Subtract the number of keys to find the number of doors which need keys
-
-			// Generate a list of keys in each direction
-			// This generates a list of lists such that the first list contains all keys in order of increasing distance in one
-			// direction, the second list contains all keys in another direction, and so on and so forth.
-			List<List<Space>> keyLists = new ArrayList<>();
-
-			while (!keys.isEmpty())
-			{
-				List<Space> curr = new ArrayList<>();
-				temp = p.clone();
-				k = new Dijkstras(temp.getKeys(), temp.getLocation(), temp.getMap(), -1);		// create a new path
-
-				Space key = keys.poll();	// Get the next key
-
-				temp.addToPath(k.shortestToType(temp.getLocation(), key));		// Add it to the path
-
-				curr.add(key);		// Add it to the current direction list
-
-				Iterator<Space> spi = keys.iterator();		// iterate through the remaining keys
-				while (spi.hasNext())
-				{
-					key = spi.next();
-
-					Stack<Space> original = k.shortestToType(p.getLocation(), key);
-					Stack<Space> after = k.shortestToType(temp.getLocation(), key);
-
-					if (after.size() < original.size())		// If we got closer to the key by taking the path
-					{
-						curr.add(key);		// Add it to the current direction list
-						spi.remove();		// Remove it from future iterations
-					}
-				}
-
-				keyLists.add(curr);		// Add the current direction to the list of directions
-			}
-
-			keys = null;
-
-			// Iterates through each of the directions and then finds the possible paths in each of those directions
-			for (List<Space> list : keyLists)
-			{
-				Path next = p.clone();
-
-				// Find paths to go to 0,1,...,n keys.
-				// Example: If there are 3 keys I can get to, then the paths are:
-				//  1. The original path (which is already accounted for)
-				//  2. Going to the closest key
-				//  3. Going to the closest key and then the next closest key
-				//  4. Going to the closest key, then the next closest, then the next closest after that
-				// Doesn't look for more keys than there are doors
-				int i = 0;
-				for (Space s : list)		// Go through all spaces in the current direction list
-				{
-					i++;
-					if (i > doors)		// If we are on more keys than there are doors, scrap the paths
-						break;
-
-					k = new Dijkstras(next.getKeys(), next.getLocation(), next.getMap(), -1);
-
-					Stack<Space> toKey = k.shortestToType(next.getLocation(), s);	// Find the path to the key
-
-					if (toKey == null)		// This happens if we are already standing on the key
-					{
-						continue;
-					}
-
-					if (next.getPathSize() + toKey.size() > shortest)		// The path will be too long. Don't add it.
-						continue;
-
-					next.addToPath(toKey);		// Add the part to the path
-					tempPaths.add(next);		// Add the path to the list of paths
-
-					next = next.clone();		// Clone the Path for the next key iteration
-				}
-			}
-		}
-
-		return tempPaths;
-	}
-
-	/**
-	 * Finds duplicates in a list of paths
-	 * @param paths The list of paths to go through
-	 * @return The elements to remove
-	 */
-	private List<Path> findDups(List<Path> paths)
-	{
-		List<Path> dups = new ArrayList<>();
-
-		for (int i = 0; i < paths.size(); i++)
-		{
-			Path p = paths.get(i);
-			List<Space> pPath = p.getPath();
-
-			// Only looks a maximum of 10000 spaces ahead in the list.
-			// This approximation works for most cases and really speeds things up
-			for (int j = i + 1; j < Math.min(Integer.MAX_VALUE, paths.size()); j++)
-			{
-				Path q = paths.get(j);
-
-				if (q.getPathSize() != p.getPathSize())
-					continue;
-
-				List<Space> qPath = q.getPath();
-
-				if (Path.pathsEqual(qPath, pPath))
-				{
-					dups.add(q);
-				}
-			}
-		}
-
-		return dups;
-	}
-
-}
-
-/**
- * Represents a path we are simulating in a brute force
- * We use these in a chain fashion so when one gets cloned, the clone links to the original to save memory
- * You can thus only add to a Path and then the difference between the paths is stored
- * 
- * @author Daniel Centore
- *
- */
-class Path
-{
-	// The current state of the map in this path.
-	// Only stores values that are different than the previous map on the chain
-	private HashMap<Point, Space> map;
-
-	private int keys;							// The number of keys the player has
-	private ArrayList<Space> path;				// The path so far. The first element is first thing to perform
-	private int pathSize = 0;					// The path size
-
-	private Path previous;						// The previous path in the chain
-
-	/**
-	 * Creates a new Path from scratch
-	 * @param newMap The map to load (we do a shallow clone of it but deep clone any objects before changing them)
-	 * @param location The player's current location
-	 * @param keys The number of keys the player has
-	 */
-	public Path(HashMap<Point, Space> newMap, Point location, int keys)
-	{
-		this.keys = keys;
-
-		map = new HashMap<>();
-		load2(newMap);		// Clone the map
-
-		path = new ArrayList<>();		// Add our current location to the path
-		path.add(map.get(location));
-	}
-
-	/**
-	 * Creates a new path (for use by cloning)
-	 * @param newMap The map to clone
-	 * @param keys Number of keys the player has
-	 * @param path The path so far
-	 * @param previous The previous node on the chain of paths
-	 */
-	private Path(HashMap<Point, Space> newMap, int keys, ArrayList<Space> path, Path previous)
-	{
-		this.keys = keys;
-
-		map = new HashMap<>();
-
-		this.path = new ArrayList<>();
-
-		this.previous = previous;
-		this.pathSize = previous.pathSize;
-	}
-
-	/**
-	 * Shallow copies the map
-	 * @param newMap The map to shallow copy
-	 */
-	private void load2(HashMap<Point, Space> newMap)
-	{
-		for (Space sp : newMap.values())
-			map.put(sp.getPoint(), sp);
-	}
-
-	@Override
-	public Path clone()
-	{
-		return new Path(this.map, this.keys, this.path, this);
-	}
-
-	/**
-	 * Concatenates another path onto this one
-	 * @param proceed The path to add onto it
-	 */
-	@SuppressWarnings("unchecked")
-	public long addToPath(Stack<Space> proceed)
-	{
-		proceed = (Stack<Space>) proceed.clone();
-
-		// Don't put on the first element of the path as it matches the last element of our current list
-		proceed.pop();
-
-		long time = 0;
-
-		while (!proceed.isEmpty())
-		{
-			Space next = proceed.pop();
-
-			if (next.isUnexplored())		// Do not include walking to unknown in the path
-			{
-				break;
-			}
-
-			// Set the type and location.
-			BoxType type = next.getType();
-
-			// Handle key usage along the path
-			switch (type)
-			{
-			case Door:
-				// Pretend any keys inside an area are nonexistant after we've opened a door.
-				// This is a pretty good approximation although not a perfect one.
-				// Without this pruning, the number of brute force paths quickly gets out of hand
-				long k = System.currentTimeMillis();
-				pruneKeys();
-				time += System.currentTimeMillis() - k;
-
-				keys--;
-				cloneSpaceToMap(next).setType(BoxType.Open);		// We open the door
-				break;
-
-			case Key:
-				keys++;
-				cloneSpaceToMap(next).setType(BoxType.Open);		// We pick up the key
-				break;
-
-			default:
-				break;
-			}
-
-			// Add the path element
-			path.add(next);
-			pathSize++;
-		}
-
-		return time;
-	}
-
-	/**
-	 * Prunes out any keys that are currently reachable
-	 */
-	private void pruneKeys()
-	{
-		Dijkstras dijkstras = new Dijkstras(this.getKeys(), this.getLocation(), this.getMap(), -1);
-
-		for (Space s : this.getMap().values())
-		{
-			if (s.getType() == BoxType.Key)
-			{
-				Stack<Space> toKey = dijkstras.shortestToType(this.getLocation(), s);
-				if (toKey == null)		// If we cannot get to the key, continue
-					continue;
-
-				cloneSpaceToMap(s).setType(BoxType.Open);		// Mark it as open (even though it's not!)
-			}
-		}
-
-	}
-
-	/**
-	 * Clones a space that's in the map (which is also likely referenced elsewhere) and puts the clone in the map
-	 * @param me The {@link Space} to clone
-	 * @return The cloned spaces (so you can then make changes to it)
-	 */
-	private Space cloneSpaceToMap(Space me)
-	{
-		Point p = me.getPoint();
-
-		Space sp = new Space(me.getX(), me.getY(), me.getType());		// add space
-		map.put(p, sp);
-
-		return sp;
-	}
-
-	/**
-	 * Gets the number of keys that the path has
-	 * @return The number of keys
-	 */
-	public int getKeys()
-	{
-		return keys;
-	}
-
-	/**
-	 * Gets the current state of the map for this path
-	 * This is calculated on the fly based on the previous paths on the chain
-	 * @return The map
-	 */
-	public HashMap<Point, Space> getMap()
-	{
-		HashMap<Point, Space> temp = new HashMap<>();
-
-		Path p = this;
-		// Go through the chain
-		do
-		{
-			for (Space s : p.map.values())		// Add all the spaces to the map
-			{
-				if (!temp.containsKey(s.getPoint()))
-					temp.put(s.getPoint(), s);
-			}
-
-			p = p.previous;
-		} while (p != null);
-
-		return temp;
-	}
-
-	/**
-	 * Gets the current simulation's location
-	 * WARNING: This is slow so save the value and reuse it if possible
-	 * @return The player's current location
-	 */
-	public Point getLocation()
-	{
-		List<Space> temp = getPath();
-
-		return temp.get(temp.size() - 1).getPoint();
-	}
-
-	/**
-	 * Gets the current simulation path
-	 * This is calculated on the fly based on the previous paths on the chain
-	 * @return The current path
-	 */
-	public List<Space> getPath()
-	{
-		Stack<Path> backward = new Stack<>();		// Fills up the path backward on a stack
-
-		Path p = this;
-
-		do
-		{
-			backward.add(p);
-
-			p = p.previous;
-		} while (p != null);
-
-		List<Space> result = new ArrayList<>();
-
-		while (!backward.isEmpty())
-			// Pop them back off in the right order
-			result.addAll(backward.pop().path);
-
-		return result;
-	}
-
-	@Override
-	public String toString()
-	{
-		return "Path [path=" + path + "]";
-	}
-
-	/**
-	 * Gets the path's current size
-	 * This is saved so it is much faster that getPath().size()
-	 * @return The size of the path
-	 */
-	public int getPathSize()
-	{
-		return pathSize;
-	}
-
-	/**
-	 * Checks if two paths are equal
-	 * This is optimized to be very quick for comparisons when we check for duplicates in the brute force
-	 * @param qPath The first path
-	 * @param pPath The second path
-	 * @return True if they are equal; false otherwise
-	 */
-	public static boolean pathsEqual(List<Space> qPath, List<Space> pPath)
-	{
-		for (int i = qPath.size() - 1; i >= 0; i--)
-		{
-			if (!qPath.get(i).equals(pPath.get(i)))
-				return false;
-		}
-
-		return true;
-	}
-}
-
-/**
- * This class keeps track of maps as we learn them.
- * This way, we can take data we've learned in the past to help us make better decision in the future.
- * 
- * @author Daniel Centore
- *
- */
-class LearningTracker
-{
-	private int currentMap = -1;										// The current map we are playing
-	private List<HashMap<Point, Space>> maps = new ArrayList<>();		// A list of the known map for each game 
-	private List<Integer> bestCase = new ArrayList<>();					// The best move case we have encountered for each map
-
-	/**
-	 * Gets the next map to use for learning.
-	 * This will be copied for 'map' in {@link FieldMap}.
-	 * We will use a pointer to this for 'originalMap' in {@link FieldMap}. That way, we can just update the map seamlessly.
-	 * @return
-	 */
-	public HashMap<Point, Space> nextMap()
-	{
-		currentMap++;
-		if (currentMap >= Tournament.maps.length)
-		{
-			currentMap = 0;
-		}
-
-		if (maps.size() >= currentMap)
-			maps.add(new HashMap<Point, Space>());
-
-		return maps.get(currentMap);
-	}
-
-	/**
-	 * Gets the best encountered case for the current map
-	 * @return The best encountered number of moves or Integer.MAX_VALUE if we have not yet solved it
-	 */
-	public int getBestCase()
-	{
-		if (bestCase.size() <= currentMap)
-			bestCase.add(Integer.MAX_VALUE);
-
-		return bestCase.get(currentMap);
-	}
-
-	/**
-	 * Sets the best encountered case for the current map
-	 * @param i The number of moves to set it to
-	 */
-	public void setBestCase(int i)
-	{
-		bestCase.set(currentMap, i);
-	}
-}
-
-/**
- * Tools for processing maps which aren't part of {@link FieldMap} (ie those within paths)
- * 
- * @author Daniel Centore
- *
- */
-class MapUtils
-{
-	/**
-	 * Finds all unblocked spaces surrounding a space
-	 * @param map The map to look in
-	 * @param sp The space to look around
-	 * @param unexp What to represent "unknown" with
-	 * @return
-	 */
-	public static List<Space> findSurroundingSpaces(HashMap<Point, Space> map, Space sp, Space unexp)
-	{
-		List<Space> result = new ArrayList<>();
-
-		Point p = sp.getPoint();
-
-		// The spaces in each of the directions
-		Point n = new Point(p.x, p.y + 1);
-		Point s = new Point(p.x, p.y - 1);
-		Point e = new Point(p.x + 1, p.y);
-		Point w = new Point(p.x - 1, p.y);
-
-		Point[] points = { n, s, e, w };
-
-		boolean u = false;
-
-		for (Point g : points)
-		{
-			if (map.containsKey(g))
-			{
-				Space k = map.get(g);
-				if (k.getType() != BoxType.Blocked)
-					result.add(k);
-			}
-			else if (!u)		// If the space is not known and we have not yet added the unknown space, then add it
-			{
-				result.add(unexp);
-				u = true;
-			}
-		}
-
-		return result;
-	}
-}
\ No newline at end of file
+package com.csc2013;
+
+import java.awt.Point;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.Stack;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.csc2013.Dijkstras.GetKeyException;
+import com.csc2013.DungeonMaze.Action;
+import com.csc2013.DungeonMaze.BoxType;
+import com.csc2013.DungeonMaze.Direction;
+import com.csc2013.DungeonMaze.MoveType;
+
+/**
+ * 
+ * The Amity Regional High School Case Study Solution
+ * 
+ * Algorithm Outline:
+ * - If we have never found a solution to the current map
+ * 		- Look for the closest area in the map we have never been to
+ * 		- Go to it
+ * - If we have solved it before
+ * 		- Use a mixture of brute force and dijkstra's algorithm to find the bestish solution based on all our knowledge
+ * 
+ * @author Daniel Centore
+ *
+ */
+public class SchoolPlayer
+{
+	// Print out debug data?
+	public static final boolean VERBOSE = false;
+
+	// The data that we save across all runs
+	private static final LearningTracker LEARNING_TRACKER = new LearningTracker();
+
+	public FieldMap map = new FieldMap(LEARNING_TRACKER);		// The map for the current game
+	private Stack<Space> currentStack = null;					// The current stack of moves we're following
+	private int moves = 0;										// The number of moves we've taken so far
+	private boolean giveUp = false;								// True if we have issued any bad moves and want to give up
+	private Action unapplied = null;							// The action we returned last, applied to our map once the game has taken it
+	private final PlannerStats stats = new PlannerStats();		// What the planners did this game and how long each move took
+
+	/** 
+	 * Called by the GE code.
+	 * This just finds the action we want to take and returns it. It is applied to our map when we are asked for the next one.
+	 * 
+	 * @param vision Our current {@link PlayerVision} data
+	 * @param keyCount 
+	 * @param lastAction
+	 * @return Action
+	 */
+	public Action nextMove(final PlayerVision vision, final int keyCount, final boolean lastAction)
+	{
+		stats.makeCurrent();
+		long allocated = Allocations.current();
+		long start = System.nanoTime();
+		try
+		{
+			return decideNextMove(vision, keyCount, lastAction);
+		} finally
+		{
+			stats.recordDecision(System.nanoTime() - start);
+			stats.recordDecisionAllocation(Allocations.current() - allocated);
+			stats.sampleMap(map.getMap());
+		}
+	}
+
+	/**
+	 * Called by the GE code when it didn't use the action we returned last (we took too long to decide) and made another
+	 * move for us instead. Ours hasn't been applied to our map yet, so we swap it for theirs and work out our moves again
+	 * next time.
+	 * @param action The {@link Action} that was taken instead
+	 */
+	public void moveReplaced(Action action)
+	{
+		if (unapplied != null && unapplied != Action.Pickup)
+			moves--;		// Picking up a key isn't counted as a move
+		if (action != Action.Pickup)
+			moves++;
+
+		unapplied = action;
+		currentStack = null;
+	}
+
+	/**
+	 * Forgets every maze we've learned about in this run (anything saved to disk is loaded again when needed).
+	 * Used to replay recorded games from the same starting point more than once.
+	 */
+	static void forgetLearning()
+	{
+		LEARNING_TRACKER.forget();
+	}
+
+	/**
+	 * @return What the planners did during this game and how long each move took
+	 */
+	public PlannerStats getStats()
+	{
+		return stats;
+	}
+
+	/**
+	 * Applies the action we returned last to our map (the game has taken it if we've been asked for another), then finds the next one
+	 * 
+	 * @param vision Our current {@link PlayerVision} data
+	 * @param keyCount The number of keys we have
+	 * @param lastAction Whether our last action succeeded
+	 * @return Action
+	 */
+	private Action decideNextMove(PlayerVision vision, int keyCount, boolean lastAction)
+	{
+		if (!lastAction || giveUp)		// We failed, so let's just give up.
+		{
+			if (VERBOSE)
+				System.out.println("FAILED. JUST DOING RANDOM MOVES.");
+
+			giveUp = true;
+
+			return getSimpleAction(vision);
+		}
+
+		if (unapplied != null)
+			apply(unapplied);
+
+		// Request our next move from the program
+		try
+		{
+			unapplied = amityNextMove(vision, keyCount);
+		} catch (Throwable t)
+		{
+			// In case something goes horribly wrong, this is better than getting disqualified.
+			if (VERBOSE)
+				t.printStackTrace();
+
+			giveUp = true;
+			unapplied = null;
+
+			return getSimpleAction(vision);
+		}
+
+		return unapplied;
+	}
+
+	/**
+	 * Applies an action we took to our own map
+	 * @param action The {@link Action}
+	 */
+	private void apply(Action action)
+	{
+		switch (action)
+		{
+		case North:
+			map.applyMove(Direction.North);
+			break;
+
+		case South:
+			map.applyMove(Direction.South);
+			break;
+
+		case East:
+			map.applyMove(Direction.East);
+			break;
+
+		case West:
+			map.applyMove(Direction.West);
+			break;
+
+		case Pickup:
+			map.applyPickupKey();
+			break;
+
+		case Use:
+			map.applyOpenDoor();
+
+			if (currentStack != null && currentStack.size() >= 2 && currentStack.get(currentStack.size() - 2).getType() == BoxType.Door)
+				currentStack.get(currentStack.size() - 2).setType(BoxType.Open);	// The door is now open. Mark it as such and we'll walk to it next move.
+			break;
+		}
+	}
+
+	/**
+	 * Comes up with a legal move. This is the "everything else failed" plan, and the GE code's when we take too long.
+	 * @param vision The current vision
+	 * @return A legal {@link Action}
+	 */
+	public Action getSimpleAction(PlayerVision vision)
+	{
+		if (vision.CurrentPoint.NorthMove != MoveType.Blocked)
+			return Action.North;
+
+		if (vision.CurrentPoint.SouthMove != MoveType.Blocked)
+			return Action.South;
+
+		if (vision.CurrentPoint.EastMove != MoveType.Blocked)
+			return Action.East;
+
+		if (vision.CurrentPoint.WestMove != MoveType.Blocked)
+			return Action.West;
+
+		// This should never happen (then again, this method shouldn't be running at all either)
+		return Action.Use;
+	}
+
+	/**
+	 * Figures out the next move to take
+	 * 
+	 * @param vision The current {@link PlayerVision}
+	 * @param keyCount The number of keys we have
+	 * @return An {@link Action} to take
+	 */
+	public Action amityNextMove(PlayerVision vision, int keyCount)
+	{
+		boolean changed = map.fillVision(vision);	// Fill in any new data we learned from the vision
+
+		// Recalculate the best path if:
+		if (changed									// The map changed, or
+				|| currentStack == null				// The last iteration requested a recalculation, or
+				|| currentStack.size() < 2)			// We have no moves left!
+		{
+			stats.countReplan();
+
+			try
+			{
+				currentStack = new Dijkstras(keyCount, map).getNext();		// Request new move list
+
+			} catch (GetKeyException e)		// The algorithm requested that we pick up a key
+			{
+				currentStack = null;		// Force a recalculation next time.
+				return Action.Pickup;		// Pickup the key
+			}
+		}
+
+		// Pickup a key if we are on top of it
+		if (map.getMap().get(map.getLocation()).getType() == BoxType.Key)
+		{
+			return Action.Pickup;			// Pickup the key
+		}
+
+		moves++;		// Keep track of how many moves we've taken
+
+		// About to hit the exit. Save our best solved exit case time so far to improve future algorithm runtimes.
+		if (currentStack.get(currentStack.size() - 2).getType() == BoxType.Exit)
+		{
+			map.setBestCase(moves);
+		}
+
+		Action act = toAction(currentStack);		// Takes the next 2 positions and finds out what action is appropriate to take next
+		if (act != Action.Use)
+			currentStack.pop(); 		// Pop off our last movement (the door is marked open once we know we've opened it)
+
+		return act;
+	}
+
+	/**
+	 * Finds the direction between the next two moves on the stack and then the appropriate action to take based on this
+	 * 
+	 * @param toExit The move list
+	 * @throws RuntimeException If the stack is bad (ie The two moves are not consecutive)
+	 * @return The action appropriate to take (either moving in a direction or opening a door)
+	 */
+	private Action toAction(Stack<Space> toExit)
+	{
+		if (toExit.get(toExit.size() - 2).getType() == BoxType.Door)		// If next space is a door, open it
+			return Action.Use;
+
+		Point a = toExit.get(toExit.size() - 1).getPoint();		// The two points
+		Point b = toExit.get(toExit.size() - 2).getPoint();
+
+		// Find the direction between them
+		if (b.y - 1 == a.y)
+			return Action.North;
+		if (b.y + 1 == a.y)
+			return Action.South;
+		if (b.x - 1 == a.x)
+			return Action.East;
+		if (b.x + 1 == a.x)
+			return Action.West;
+
+		throw new RuntimeException("Bad stack: " + toExit.toString());
+	}
+}
+
+/**
+ * The map of the current game.
+ * Handles parsing vision data as well
+ * 
+ * @author Daniel Centore 
+ *
+ */
+class FieldMap
+{
+	// Map of how much we know of the maze
+	// This map is a running map of the *current* game
+	private HashMap<Point, Space> map = new HashMap<>();
+
+	// The known spaces we could walk onto (or open) which are next to somewhere we haven't been
+	private final HashSet<Point> frontier = new HashSet<>();
+
+	// The map packed into bitboards, and how far every space on it is from the frontier (worked out when first needed after the map changes)
+	private BitBoard board = null;
+	private int[] frontierDistances = null;
+
+	// The same map with its corridors contracted, for searching
+	private CorridorGraph corridors = new CorridorGraph(map);
+
+	// The same map divided into clusters, for searching very large mazes
+	private ClusterGraph clusters = new ClusterGraph(map, frontier);
+
+	// The regions of the same map we can walk around without opening a door
+	private RegionIndex regions = new RegionIndex(map);
+
+	// Map of the original maze
+	// As we collect data about the maze we add it here
+	// However, if we pick up a key or open a door, this new knowledge is not added
+	// This is so we can reuse the map in the future.
+	private HashMap<Point, Space> originalMap = new HashMap<>();
+
+	// Spaces added to originalMap which we haven't shared with the LearnedMaze yet
+	private List<Space> fresh = new ArrayList<>();
+
+	// What this game has added to the LearnedMaze, so it can be taken back out if it turns out to be the wrong maze
+	private List<Space> contributed = new ArrayList<>();
+	private int offeredBestCase = Integer.MAX_VALUE;		// The lowest best case we gave it (or MAX_VALUE)
+	private int replacedBestCase = Integer.MAX_VALUE;		// Its best case before we lowered it
+
+	// The spaces we have seen ourselves this game (everything else in the map came from a LearnedMaze)
+	private HashSet<Point> seen = new HashSet<>();
+
+	// The learned maze's snapshot which everything in originalMap is up to date with (or null)
+	private PackedMap synced = null;
+
+	// True if the map was thrown away and built again from what we've seen since the last vision
+	private boolean rebuilt = false;
+
+	// Player's current location
+	private Point location = new Point(0, 0);
+
+	// The best case we have encountered for this map so far (or Integer.MAX_VALUE if it has never been solved)
+	private int bestCase = Integer.MAX_VALUE;
+
+	private LearningTracker tracker;				// Keeps track of how much we know about every maze
+	private LearnedMaze learned = null;				// What we knew about this maze before the game (null until we know which maze it is)
+	private List<LearnedMaze> candidates = null;	// Mazes which still match everything we've seen (null until our first vision)
+
+	/**
+	 * Instantiates the {@link FieldMap}
+	 * @param lt The {@link LearningTracker} which keeps track of how much we know about the map already
+	 */
+	public FieldMap(LearningTracker lt)
+	{
+		tracker = lt;
+		tracker.newGame();
+	}
+
+	/**
+	 * Inserts all the data from 'data' that we don't already know into this.map without referencing any of the original objects.
+	 * Only the parts which changed since the last snapshot we took in are looked at.
+	 * @param data A packed map of the field
+	 */
+	private void updateData(PackedMap data)
+	{
+		for (Space s : data.addedSince(synced))
+		{
+			Point p = s.getPoint();
+			if (originalMap.containsKey(p))
+				continue;
+
+			originalMap.put(p, s);		// Put it in first so we don't share it right back
+
+			if (!map.containsKey(p))
+				saveSpace(s.getX(), s.getY(), s.getType());
+		}
+
+		synced = data;
+	}
+
+	/**
+	 * Shares everything we've learned since the last call with any other games on this maze
+	 * and picks up anything they learned in the meantime.
+	 * If what we've learned contradicts the maze, it's the wrong maze and we stop using it.
+	 */
+	private void share()
+	{
+		List<Space> conflicts = new ArrayList<>();
+		PackedMap shared = learned.merge(fresh, contributed, conflicts);
+
+		if (!conflicts.isEmpty())
+		{
+			forgetMaze();
+			return;
+		}
+
+		fresh.clear();
+		updateData(shared);
+	}
+
+	/**
+	 * Figures out which maze we are in based on what we've seen so far.
+	 * The first vision narrows it down to the mazes with the same layout around the start. After that, any maze which
+	 * contradicts something we've seen is dropped. If none are left it's a brand new maze, and as soon as only one is left
+	 * we use it. If it turns out to be a different maze which looked the same, {@link #share()} finds out and we stop.
+	 */
+	private void identifyMaze()
+	{
+		if (candidates == null)
+			candidates = tracker.getCandidates(fingerprint());
+
+		Iterator<LearnedMaze> itr = candidates.iterator();
+		while (itr.hasNext())
+		{
+			if (!itr.next().isConsistent(originalMap))
+				itr.remove();
+		}
+
+		if (candidates.isEmpty())
+			attach(tracker.create(fingerprint()));
+		else if (candidates.size() == 1)
+			attach(candidates.get(0));
+	}
+
+	/**
+	 * Starts using (and adding to) what we learned about a maze in previous games
+	 * @param maze The maze we are in
+	 */
+	private void attach(LearnedMaze maze)
+	{
+		learned = maze;
+		candidates = null;
+		bestCase = learned.getBestCase();
+
+		share();		// Shares what we've seen so far and deep copies how much we know about the map already
+	}
+
+	/**
+	 * Stops using the learned maze because something we can see contradicts it: it was a different maze which looked the same.
+	 * Whatever we added to it (spaces and best case) is taken back out, so it doesn't keep spaces from our maze or save them.
+	 * Everything we loaded from it is thrown away and the map is built again from the spaces we've seen (as they are now,
+	 * with our keys picked up and doors opened). The maze is then identified again. Ours won't match the wrong one anymore
+	 * so it will be another one or a brand new maze.
+	 */
+	private void forgetMaze()
+	{
+		HashMap<Point, Space> oldMap = map;
+		HashMap<Point, Space> oldOriginal = originalMap;
+
+		if (learned != null)
+			learned.withdraw(contributed, offeredBestCase, replacedBestCase);
+		contributed.clear();
+		offeredBestCase = Integer.MAX_VALUE;
+		replacedBestCase = Integer.MAX_VALUE;
+
+		learned = null;
+		candidates = null;
+		synced = null;
+		bestCase = Integer.MAX_VALUE;
+		rebuilt = true;
+
+		map = new HashMap<>();
+		originalMap = new HashMap<>();
+		fresh.clear();
+		frontier.clear();
+		corridors = new CorridorGraph(map);
+		clusters = new ClusterGraph(map, frontier);
+		regions = new RegionIndex(map);
+		forgetBoard();
+
+		for (Point p : seen)
+		{
+			Space original = new Space(p.x, p.y, oldOriginal.get(p).getType());
+			originalMap.put(p, original);
+			fresh.add(original);
+
+			saveSpace(p.x, p.y, oldMap.get(p).getType());
+		}
+	}
+
+	/**
+	 * Hashes the spaces around the start which are visible with even the shortest vision distance:
+	 * the start, its neighbors, and the neighbors of any neighbor we can walk onto.
+	 * @return The fingerprint of the maze
+	 */
+	private long fingerprint()
+	{
+		long hash = 0xcbf29ce484222325L;		// 64-bit FNV-1a
+
+		for (Point d : MapUtils.DIRECTIONS)
+		{
+			Space near = map.get(d);
+			hash = (hash ^ code(near)) * 0x100000001b3L;
+
+			if (near == null || (near.getType() != BoxType.Open && near.getType() != BoxType.Key))
+				continue;
+
+			for (Point e : MapUtils.DIRECTIONS)
+				hash = (hash ^ code(map.get(new Point(d.x + e.x, d.y + e.y)))) * 0x100000001b3L;
+		}
+
+		return hash;
+	}
+
+	/**
+	 * Gets a small number representing the type of a space for hashing
+	 * @param sp The space (or null if unknown)
+	 * @return 0 for unknown; otherwise the {@link BoxType}'s ordinal + 1
+	 */
+	private static int code(Space sp)
+	{
+		return sp == null ? 0 : sp.getType().ordinal() + 1;
+	}
+
+	/**
+	 * Fills in our map with as much information as can be derived from the {@link PlayerVision}
+	 * @param vision The {@link PlayerVision} we are pulling info from
+	 * @return True if the map changed (we learned something or it was built again); False otherwise
+	 */
+	public boolean fillVision(PlayerVision vision)
+	{
+		int oldMapSize = map.size();
+		rebuilt = false;
+
+		// Current square
+		fillSurrounding(vision.CurrentPoint, location.x, location.y);
+
+		// North
+		for (int i = 0; i < vision.mNorth; i++)
+			fillSurrounding(vision.North[i], location.x, location.y + i + 1);
+
+		// South
+		for (int i = 0; i < vision.mSouth; i++)
+			fillSurrounding(vision.South[i], location.x, location.y - i - 1);
+
+		// East
+		for (int i = 0; i < vision.mEast; i++)
+			fillSurrounding(vision.East[i], location.x + i + 1, location.y);
+
+		// West
+		for (int i = 0; i < vision.mWest; i++)
+			fillSurrounding(vision.West[i], location.x - i - 1, location.y);
+
+		if (learned == null)
+			identifyMaze();
+		else if (!fresh.isEmpty())
+			share();
+
+		return rebuilt || map.size() != oldMapSize;
+	}
+
+	/**
+	 * Fills in information of all the squares surrounding a {@link MapBox}
+	 * @param box The {@link MapBox} to extract the info from. Must be either Open or a Key.
+	 * @param x X coordinate of the square
+	 * @param y Y coordinate of the square
+	 */
+	private void fillSurrounding(MapBox box, int x, int y)
+	{
+		BoxType type = BoxType.Open; 	// Assume it's open as we only get spaces that we can walk on
+
+		if (box.hasKey()) 			// If it has a key mark it as a key
+			type = BoxType.Key;
+
+		// Save the original space
+		see(x, y, type);
+
+		// Now save the surroundings
+		see(x, y + 1, box.North);
+		see(x, y - 1, box.South);
+		see(x + 1, y, box.East);
+		see(x - 1, y, box.West);
+	}
+
+	/**
+	 * Saves a space we can see. If we only knew it from a learned maze and it's different, we're in the wrong maze.
+	 * @param x X coordinate of the {@link Space}
+	 * @param y Y coordinate of the {@link Space}
+	 * @param type The type of space it is
+	 */
+	private void see(int x, int y, BoxType type)
+	{
+		Point p = new Point(x, y);
+		Space sp = map.get(p);
+
+		if (sp != null && sp.getType() != type && !seen.contains(p))
+			forgetMaze();
+
+		seen.add(p);
+		saveSpace(x, y, type);
+	}
+
+	/**
+	 * If a space already exists, verify that it is correct.
+	 * If it doesn't, add it
+	 * 
+	 * @throws RuntimeException If the space already exists and the previous type contrasts with the new one
+	 * 
+	 * @param x X coordinate of the {@link Space}
+	 * @param y Y coordinate of the {@link Space}
+	 * @param type The type of space it is
+	 * 
+	 * @return The {@link Space} which either already existed in the map or which we added.
+	 */
+	private Space saveSpace(int x, int y, BoxType type)
+	{
+		Point p = new Point(x, y);
+
+		if (map.containsKey(p))		// If the point already exists
+		{
+			Space sp = map.get(p);
+
+			if (sp.getType() != type)	// The new one we want to add contrasts with the already existing one
+				throw new RuntimeException("Expected type " + sp + " at " + p.x + "," + p.y + " but asked to save " + type);
+
+			return sp;
+		}
+		else
+		{
+			if (!originalMap.containsKey(p))		// add the space as it existed in the original map to the learned map
+			{
+				Space original = new Space(x, y, type);
+				originalMap.put(p, original);
+				fresh.add(original);
+			}
+
+			Space sp = new Space(x, y, type);		// add the new space
+			map.put(p, sp);
+			forgetBoard();
+			updateFrontier(p);
+			corridors.added(x, y);
+			clusters.added(x, y);
+			regions.added(x, y);
+
+			return sp;
+		}
+	}
+
+	/**
+	 * Updates the frontier after a space is added to the map. Only the space and its neighbors can have changed.
+	 * @param p The location of the new space
+	 */
+	private void updateFrontier(Point p)
+	{
+		checkFrontier(p);
+		for (Point d : MapUtils.DIRECTIONS)
+			checkFrontier(new Point(p.x + d.x, p.y + d.y));
+	}
+
+	/**
+	 * Adds a space to the frontier or takes it off depending on whether it's still next to somewhere we haven't been
+	 * @param p The location of the space
+	 */
+	private void checkFrontier(Point p)
+	{
+		Space sp = map.get(p);
+
+		if (sp != null && sp.getType() != BoxType.Blocked && MapUtils.bordersUnexplored(map, sp))
+			frontier.add(p);
+		else
+			frontier.remove(p);
+	}
+
+	/**
+	 * Lets the map know that we moved in a direction and updates the location accordingly 
+	 * @param dir The {@link Direction} we moved in
+	 */
+	public void applyMove(Direction dir)
+	{
+		switch (dir)
+		{
+		case North:
+			location = new Point(location.x, location.y + 1);
+			break;
+
+		case South:
+			location = new Point(location.x, location.y - 1);
+			break;
+
+		case East:
+			location = new Point(location.x + 1, location.y);
+			break;
+
+		case West:
+			location = new Point(location.x - 1, location.y);
+			break;
+		}
+	}
+
+	/**
+	 * Lets the map know we just picked up a key on the space we're on.
+	 */
+	public void applyPickupKey()
+	{
+		map.get(location).setType(BoxType.Open);
+		forgetBoard();
+	}
+
+	/**
+	 * Lets the map know we just opened a door.
+	 */
+	public void applyOpenDoor()
+	{
+		Point p = new Point();
+		Space sp;
+
+		// Look around us and open any doors (there should theoretically only be 1)
+
+		// North
+		p.x = location.x;
+		p.y = location.y + 1;
+		if (map.containsKey(p) && (sp = map.get(p)).getType() == BoxType.Door)
+			sp.setType(BoxType.Open);
+
+		// South
+		p.x = location.x;
+		p.y = location.y - 1;
+		if (map.containsKey(p) && (sp = map.get(p)).getType() == BoxType.Door)
+			sp.setType(BoxType.Open);
+
+		// East
+		p.x = location.x + 1;
+		p.y = location.y;
+		if (map.containsKey(p) && (sp = map.get(p)).getType() == BoxType.Door)
+			sp.setType(BoxType.Open);
+
+		// West
+		p.x = location.x - 1;
+		p.y = location.y;
+		if (map.containsKey(p) && (sp = map.get(p)).getType() == BoxType.Door)
+			sp.setType(BoxType.Open);
+
+		// The door joins the regions on either side of it (it may have been marked open already)
+		for (Point d : MapUtils.DIRECTIONS)
+			regions.opened(new Point(location.x + d.x, location.y + d.y));
+
+		forgetBoard();
+	}
+
+	/**
+	 * Throws away the bitboards after the map changes. They're built again when next needed.
+	 */
+	private void forgetBoard()
+	{
+		board = null;
+		frontierDistances = null;
+	}
+
+	/**
+	 * Gets the entire map. The key is the {@link Point} the {@link Space} is located on relative to (0,0) being the initial position.
+	 * North, South, East, and West are +y,-y,+x,-x respectively. Please do not edit the map.
+	 * @return The map.
+	 */
+	public HashMap<Point, Space> getMap()
+	{
+		return map;
+	}
+
+	/**
+	 * Gets the map with its corridors contracted. It is kept up to date as the map grows.
+	 * @return The graph
+	 */
+	public CorridorGraph getCorridors()
+	{
+		return corridors;
+	}
+
+	/**
+	 * Gets the map divided into clusters. It is kept up to date as the map grows.
+	 * @return The graph
+	 */
+	public ClusterGraph getClusters()
+	{
+		return clusters;
+	}
+
+	/**
+	 * Gets the regions of the map we can walk around without opening a door. They're kept up to date as the map grows
+	 * and doors are opened.
+	 * @return The index
+	 */
+	public RegionIndex getRegions()
+	{
+		return regions;
+	}
+
+	/**
+	 * Gets the frontier: every known space we could walk onto (or open) which is next to somewhere we haven't been.
+	 * It is kept up to date as the map grows. Please do not edit it.
+	 * @return The locations of the frontier spaces
+	 */
+	public Set<Point> getFrontier()
+	{
+		return Collections.unmodifiableSet(frontier);
+	}
+
+	/**
+	 * Checks if a space is on the frontier
+	 * @param p The location of the space
+	 * @return True if it is known, not blocked and next to somewhere we haven't been; False otherwise
+	 */
+	public boolean isFrontier(Point p)
+	{
+		return frontier.contains(p);
+	}
+
+	/**
+	 * Gets the map packed into bitboards. This is only built again after the map changes. Please do not edit it.
+	 * @return The bitboards
+	 */
+	public BitBoard getBoard()
+	{
+		if (board == null)
+			board = new BitBoard(map);
+
+		return board;
+	}
+
+	/**
+	 * Finds how far every space is from the nearest frontier space, walking through doors as if they were open.
+	 * This is only worked out again after the map changes. Please do not edit the result.
+	 * @return The distance to each space, looked up with {@link BitBoard#distance(int[], Point)} on {@link #getBoard()}
+	 */
+	public int[] getFrontierDistances()
+	{
+		if (frontierDistances == null)
+			frontierDistances = getBoard().distancesFrom(getBoard().getFrontier(), true);
+
+		return frontierDistances;
+	}
+
+	/**
+	 * Our player's current location relative to (0,0) being their initial position.
+	 * @return Their location
+	 */
+	public Point getLocation()
+	{
+		return location;
+	}
+
+	/**
+	 * Get's the best number of moves we've encountered so far for the map.
+	 * Be careful because since this can be Integer.MAX_VALUE you need to watch out for overflow
+	 * @return The number of moves (or Integer.MAX_VALUE if it has never been solved)
+	 */
+	public int getBestCase()
+	{
+		return bestCase;
+	}
+
+	/**
+	 * Saves a new best case for this maze
+	 * @param i The number of moves
+	 */
+	public void setBestCase(int i)
+	{
+		bestCase = Math.min(bestCase, i);
+
+		if (learned == null)		// We still don't know which maze this is, so there's nowhere to keep it
+			return;
+
+		int replaced = learned.offerBestCase(i);
+		if (replaced > i)
+		{
+			if (offeredBestCase == Integer.MAX_VALUE)
+				replacedBestCase = replaced;
+			offeredBestCase = i;
+		}
+	}
+
+}
+
+/**
+ * Represents a single space on the board
+ * 
+ * @author Daniel Centore
+ *
+ */
+class Space
+{
+	private BoxType type; // type of space we are
+
+	// The (x,y) coordinate of this space
+	private final int x;
+	private final int y;
+
+	// Just a Point representation of (x,y) for quick access
+	private final Point point;
+
+	// True if this Space is representing all spaces we haven't been to yet 
+	private boolean unexplored = false;
+
+	// == Dijkstra's algorithm Variables == //
+	private int length;						// The distance of this Space from root
+	private boolean removed = false;		// Whether or not this space has been removed
+	private Space previous = null;			// The previous space on the chain back to root
+	private int order;						// Where this space comes in the map being searched (for breaking ties)
+
+	/**
+	 * Creates a space
+	 * @param x X coordinate of the space
+	 * @param y Y coordinate of the space
+	 * @param type The {@link BoxType} of the space.
+	 */
+	public Space(int x, int y, BoxType type)
+	{
+		this.x = x;
+		this.y = y;
+		this.type = type;
+
+		point = new Point(x, y);
+	}
+
+	/**
+	 * Gets the current {@link BoxType} of this space
+	 * @return The type of space we are representing
+	 */
+	public BoxType getType()
+	{
+		return type;
+	}
+
+	/**
+	 * Sets the type of this space.
+	 * You should really only be setting this to empty after opening a door or picking up a key.
+	 * @param type The {@link BoxType} to set it to.
+	 */
+	public void setType(BoxType type)
+	{
+		this.type = type;
+	}
+
+	/**
+	 * Gets the X coordinate of the space
+	 * @return The X coordinate
+	 */
+	public int getX()
+	{
+		return x;
+	}
+
+	/**
+	 * Gets the Y coordinate of the space
+	 * @return The Y coordinate
+	 */
+	public int getY()
+	{
+		return y;
+	}
+
+	/**
+	 * Gets the position of the point as a {@link Point}
+	 * @return The position
+	 */
+	public Point getPoint()
+	{
+		return point;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "Space [type=" + type + ", x=" + x + ", y=" + y + ", removed=" + removed + "]";
+	}
+
+	/**
+	 * Override the hashcode and equals so that two Spaces are considered equal whenever they are located in the same position
+	 * This is to make things easier when referencing them in HashMaps and the like
+	 */
+
+	@Override
+	public int hashCode()
+	{
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + x;
+		result = prime * result + y;
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		Space other = (Space) obj;
+		if (x != other.x)
+			return false;
+		if (y != other.y)
+			return false;
+		return true;
+	}
+
+	/**
+	 * Finds the current distance of the space from root
+	 * @return  The length
+	 */
+	public int getLength()
+	{
+		return length;
+	}
+
+	/**
+	 * Sets the current distance of the space from root
+	 * @param length The length
+	 */
+	public void setLength(int length)
+	{
+		this.length = length;
+	}
+
+	/**
+	 * Checks if the space has been visited/removed from the graph
+	 * @return True if it has been removed; False otherwise
+	 */
+	public boolean isRemoved()
+	{
+		return removed;
+	}
+
+	/**
+	 * Sets if the space has been visited/removed from the graph
+	 * @param removed True if it has been removed; False otherwise
+	 */
+	public void setRemoved(boolean removed)
+	{
+		this.removed = removed;
+	}
+
+	/**
+	 * Gets the previous space on the chain back to the root node
+	 * @return The previous space or null if this is root
+	 */
+	public Space getPrevious()
+	{
+		return previous;
+	}
+
+	/**
+	 * Sets the previous space on the chain back to root
+	 * @param previous The space to set it to
+	 */
+	public void setPrevious(Space previous)
+	{
+		this.previous = previous;
+	}
+
+	/**
+	 * Gets where this space came in the map the last time it was searched
+	 * @return The position
+	 */
+	public int getOrder()
+	{
+		return order;
+	}
+
+	/**
+	 * Sets where this space comes in the map being searched. Of two equally short paths, searches take the one through
+	 * spaces that come later.
+	 * @param order The position
+	 */
+	public void setOrder(int order)
+	{
+		this.order = order;
+	}
+
+	/**
+	 * Is this space a marker for unexplored territory?
+	 * @return True if it is; False otherwise
+	 */
+	public boolean isUnexplored()
+	{
+		return unexplored;
+	}
+
+	/**
+	 * Sets whether or not this space is a marker for unexplored territory
+	 * @param unexplored True if it is; False otherwise
+	 */
+	public void setUnexplored(boolean unexplored)
+	{
+		this.unexplored = unexplored;
+	}
+}
+
+/**
+ * Uses Dijkstra's pathfinding algorithm to find the shortest route between 2 nodes.
+ * This class also handles finding the next path to take.
+ * 
+ * @author Daniel Centore
+ *
+ */
+class Dijkstras
+{
+	/**
+	 * This exception is used to tell the {@link SchoolPlayer} that we want to pick up a key rather than
+	 * follow a path.
+	 */
+	class GetKeyException extends Exception
+	{
+		private static final long serialVersionUID = 1L;
+	}
+
+	private int keys;							// How many keys we have right now
+	private Point location;						// The player's current location
+	private HashMap<Point, Space> map;			// The player's current map
+	private int bestCase;						// The best case the player has encountered in this map
+	private FieldMap source;					// The FieldMap our map was simulated from (or null), for its graphs and frontier
+
+	// Which search to use: "corridor" searches the FieldMap's CorridorGraph when we have one, "hpa" its ClusterGraph,
+	// "jps" uses JumpPointSearch and "grid" searches every space like we used to
+	static final String PLANNER = System.getProperty("amity.planner", "corridor");
+
+	// The space that represents somewhere we haven't been to yet. It is never put in the map, paths to it end next to the frontier.
+	private static final Space UNEXP;
+	static
+	{
+		UNEXP = new Space(Integer.MAX_VALUE, Integer.MAX_VALUE, null);
+		UNEXP.setUnexplored(true);
+		UNEXP.setLength(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Creates an instance of the Dijkstra's algorithm solver
+	 * @param keys Number of keys the player has
+	 * @param map The current {@link FieldMap} from which we extract other data
+	 */
+	public Dijkstras(int keys, FieldMap map)
+	{
+		this(keys, map.getLocation(), map.getMap(), map.getBestCase(), map);
+	}
+
+	/**
+	 * Creates an instance of the Dijkstra's algorithm solver
+	 * @param keys Number of keys the player has
+	 * @param location The player's current location
+	 * @param map The player's current map
+	 * @param bestCase The best case the player has encountered in this map
+	 */
+	public Dijkstras(int keys, Point location, HashMap<Point, Space> map, int bestCase)
+	{
+		this(keys, location, map, bestCase, null);
+	}
+
+	/**
+	 * Creates an instance of the Dijkstra's algorithm solver which uses the graphs and frontier of a {@link FieldMap}
+	 * @param keys Number of keys the player has
+	 * @param location The player's current location
+	 * @param map The player's current map
+	 * @param bestCase The best case the player has encountered in this map
+	 * @param source The {@link FieldMap} map was simulated from (or null to search every space)
+	 */
+	public Dijkstras(int keys, Point location, HashMap<Point, Space> map, int bestCase, FieldMap source)
+	{
+		this.keys = keys;
+		this.location = location;
+		this.map = map;
+		this.bestCase = bestCase;
+		this.source = source;
+	}
+
+	/**
+	 * Figures out which path to take next.
+	 * @return A {@link Stack} which gives you the moves you should take in order.
+	 * 			The first and last elements are where you are and where you want to be, respectively. 
+	 * @throws GetKeyException If we want you to pick up a key instead of following a path
+	 */
+	public Stack<Space> getNext() throws GetKeyException
+	{
+		// Find shortest path to an exit. Take it if it exists.
+		// This uses a brute force to try to find the very most ideal path
+		try
+		{
+			// Check to see if we even know about the existence of an exit
+			boolean hasExit = false;
+			for (Space s : map.values())
+			{
+				if (s.getType() == BoxType.Exit)
+				{
+					hasExit = true;
+					break;
+				}
+			}
+
+			// If we know about an exit, try to find the best path to it
+			if (hasExit)
+			{
+
+				Stack<Space> toExit = new BruteForcePathfinder(keys, location, map, bestCase, source).toType(BoxType.Exit);
+				if (toExit != null)
+					return toExit;
+			}
+		} catch (Throwable e)
+		{
+			// If the brute force algorithm fails (unexpectedly) then fall back on this algorithm
+			if (SchoolPlayer.VERBOSE)
+				e.printStackTrace();
+		}
+
+		// If standing on key, grab it
+		if (map.get(location).getType() == BoxType.Key)
+			throw new GetKeyException();
+
+		// Grab keys if we need them and they are nearby
+		Stack<Space> toCloseKey = shortestToType(location, BoxType.Key);
+		if (toCloseKey != null)
+		{
+			int dist = toCloseKey.size();
+
+			dist -= 1;		// don't include the space we're on
+
+			if (keys == 0 && dist <= 7)
+				return toCloseKey;
+			else if (keys == 1 & dist <= 3)
+				return toCloseKey;
+		}
+
+		// == Find shortest path to an unexplored area ==
+		Stack<Space> toUnknown = new BruteForcePathfinder(keys, location, map, Integer.MAX_VALUE, source).toType(null);
+
+		if (toUnknown == null)
+		{
+			String s = "This map is seemingly impossible to solve in the current state.\n" +
+					"We've explored all unexplored areas and used all available key+door combinations.\n" +
+					"This usually means the map has some sort of flaw in it which permits one to use\n" +
+					"all of the map's keys but still have some doors locked.";
+
+			throw new RuntimeException(s);
+		}
+
+		return toUnknown;		// Return the shortest path
+	}
+
+	/**
+	 * Returns the shortest path to a type
+	 * Special Case: If the start point IS of type type, then it returns NULL!
+	 * @param start The initial point
+	 * @param type The type of space we want to go to
+	 * @return The shortest path to the closest space of the requested type
+	 */
+	public Stack<Space> shortestToType(Point start, BoxType type)
+	{
+		return shortestToType(start, type, null);
+	}
+
+	/**
+	 * Returns the shortest path to a space
+	 * @param start The initial point
+	 * @param goal The space we want to go to
+	 * @return The shortest path to the requested space
+	 */
+	public Stack<Space> shortestToType(Point start, Space goal)
+	{
+		Stack<Space> stack = shortestToType(goal.getPoint(), null, map.get(start));
+		if (stack == null)
+			return null;
+
+		Stack<Space> result = new Stack<>();		// checks in reverse order (fails faster
+
+		while (!stack.isEmpty())
+			result.add(stack.pop());
+
+		return result;
+	}
+
+	/**
+	 * Finds the shortest path from a {@link Point} to a goal using Dijkstra's algorithm.
+	 * The goal can be either a certain type of space (like unexplored, door, key) or to a specific space (like 2,5)
+	 * 
+	 * @param start The starting {@link Point}
+	 * @param type The {@link BoxType} we are looking for. Set to null if you want unexplored or to use the {@link Space} goal instead.
+	 * @param goal The {@link Space} goal we want to go to. Set to null to use the {@link BoxType} goal.
+	 * 
+	 * @return The {@link Stack} of moves to follow. The first element will be the {@link Space} on {@link Point} and the last element is the goal.
+	 * 			This can be null if there is no possible path.
+	 */
+	private Stack<Space> shortestToType(Point start, BoxType type, Space goal)
+	{
+		PlannerStats.current().countShortestToType();
+
+		if (PLANNER.equals("jps"))
+			return new JumpPointSearch(map, type, goal, UNEXP, source == null ? null : source.getFrontier()).shortestFrom(start);
+
+		if (source != null && PLANNER.equals("hpa"))
+			return source.getClusters().shortestToType(map, start, type, goal, UNEXP);
+
+		if (source != null && PLANNER.equals("corridor"))
+			return source.getCorridors().shortestToType(map, start, type, goal, UNEXP);
+
+		List<Space> unremoved = new ArrayList<>();		// All spaces that have not been visited by Dijkstra's
+		List<Space> removed = new ArrayList<>();		// All spaces that have been visited
+
+		// Add all non-blocked spaces to the algorithm list
+		for (Space k : map.values())
+		{
+			if (k.getType() != BoxType.Blocked)
+				unremoved.add(k);
+		}
+
+		boolean unexplored = (type == null && goal == null);
+		if (unexplored)		// Add unknown as a possible goal
+			unremoved.add(UNEXP);
+
+		// Clear out the pathfinding data in those nodes
+		reset(start, unremoved);
+
+		while (true)
+		{
+			// Is the goal still in the graph?
+			for (Space sw : removed)
+			{
+				if ((goal != null && !sw.isUnexplored() && sw.equals(goal))				// If we found the Space goal, or
+						|| (goal == null && !sw.isUnexplored() && sw.getType() == type)	// If we found the type goal,  or
+						|| (goal == null && sw.isUnexplored() && type == null)			// If we found the type goal (for unexplored)
+				)
+				{
+					// Generate a stack of the path and return it
+					// This is based on the backward linking of one node in the path to the next
+					Stack<Space> fullPath = new Stack<>();
+
+					Space path = sw;
+					do
+					{
+						fullPath.push(path);
+						path = path.getPrevious();
+
+					} while (path != null);
+
+					if (fullPath.size() <= 1) // Need to be at least 2 elements to be a path, otherwise we've got a dud.
+						return null;
+
+					return fullPath;
+				}
+			}
+
+			// Choose the vertex with the least distance
+			Space min = min(unremoved);
+
+			if (min == null) 	// No possible path to our goal
+				return null;
+
+			// Remove it from the graph (or "mark it as visited")
+			min.setRemoved(true);
+			removed.add(min);
+			unremoved.remove(min);
+
+			if (min != null)
+			{
+				// Calculate distances between the vertex with the smallest distance and neighbors still in the graph
+				List<Space> next = MapUtils.findSurroundingSpaces(map, min);
+				if (unexplored && isFrontier(min))
+					next.add(UNEXP);
+
+				for (Space sp : next)
+				{
+					if (sp.isRemoved())			// Ignore the item if we've already visited it
+						continue;
+
+					// Ignore null spaces unless we are actually looking for unexplored areas
+					if ((sp.isUnexplored()) && (type != null || goal != null))
+						continue;
+
+					// Don't include doors if we are not looking for a door
+					if (sp.getType() == BoxType.Door && type != BoxType.Door && !sp.equals(goal))
+						continue;
+
+					int length = min.getLength() + 1; 		// Difficulty for getting anywhere is 1
+
+					// If this is the shortest path to the node so far, label it as such.
+					if (length < sp.getLength())
+					{
+						sp.setLength(length);
+						sp.setPrevious(min);
+					}
+				}
+			}
+
+			// Time for another iteration of the while loop....
+		}
+	}
+
+	/**
+	 * Checks if a space is next to somewhere we haven't been, using the frontier of the {@link FieldMap} if we have it
+	 * @param sp The space
+	 * @return True if it is; False otherwise
+	 */
+	private boolean isFrontier(Space sp)
+	{
+		if (source != null)
+			return source.isFrontier(sp.getPoint());
+
+		return MapUtils.bordersUnexplored(map, sp);
+	}
+
+	/**
+	 * Find the element in the collection with the shortest length.
+	 * 
+	 * @param collection The {@link Collection} of nodes
+	 * @return The {@link Space} with the smallest value.
+	 */
+	private Space min(Collection<Space> collection)
+	{
+		Space shortest = null;
+		Iterator<Space> itr = collection.iterator();
+
+		while (itr.hasNext())
+		{
+			Space next = itr.next();
+
+			if (shortest == null || shortest.getLength() > next.getLength())
+				shortest = next;
+			else if (shortest.getLength() == next.getLength())
+				shortest = next;
+		}
+
+		if (shortest == null || shortest.getLength() == Integer.MAX_VALUE)		// The 'shortest' path is impossible to get to.
+		{
+			return null;
+		}
+
+		return shortest;
+	}
+
+	/**
+	 * Resets all the {@link Space}s in terms of the temporary pathfinding variables
+	 * @param start The point which will have an initial length of 0 for this algorithm run
+	 * @param parts The {@link List} to go through
+	 */
+	private void reset(Point start, List<Space> parts)
+	{
+		for (Space s : parts)
+		{
+			if (s == null)
+				continue;
+
+			int dist = Integer.MAX_VALUE;
+			if (s.getPoint().equals(start))
+				dist = 0;
+
+			s.setLength(dist);
+			s.setRemoved(false);
+			s.setPrevious(null);
+		}
+	}
+
+	/**
+	 * Collects a {@link List} of all the {@link Space}s in our map which are not blocked.
+	 * This function includes doors.
+	 * @return The list
+	 */
+	public List<Space> getUnblockedSpaces()
+	{
+		ArrayList<Space> result = new ArrayList<>();
+
+		for (Space sp : map.values())
+		{
+			if (sp.getType() != BoxType.Blocked)
+				result.add(sp);
+		}
+
+		return result;
+	}
+
+}
+
+/**
+ * The learned map with its corridors contracted, for {@link Dijkstras} to search instead of every single space.
+ * 
+ * The nodes are the spaces where something can happen: junctions, dead ends, keys, doors, the exit and spaces next to
+ * somewhere we haven't been. Every other space is a corridor space (open, every neighbor known and exactly 2 of them
+ * walkable) and the nodes are joined by the corridors between them, weighted by their length. Corridors are walked
+ * back into spaces only for the route that is chosen.
+ * 
+ * Picking up keys and opening doors only ever turns spaces Open, so keys and doors are always nodes and the same graph
+ * works for the {@link FieldMap} and every {@link Path} simulated from it. It is kept up to date as the
+ * {@link FieldMap} learns spaces: only the spaces around a new one are looked at again.
+ * 
+ * @author Daniel Centore
+ *
+ */
+class CorridorGraph
+{
+	// North, South, East and West, in the same order as MapUtils.DIRECTIONS
+	private static final int[] DX = { 0, 0, 1, -1 };
+	private static final int[] DY = { 1, -1, 0, 0 };
+	private static final int[] OPPOSITE = { 1, 0, 3, 2 };
+
+	// Markers used in place of a node number when building the route back
+	private static final int SOURCE = -1;		// Came straight from the start
+	private static final int NONE = -2;			// Not reached
+
+	private final HashMap<Point, Space> map;					// The map of the game we're contracting
+	private final HashMap<Point, Node> nodes = new HashMap<>();	// The nodes by location
+	private final ArrayList<Node> byId = new ArrayList<>();		// The nodes by number (null once a node turns into a corridor)
+	private final ArrayList<Node> dirty = new ArrayList<>();	// Nodes whose corridors need to be walked again
+
+	/**
+	 * A space where corridors meet or end
+	 */
+	private static class Node
+	{
+		final Point point;
+		final int id;
+		final Node[] end = new Node[4];			// The node at the other end of the corridor leaving in each direction (or null)
+		final int[] length = new int[4];		// How long each of those corridors is
+		boolean frontier;						// True if we've never seen one of the spaces next to it
+		boolean dirty;
+		boolean removed;
+
+		Node(Point point, int id)
+		{
+			this.point = point;
+			this.id = id;
+		}
+	}
+
+	/**
+	 * The result of following a corridor
+	 */
+	private static class Walk
+	{
+		Point end;			// Where it stopped
+		int length;			// How many steps it took
+		int direction;		// The direction of the last step
+	}
+
+	/**
+	 * Creates the graph of a map
+	 * @param map The map to contract. Call {@link #added(int, int)} for every space put in it.
+	 */
+	public CorridorGraph(HashMap<Point, Space> map)
+	{
+		this.map = map;
+
+		for (Space sp : map.values())
+		{
+			if (!sp.isUnexplored())
+				added(sp.getX(), sp.getY());
+		}
+	}
+
+	/**
+	 * Lets the graph know a space has been added to the map
+	 * @param x X coordinate of the space
+	 * @param y Y coordinate of the space
+	 */
+	public void added(int x, int y)
+	{
+		reclassify(new Point(x, y));
+
+		for (int d = 0; d < 4; d++)
+			reclassify(new Point(x + DX[d], y + DY[d]));
+	}
+
+	/**
+	 * Works out whether a space is a node or part of a corridor and marks everything that depends on it for updating
+	 * @param p The location of the space
+	 */
+	private void reclassify(Point p)
+	{
+		Space sp = map.get(p);
+		if (sp == null || sp.getType() == BoxType.Blocked)
+			return;
+
+		Node node = nodes.get(p);
+
+		if (isCorridor(p, sp))
+		{
+			if (node != null)		// The last unknown space next to it was found
+			{
+				nodes.remove(p);
+				byId.set(node.id, null);
+				node.removed = true;
+			}
+		}
+		else if (node == null)
+		{
+			node = new Node(p, byId.size());
+			nodes.put(p, node);
+			byId.add(node);
+			markDirty(node);
+		}
+		else
+			markDirty(node);
+
+		// The nodes at the ends of the corridors through here have changed too
+		for (int d = 0; d < 4; d++)
+		{
+			Walk w = walk(p, d, p);
+			if (w != null && !w.end.equals(p))
+				markDirty(nodes.get(w.end));
+		}
+	}
+
+	/**
+	 * @param p The location of the space
+	 * @param sp The space
+	 * @return True if the space is an Open space with every neighbor known and exactly 2 walkable neighbors
+	 */
+	private boolean isCorridor(Point p, Space sp)
+	{
+		if (sp.getType() != BoxType.Open)
+			return false;
+
+		int open = 0;
+		for (int d = 0; d < 4; d++)
+		{
+			Space next = map.get(new Point(p.x + DX[d], p.y + DY[d]));
+			if (next == null)
+				return false;
+			if (next.getType() != BoxType.Blocked)
+				open++;
+		}
+
+		return open == 2;
+	}
+
+	private void markDirty(Node node)
+	{
+		if (node != null && !node.dirty)
+		{
+			node.dirty = true;
+			dirty.add(node);
+		}
+	}
+
+	/**
+	 * Walks the corridors of every node that changed since the last search
+	 */
+	private void update()
+	{
+		for (Node node : dirty)
+		{
+			node.dirty = false;
+			if (node.removed)
+				continue;
+
+			node.frontier = false;
+			for (int d = 0; d < 4; d++)
+			{
+				if (!map.containsKey(new Point(node.point.x + DX[d], node.point.y + DY[d])))
+					node.frontier = true;
+
+				Walk w = walk(node.point, d, null);
+				node.end[d] = (w == null) ? null : nodes.get(w.end);
+				node.length[d] = (w == null) ? 0 : w.length;
+			}
+		}
+
+		dirty.clear();
+	}
+
+	/**
+	 * Follows the corridor leaving a space in a direction until it reaches a node
+	 * @param from Where to start
+	 * @param direction The direction of the first step
+	 * @param stop Stop here as well even if it isn't a node (or null)
+	 * @return Where the walk ended, or null if you can't step that way
+	 */
+	private Walk walk(Point from, int direction, Point stop)
+	{
+		return walk(from, direction, stop, null);
+	}
+
+	/**
+	 * Follows the corridor leaving a space in a direction until it reaches a node
+	 * @param from Where to start
+	 * @param direction The direction of the first step
+	 * @param stop Stop here as well even if it isn't a node (or null)
+	 * @param cells If not null, the spaces between from and the end are added to it in order
+	 * @return Where the walk ended, or null if you can't step that way
+	 */
+	private Walk walk(Point from, int direction, Point stop, List<Point> cells)
+	{
+		Point current = new Point(from.x + DX[direction], from.y + DY[direction]);
+		Space sp = map.get(current);
+		if (sp == null || sp.getType() == BoxType.Blocked)
+			return null;
+
+		Walk w = new Walk();
+		w.length = 1;
+		w.direction = direction;
+
+		// Corridor spaces have exactly one way onward. A loop with no nodes on it brings us back to the start.
+		while (!nodes.containsKey(current) && !current.equals(stop) && !current.equals(from) && w.length <= map.size())
+		{
+			if (cells != null)
+				cells.add(current);
+
+			int next = -1;
+			for (int d = 0; d < 4; d++)
+			{
+				if (d == OPPOSITE[w.direction])
+					continue;
+
+				Space k = map.get(new Point(current.x + DX[d], current.y + DY[d]));
+				if (k != null && k.getType() != BoxType.Blocked)
+				{
+					next = d;
+					break;
+				}
+			}
+
+			if (next < 0)		// Shouldn't happen, but a dead end is where the walk has to stop
+				break;
+
+			current = new Point(current.x + DX[next], current.y + DY[next]);
+			w.direction = next;
+			w.length++;
+		}
+
+		w.end = current;
+		return w;
+	}
+
+	/**
+	 * Finds the shortest path from a {@link Point} to a goal. Works just like the search in {@link Dijkstras}, with the same
+	 * arguments and result, but only stops at nodes. Where there are several shortest paths it picks the same one as
+	 * {@link Dijkstras}, which prefers the spaces that come later in the map.
+	 * 
+	 * @param view The map to read the types of spaces from. It must have the same spaces as the map the graph was built on,
+	 * 			although keys and doors may have been turned Open.
+	 * @param start The starting {@link Point}
+	 * @param type The {@link BoxType} we are looking for. Set to null if you want unexplored or to use the {@link Space} goal instead.
+	 * @param goal The {@link Space} goal we want to go to. Set to null to use the {@link BoxType} goal.
+	 * @param unexp The space used to represent unexplored areas
+	 * 
+	 * @return The {@link Stack} of moves to follow. The last element will be the {@link Space} on start and the first is the goal.
+	 * 			This can be null if there is no possible path.
+	 */
+	public Stack<Space> shortestToType(HashMap<Point, Space> view, Point start, BoxType type, Space goal, Space unexp)
+	{
+		update();
+
+		Space first = view.get(start);
+		Point target = (goal == null ? null : goal.getPoint());
+		boolean unexplored = (type == null && goal == null);
+
+		if (first == null || first.getType() == BoxType.Blocked)
+			return null;
+		if (goal == null && type != null && first.getType() == type)		// We're already there
+			return null;
+		if (start.equals(target))
+			return null;
+
+		// Number the spaces in the order Dijkstras would look at them, for breaking ties the same way
+		int order = 0;
+		for (Space sp : view.values())
+			sp.setOrder(order++);
+
+		int size = byId.size();
+		int[] dist = new int[size];
+		Arrays.fill(dist, Integer.MAX_VALUE);
+
+		// If we start in a corridor, the nodes at its ends: {node, direction from the node, distance}
+		List<int[]> startEnds = new ArrayList<>();
+		// If the goal space is in a corridor, ways to get to it: {node (or SOURCE), direction from the goal, distance}
+		List<int[]> goalEnds = new ArrayList<>();
+
+		// The goal when it isn't a node: the goal space in a corridor, or unexplored
+		int goalDist = Integer.MAX_VALUE;
+		int goalPrev = NONE;
+
+		NodeHeap heap = new NodeHeap();
+		Node source = nodes.get(start);
+		if (source != null)
+		{
+			dist[source.id] = 0;
+			heap.push(0, source.id);
+		}
+		else
+		{
+			for (int d = 0; d < 4; d++)
+			{
+				Walk w = walk(start, d, null);
+				if (w == null)
+					continue;
+
+				Node end = nodes.get(w.end);
+				if (end == null)
+					continue;
+
+				startEnds.add(new int[] { end.id, OPPOSITE[w.direction], w.length });
+				if (canEnter(view, end.point, type, target) && w.length < dist[end.id])
+				{
+					dist[end.id] = w.length;
+					heap.push(w.length, end.id);
+				}
+
+				// The goal may be on the way
+				if (target != null && !nodes.containsKey(target))
+				{
+					w = walk(start, d, target);
+					if (w.end.equals(target))
+					{
+						goalEnds.add(new int[] { SOURCE, OPPOSITE[w.direction], w.length });
+						if (w.length < goalDist)
+						{
+							goalDist = w.length;
+							heap.push(goalDist, size);
+						}
+					}
+				}
+			}
+		}
+
+		if (target != null && !nodes.containsKey(target))
+		{
+			for (int d = 0; d < 4; d++)
+			{
+				Walk w = walk(target, d, null);
+				if (w == null)
+					continue;
+
+				Node end = nodes.get(w.end);
+				if (end != null)
+					goalEnds.add(new int[] { end.id, d, w.length });
+			}
+		}
+
+		boolean[] done = new boolean[size];
+		int found = NONE;		// The best goal node found so far
+		while (!heap.isEmpty())
+		{
+			int length = heap.peekDistance();
+			int id = heap.pop();
+
+			if (found != NONE && length > dist[found])		// No other goal is as close
+				break;
+
+			if (id == size)		// The goal, which isn't a node
+			{
+				if (length != goalDist)
+					continue;
+
+				Stack<Space> result = new Stack<>();
+				if (unexplored)
+				{
+					result.push(unexp);
+					return route(result, view, goalPrev, dist, startEnds, start, first);
+				}
+
+				// Come into the goal from whichever side Dijkstras would
+				int[] best = null;
+				for (int[] end : goalEnds)
+				{
+					int endDist = (end[0] == SOURCE ? 0 : dist[end[0]]);
+					if (endDist == Integer.MAX_VALUE || endDist + end[2] != goalDist)
+						continue;
+
+					if (best == null || neighbor(view, target, end[1]).getOrder() > neighbor(view, target, best[1]).getOrder())
+						best = end;
+				}
+
+				result.push(view.get(target));
+				pushCorridor(result, view, target, best[1], best[0] == SOURCE ? start : byId.get(best[0]).point);
+				if (best[0] == SOURCE)
+				{
+					result.push(first);
+					return result;
+				}
+				return route(result, view, best[0], dist, startEnds, start, first);
+			}
+
+			if (done[id] || length != dist[id])
+				continue;
+			done[id] = true;
+
+			Node node = byId.get(id);
+			Space sp = view.get(node.point);
+
+			// Found what we're looking for? (We already know it isn't where we started.)
+			if ((target != null && node.point.equals(target))
+					|| (type != null && sp.getType() == type))
+			{
+				if (found == NONE || sp.getOrder() > view.get(byId.get(found).point).getOrder())
+					found = id;
+				continue;
+			}
+			if (found != NONE)
+				continue;
+
+			if (unexplored && node.frontier)
+			{
+				if (length + 1 < goalDist)
+				{
+					goalDist = length + 1;
+					goalPrev = id;
+					heap.push(goalDist, size);
+				}
+				else if (length + 1 == goalDist && sp.getOrder() > view.get(byId.get(goalPrev).point).getOrder())
+					goalPrev = id;
+			}
+
+			for (int[] end : goalEnds)
+			{
+				if (end[0] == id && length + end[2] < goalDist)
+				{
+					goalDist = length + end[2];
+					heap.push(goalDist, size);
+				}
+			}
+
+			for (int d = 0; d < 4; d++)
+			{
+				Node next = node.end[d];
+				if (next == null || done[next.id] || !canEnter(view, next.point, type, target))
+					continue;
+
+				int nextLength = length + node.length[d];
+				if (nextLength < dist[next.id])
+				{
+					dist[next.id] = nextLength;
+					heap.push(nextLength, next.id);
+				}
+			}
+		}
+
+		if (found != NONE)
+			return route(new Stack<Space>(), view, found, dist, startEnds, start, first);
+
+		return null;		// No possible path to our goal
+	}
+
+	/**
+	 * Checks whether a search may step onto a node. Doors are only walked onto if they're what we're looking for.
+	 */
+	private static boolean canEnter(HashMap<Point, Space> view, Point p, BoxType type, Point target)
+	{
+		BoxType t = view.get(p).getType();
+		if (t == BoxType.Blocked)
+			return false;
+
+		return t != BoxType.Door || type == BoxType.Door || p.equals(target);
+	}
+
+	/**
+	 * Gets the space next to a point
+	 */
+	private static Space neighbor(HashMap<Point, Space> view, Point p, int direction)
+	{
+		return view.get(new Point(p.x + DX[direction], p.y + DY[direction]));
+	}
+
+	/**
+	 * Pushes the spaces of the route to a node onto a stack, goal end first.
+	 * Like {@link Dijkstras}, each space is reached from the latest space in the map that is one step closer to the start.
+	 * @param result The stack so far (ending just before the node)
+	 * @param view The map to take the spaces from
+	 * @param id The node
+	 * @param dist The distance from the start to every node
+	 * @param startEnds The nodes at the ends of the corridor we start in
+	 * @return result with the route back to start on it
+	 */
+	private Stack<Space> route(Stack<Space> result, HashMap<Point, Space> view, int id, int[] dist, List<int[]> startEnds, Point start,
+			Space first)
+	{
+		while (true)
+		{
+			Node node = byId.get(id);
+			result.push(view.get(node.point));
+
+			if (node.point.equals(start))
+				return result;
+
+			// Which ways are one step closer to the start?
+			int bestDir = -1;
+			int bestId = NONE;
+			for (int d = 0; d < 4; d++)
+			{
+				int from = NONE;
+				for (int[] end : startEnds)
+				{
+					if (end[0] == id && end[1] == d && end[2] == dist[id])
+						from = SOURCE;
+				}
+
+				Node next = node.end[d];
+				if (from == NONE && next != null && dist[next.id] != Integer.MAX_VALUE && dist[next.id] + node.length[d] == dist[id]
+						&& !passesStart(id, d, startEnds))
+					from = next.id;
+
+				if (from != NONE && (bestDir < 0 || neighbor(view, node.point, d).getOrder() > neighbor(view, node.point, bestDir).getOrder()))
+				{
+					bestDir = d;
+					bestId = from;
+				}
+			}
+
+			if (bestId == SOURCE)
+			{
+				pushCorridor(result, view, node.point, bestDir, start);
+				result.push(first);
+				return result;
+			}
+
+			pushCorridor(result, view, node.point, bestDir, byId.get(bestId).point);
+			id = bestId;
+		}
+	}
+
+	/**
+	 * @return True if the corridor leaving a node in a direction goes through the start
+	 */
+	private static boolean passesStart(int id, int direction, List<int[]> startEnds)
+	{
+		for (int[] end : startEnds)
+		{
+			if (end[0] == id && end[1] == direction)
+				return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Pushes the spaces in between two points on the same corridor, the ones next to from first
+	 */
+	private void pushCorridor(Stack<Space> result, HashMap<Point, Space> view, Point from, int direction, Point to)
+	{
+		List<Point> cells = new ArrayList<>();
+		walk(from, direction, to, cells);
+
+		for (Point p : cells)
+			result.push(view.get(p));
+	}
+
+	/**
+	 * @return The number of nodes in the graph
+	 */
+	public int getNodeCount()
+	{
+		return nodes.size();
+	}
+
+}
+
+/**
+ * A binary heap of node numbers ordered by distance, for {@link CorridorGraph} and {@link JumpPointSearch}.
+ * Entries aren't updated, just added again with the shorter distance.
+ * 
+ * @author Daniel Centore
+ *
+ */
+class NodeHeap
+{
+	private long[] entries = new long[64];		// distance in the high half, node in the low half
+	private int size = 0;
+
+	void push(int distance, int id)
+	{
+		if (size == entries.length)
+			entries = Arrays.copyOf(entries, size * 2);
+
+		long entry = ((long) distance << 32) | id;
+		int i = size++;
+		while (i > 0 && entries[(i - 1) / 2] > entry)
+		{
+			entries[i] = entries[(i - 1) / 2];
+			i = (i - 1) / 2;
+		}
+		entries[i] = entry;
+	}
+
+	int peekDistance()
+	{
+		return (int) (entries[0] >>> 32);
+	}
+
+	int pop()
+	{
+		int id = (int) entries[0];
+		long last = entries[--size];
+		int i = 0;
+		while (2 * i + 1 < size)
+		{
+			int child = 2 * i + 1;
+			if (child + 1 < size && entries[child + 1] < entries[child])
+				child++;
+			if (entries[child] >= last)
+				break;
+			entries[i] = entries[child];
+			i = child;
+		}
+		entries[i] = last;
+		return id;
+	}
+
+	boolean isEmpty()
+	{
+		return size == 0;
+	}
+}
+
+/**
+ * The learned map divided into square clusters, for searching very large mazes (hierarchical pathfinding, like HPA*).
+ * 
+ * Each cluster keeps its entrances (spaces on its edge next to a known space in another cluster) and how far it is
+ * between every two of them without leaving the cluster. A search only goes space by space through the clusters that
+ * matter to it: the ones it starts and ends in, ones with something it's looking for, and ones where the map it's given
+ * differs from ours because a door was opened or a key picked up. Everywhere else it hops from entrance to entrance.
+ * Once it knows which goal is closest and how far it is, the spaces of the route are filled in, picking the same one of
+ * several shortest paths as {@link Dijkstras}.
+ * 
+ * A cluster is only worked out again after a space in or next to it is learned, or one of its keys or doors changes.
+ * 
+ * @author Daniel Centore
+ *
+ */
+class ClusterGraph
+{
+	private static final int SIZE = 16;		// Width and height of a cluster in spaces
+
+	// North, South, East and West, in the same order as MapUtils.DIRECTIONS
+	private static final int[] DX = { 0, 0, 1, -1 };
+	private static final int[] DY = { 1, -1, 0, 0 };
+
+	private static final int UNEXPLORED = Integer.MAX_VALUE;		// Heap entry for reaching unexplored ground
+
+	private final HashMap<Point, Space> map;						// The map of the game we're clustering
+	private final Set<Point> frontier;								// The spaces of the map next to somewhere we haven't been
+	private final HashMap<Point, Cluster> clusters = new HashMap<>();	// The clusters by their position in the grid of clusters
+
+	/**
+	 * One square of the map
+	 */
+	private static class Cluster
+	{
+		final int minX;									// The bottom left space
+		final int minY;
+		boolean dirty = true;							// True if it needs working out again
+		boolean frontier;								// True if any of its spaces are next to somewhere we haven't been
+		boolean local;									// True if the current search goes through it space by space
+		final ArrayList<Point> entrances = new ArrayList<>();
+		final HashMap<Point, Integer> entranceIds = new HashMap<>();
+		int[][] between;								// How far it is between every two entrances (MAX_VALUE if you can't)
+		final ArrayList<Point> specials = new ArrayList<>();		// Its keys, doors and exit
+		final ArrayList<BoxType> specialTypes = new ArrayList<>();	// What they were when it was worked out
+
+		Cluster(int minX, int minY)
+		{
+			this.minX = minX;
+			this.minY = minY;
+		}
+
+		boolean contains(int x, int y)
+		{
+			return x >= minX && x < minX + SIZE && y >= minY && y < minY + SIZE;
+		}
+	}
+
+	/**
+	 * Creates the clusters of a map
+	 * @param map The map to divide up. Call {@link #added(int, int)} for every space put in it.
+	 * @param frontier The spaces of the map next to somewhere we haven't been, kept up to date by the owner of the map
+	 */
+	public ClusterGraph(HashMap<Point, Space> map, Set<Point> frontier)
+	{
+		this.map = map;
+		this.frontier = frontier;
+
+		for (Space sp : map.values())
+		{
+			if (!sp.isUnexplored())
+				added(sp.getX(), sp.getY());
+		}
+	}
+
+	/**
+	 * Lets the graph know a space has been added to the map
+	 * @param x X coordinate of the space
+	 * @param y Y coordinate of the space
+	 */
+	public void added(int x, int y)
+	{
+		Point key = keyOf(x, y);
+		Cluster cluster = clusters.get(key);
+		if (cluster == null)
+		{
+			cluster = new Cluster(key.x * SIZE, key.y * SIZE);
+			clusters.put(key, cluster);
+		}
+		cluster.dirty = true;
+
+		// It may be a new entrance or frontier for the clusters next door
+		for (int d = 0; d < 4; d++)
+		{
+			Cluster next = clusters.get(keyOf(x + DX[d], y + DY[d]));
+			if (next != null)
+				next.dirty = true;
+		}
+	}
+
+	/**
+	 * @return The position in the grid of clusters of the cluster holding a space
+	 */
+	private static Point keyOf(int x, int y)
+	{
+		return new Point(Math.floorDiv(x, SIZE), Math.floorDiv(y, SIZE));
+	}
+
+	private Cluster clusterOf(Point p)
+	{
+		return clusters.get(keyOf(p.x, p.y));
+	}
+
+	/**
+	 * Works out again every cluster where something has changed
+	 */
+	private void update()
+	{
+		for (Cluster cluster : clusters.values())
+		{
+			for (int i = 0; i < cluster.specials.size() && !cluster.dirty; i++)
+			{
+				if (map.get(cluster.specials.get(i)).getType() != cluster.specialTypes.get(i))		// Door opened or key picked up
+					cluster.dirty = true;
+			}
+
+			if (cluster.dirty)
+				build(cluster);
+		}
+	}
+
+	/**
+	 * Finds a cluster's entrances, keys, doors and exit and the distances between its entrances
+	 */
+	private void build(Cluster cluster)
+	{
+		cluster.dirty = false;
+		cluster.frontier = false;
+		cluster.entrances.clear();
+		cluster.entranceIds.clear();
+		cluster.specials.clear();
+		cluster.specialTypes.clear();
+
+		for (int y = cluster.minY; y < cluster.minY + SIZE; y++)
+		{
+			for (int x = cluster.minX; x < cluster.minX + SIZE; x++)
+			{
+				Point p = new Point(x, y);
+				Space sp = map.get(p);
+				if (sp == null || sp.getType() == BoxType.Blocked)
+					continue;
+
+				if (sp.getType() != BoxType.Open)
+				{
+					cluster.specials.add(p);
+					cluster.specialTypes.add(sp.getType());
+				}
+
+				for (int d = 0; d < 4; d++)
+				{
+					Space next = map.get(new Point(x + DX[d], y + DY[d]));
+					if (next == null)
+						cluster.frontier = true;
+					else if (next.getType() != BoxType.Blocked && !cluster.contains(x + DX[d], y + DY[d]) && !cluster.entranceIds.containsKey(p))
+					{
+						cluster.entranceIds.put(p, cluster.entrances.size());
+						cluster.entrances.add(p);
+					}
+				}
+			}
+		}
+
+		int count = cluster.entrances.size();
+		cluster.between = new int[count][];
+		for (int i = 0; i < count; i++)
+		{
+			int[] spread = spread(cluster, cluster.entrances.get(i));
+			cluster.between[i] = new int[count];
+			for (int j = 0; j < count; j++)
+				cluster.between[i][j] = spread[index(cluster, cluster.entrances.get(j))];
+		}
+	}
+
+	/**
+	 * Finds how far every space in a cluster is from one of them without leaving the cluster. Doors can't be walked through.
+	 * @param cluster The cluster
+	 * @param from The space to start from
+	 * @return The distances, by {@link #index(Cluster, Point)} (MAX_VALUE where it can't get)
+	 */
+	private int[] spread(Cluster cluster, Point from)
+	{
+		int[] dist = new int[SIZE * SIZE];
+		Arrays.fill(dist, Integer.MAX_VALUE);
+		if (!canPass(from))
+			return dist;
+
+		int[] queue = new int[SIZE * SIZE];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = index(cluster, from);
+		dist[queue[0]] = 0;
+
+		while (head < tail)
+		{
+			int i = queue[head++];
+			int x = cluster.minX + i % SIZE;
+			int y = cluster.minY + i / SIZE;
+
+			for (int d = 0; d < 4; d++)
+			{
+				int nx = x + DX[d];
+				int ny = y + DY[d];
+				if (!cluster.contains(nx, ny))
+					continue;
+
+				int n = index(cluster, nx, ny);
+				if (dist[n] == Integer.MAX_VALUE && canPass(new Point(nx, ny)))
+				{
+					dist[n] = dist[i] + 1;
+					queue[tail++] = n;
+				}
+			}
+		}
+
+		return dist;
+	}
+
+	private static int index(Cluster cluster, Point p)
+	{
+		return index(cluster, p.x, p.y);
+	}
+
+	private static int index(Cluster cluster, int x, int y)
+	{
+		return (y - cluster.minY) * SIZE + (x - cluster.minX);
+	}
+
+	/**
+	 * @return True if a space in our map can be walked through
+	 */
+	private boolean canPass(Point p)
+	{
+		Space sp = map.get(p);
+		return sp != null && sp.getType() != BoxType.Blocked && sp.getType() != BoxType.Door;
+	}
+
+	/**
+	 * Finds the shortest path from a {@link Point} to a goal. Takes the same arguments and gives the same kind of result
+	 * as the search in {@link Dijkstras}.
+	 * 
+	 * @param view The map to read the types of spaces from. It must have the same spaces as the map the graph was built on,
+	 * 			although keys and doors may have been turned Open.
+	 * @param start The starting {@link Point}
+	 * @param type The {@link BoxType} we are looking for. Set to null if you want unexplored or to use the {@link Space} goal instead.
+	 * @param goal The {@link Space} goal we want to go to. Set to null to use the {@link BoxType} goal.
+	 * @param unexp The space used to represent unexplored areas
+	 * 
+	 * @return The {@link Stack} of moves to follow. The last element will be the {@link Space} on start and the first is the goal.
+	 * 			This can be null if there is no possible path.
+	 */
+	public Stack<Space> shortestToType(HashMap<Point, Space> view, Point start, BoxType type, Space goal, Space unexp)
+	{
+		update();
+
+		Space first = view.get(start);
+		Point target = (goal == null ? null : goal.getPoint());
+		boolean unexplored = (type == null && goal == null);
+
+		if (first == null || first.getType() == BoxType.Blocked || clusterOf(start) == null)
+			return null;
+		if (goal == null && type != null && first.getType() == type)		// We're already there
+			return null;
+		if (start.equals(target))
+			return null;
+
+		// Which clusters do we need to go through space by space?
+		for (Cluster cluster : clusters.values())
+		{
+			cluster.local = (unexplored && cluster.frontier);
+			for (int i = 0; i < cluster.specials.size() && !cluster.local; i++)
+			{
+				BoxType now = view.get(cluster.specials.get(i)).getType();
+				cluster.local = (now != cluster.specialTypes.get(i) || now == type);
+			}
+		}
+		clusterOf(start).local = true;
+		if (target != null && clusterOf(target) != null)
+			clusterOf(target).local = true;
+
+		// Number the spaces in the order Dijkstras would look at them, for breaking ties the same way
+		int order = 0;
+		for (Space sp : view.values())
+			sp.setOrder(order++);
+
+		Search search = new Search();
+		search.relax(start, 0);
+
+		int goalDist = Integer.MAX_VALUE;		// How far it is to unexplored ground
+		int goalPrev = -1;						// The space next to it
+		int found = -1;							// The best goal found so far
+		int foundDist = Integer.MAX_VALUE;
+
+		while (!search.heap.isEmpty())
+		{
+			int length = search.heap.peekDistance();
+			int id = search.heap.pop();
+
+			if (length > foundDist)		// No other goal is as close
+				break;
+
+			if (id == UNEXPLORED)
+			{
+				if (length != goalDist)
+					continue;
+
+				Stack<Space> result = new Stack<>();
+				result.push(unexp);
+				return MapUtils.route(result, view, start, search.points.get(goalPrev), goalDist - 1, type, target);
+			}
+
+			if (length != search.dist[id])
+				continue;
+			search.dist[id] = -1 - length;		// Mark it as done
+
+			Point p = search.points.get(id);
+			Space sp = view.get(p);
+			Cluster cluster = clusterOf(p);
+
+			if (id != 0 && (target != null ? p.equals(target) : sp.getType() == type))
+			{
+				if (found < 0 || sp.getOrder() > view.get(search.points.get(found)).getOrder())
+				{
+					found = id;
+					foundDist = length;
+				}
+				continue;
+			}
+			if (found >= 0)
+				continue;
+
+			if (unexplored && cluster.local && frontier.contains(p))
+			{
+				if (length + 1 < goalDist)
+				{
+					goalDist = length + 1;
+					goalPrev = id;
+					search.heap.push(goalDist, UNEXPLORED);
+				}
+				else if (length + 1 == goalDist && sp.getOrder() > view.get(search.points.get(goalPrev)).getOrder())
+					goalPrev = id;
+			}
+
+			// Step to the spaces next to it, or only out of the cluster if we're hopping through it
+			for (int d = 0; d < 4; d++)
+			{
+				Point next = new Point(p.x + DX[d], p.y + DY[d]);
+				if ((cluster.local || !cluster.contains(next.x, next.y)) && canEnter(view, next, type, target))
+					search.relax(next, length + 1);
+			}
+
+			if (!cluster.local)
+			{
+				int[] between = cluster.between[cluster.entranceIds.get(p)];
+				for (int j = 0; j < between.length; j++)
+				{
+					if (between[j] != Integer.MAX_VALUE && between[j] > 0)
+						search.relax(cluster.entrances.get(j), length + between[j]);
+				}
+			}
+		}
+
+		if (found >= 0)
+			return MapUtils.route(new Stack<Space>(), view, start, search.points.get(found), foundDist, type, target);
+
+		return null;		// No possible path to our goal
+	}
+
+	/**
+	 * Checks whether a search may step onto a space. Doors are only walked onto if they're what we're looking for.
+	 */
+	private static boolean canEnter(HashMap<Point, Space> view, Point p, BoxType type, Point target)
+	{
+		Space sp = view.get(p);
+		if (sp == null || sp.getType() == BoxType.Blocked)
+			return false;
+
+		return sp.getType() != BoxType.Door || type == BoxType.Door || p.equals(target);
+	}
+
+	/**
+	 * The spaces reached by one search
+	 */
+	private static class Search
+	{
+		final NodeHeap heap = new NodeHeap();
+		final HashMap<Point, Integer> ids = new HashMap<>();
+		final ArrayList<Point> points = new ArrayList<>();
+		int[] dist = new int[64];		// Distance from the start (or -1 - distance once it's done)
+
+		/**
+		 * Records a way to get to a space if it's shorter than any so far
+		 */
+		void relax(Point p, int length)
+		{
+			Integer id = ids.get(p);
+			if (id == null)
+			{
+				id = points.size();
+				if (id == dist.length)
+					dist = Arrays.copyOf(dist, id * 2);
+
+				points.add(p);
+				ids.put(p, id);
+			}
+			else if (length >= dist[id] || dist[id] < 0)
+				return;
+
+			dist[id] = length;
+			heap.push(length, id);
+		}
+	}
+}
+
+/**
+ * Jump Point Search for the learned map, an alternative to the search in {@link Dijkstras} which is quicker across open
+ * rooms.
+ * 
+ * Of all the shortest paths between two spaces it only looks for those that go as far North or South as they need to
+ * before going East or West, and only turn back North or South at a corner. So a search going East or West doesn't stop
+ * at every space, it jumps straight to the next corner, and a search going North or South only stops where it could turn
+ * off East or West to something. Keys, doors, whatever we're looking for and (when looking for somewhere we haven't been)
+ * spaces next to unexplored ground are always stopped at.
+ * 
+ * The jump points only tell it how far the goal is. Where there are several shortest paths, the route is worked out again
+ * so that it is the same one {@link Dijkstras} would take.
+ * 
+ * @author Daniel Centore
+ *
+ */
+class JumpPointSearch
+{
+	// North, South, East and West, in the same order as MapUtils.DIRECTIONS
+	private static final int[] DX = { 0, 0, 1, -1 };
+	private static final int[] DY = { 1, -1, 0, 0 };
+	private static final int EAST = 2;
+	private static final int WEST = 3;
+
+	private static final int UNEXPLORED = Integer.MAX_VALUE;		// Heap entry for reaching unexplored ground
+
+	private final HashMap<Point, Space> map;	// The map we're searching
+	private final BoxType type;					// The type we're looking for (or null)
+	private final Point target;					// The space we're looking for (or null)
+	private final boolean unexplored;			// True if we're looking for unexplored ground
+	private final Space unexp;					// The space which represents unexplored ground
+	private final Set<Point> frontier;			// The spaces next to unexplored ground (or null to look around each space)
+
+	// The jump points found so far
+	private final HashMap<Point, Integer> ids = new HashMap<>();
+	private final ArrayList<Point> points = new ArrayList<>();
+	private int[] dist = new int[64];
+	private int[] parent = new int[64];
+
+	/**
+	 * Sets up a search. Takes the same arguments as the search in {@link Dijkstras}.
+	 * @param map The map to search
+	 * @param type The {@link BoxType} we are looking for. Set to null if you want unexplored or to use the {@link Space} goal instead.
+	 * @param goal The {@link Space} goal we want to go to. Set to null to use the {@link BoxType} goal.
+	 * @param unexp The space used to represent unexplored areas
+	 * @param frontier The frontier of the {@link FieldMap} map came from (or null to look around each space instead)
+	 */
+	public JumpPointSearch(HashMap<Point, Space> map, BoxType type, Space goal, Space unexp, Set<Point> frontier)
+	{
+		this.map = map;
+		this.type = type;
+		this.target = (goal == null ? null : goal.getPoint());
+		this.unexplored = (type == null && goal == null);
+		this.unexp = unexp;
+		this.frontier = frontier;
+	}
+
+	/**
+	 * Finds the shortest path from a {@link Point} to the goal
+	 * @param start The starting {@link Point}
+	 * @return The {@link Stack} of moves to follow. The last element will be the {@link Space} on start and the first is the goal.
+	 * 			This can be null if there is no possible path or we're already at the goal.
+	 */
+	public Stack<Space> shortestFrom(Point start)
+	{
+		Space first = map.get(start);
+		if (first == null || first.getType() == BoxType.Blocked || isGoal(start, first))
+			return null;
+
+		// Number the spaces in the order Dijkstras would look at them, for breaking ties the same way
+		int order = 0;
+		for (Space sp : map.values())
+			sp.setOrder(order++);
+
+		NodeHeap heap = new NodeHeap();
+		heap.push(0, add(start, 0, -1));
+
+		int goalDist = Integer.MAX_VALUE;		// How far it is to unexplored ground
+		int goalPrev = -1;						// The jump point next to it
+		int found = -1;							// The best goal jump point found so far
+		int foundDist = Integer.MAX_VALUE;
+
+		while (!heap.isEmpty())
+		{
+			int length = heap.peekDistance();
+			int id = heap.pop();
+
+			if (length > foundDist)		// No other goal is as close
+				break;
+
+			if (id == UNEXPLORED)
+			{
+				if (length != goalDist)
+					continue;
+
+				Stack<Space> result = new Stack<>();
+				result.push(unexp);
+				return MapUtils.route(result, map, start, points.get(goalPrev), goalDist - 1, type, target);
+			}
+
+			if (length != dist[id])
+				continue;
+			dist[id] = -1 - length;		// Mark it as done
+
+			Point p = points.get(id);
+			Space sp = map.get(p);
+			if (id != 0 && isGoal(p, sp))
+			{
+				if (found < 0 || sp.getOrder() > map.get(points.get(found)).getOrder())
+				{
+					found = id;
+					foundDist = length;
+				}
+				continue;
+			}
+			if (found >= 0)
+				continue;
+
+			if (unexplored && isFrontier(p, sp))
+			{
+				if (length + 1 < goalDist)
+				{
+					goalDist = length + 1;
+					goalPrev = id;
+					heap.push(goalDist, UNEXPLORED);
+				}
+				else if (length + 1 == goalDist && sp.getOrder() > map.get(points.get(goalPrev)).getOrder())
+					goalPrev = id;
+			}
+
+			for (int d = 0; d < 4; d++)
+			{
+				if (!isSuccessor(id, p, d))
+					continue;
+
+				Point next = jump(p, d);
+				if (next == null)
+					continue;
+
+				int nextLength = length + Math.abs(next.x - p.x) + Math.abs(next.y - p.y);
+				Integer nextId = ids.get(next);
+				if (nextId == null)
+					heap.push(nextLength, add(next, nextLength, id));
+				else if (nextLength < dist[nextId])
+				{
+					dist[nextId] = nextLength;
+					parent[nextId] = id;
+					heap.push(nextLength, nextId);
+				}
+			}
+		}
+
+		if (found >= 0)
+			return MapUtils.route(new Stack<Space>(), map, start, points.get(found), foundDist, type, target);
+
+		return null;		// No possible path to our goal
+	}
+
+	/**
+	 * Checks whether the search should carry on from a jump point in a direction.
+	 * From the start it goes every way. After going North or South it carries on and looks East and West. After going
+	 * East or West it carries on, and only turns North or South around a corner.
+	 */
+	private boolean isSuccessor(int id, Point p, int direction)
+	{
+		if (parent[id] < 0)
+			return true;
+
+		Point from = points.get(parent[id]);
+		int dx = Integer.signum(p.x - from.x);
+		int dy = Integer.signum(p.y - from.y);
+
+		if (dx == 0)		// Came North or South
+			return direction >= EAST || DY[direction] == dy;
+
+		if (DX[direction] == dx)
+			return true;
+
+		return DY[direction] != 0 && isCorner(p.x, p.y, dx, DY[direction]);
+	}
+
+	/**
+	 * Checks if, going East or West into x,y, the way North or South only just opened up
+	 * @param dx The direction we're going in along x
+	 * @param dy The way we're looking along y
+	 */
+	private boolean isCorner(int x, int y, int dx, int dy)
+	{
+		return canEnter(x, y + dy) && !canEnter(x - dx, y + dy);
+	}
+
+	/**
+	 * Goes from a space in a direction until it finds a jump point
+	 * @param from Where to start
+	 * @param direction The direction to go in
+	 * @return The jump point, or null if we hit a wall first
+	 */
+	private Point jump(Point from, int direction)
+	{
+		int x = from.x;
+		int y = from.y;
+
+		while (true)
+		{
+			x += DX[direction];
+			y += DY[direction];
+
+			Point p = new Point(x, y);
+			Space sp = map.get(p);
+			if (!canEnter(p, sp))
+				return null;
+
+			if (isGoal(p, sp) || sp.getType() == BoxType.Key || sp.getType() == BoxType.Door
+					|| (unexplored && isFrontier(p, sp)))
+				return p;
+
+			if (DY[direction] == 0)
+			{
+				if (isCorner(x, y, DX[direction], 1) || isCorner(x, y, DX[direction], -1))
+					return p;
+			}
+			else if (jump(p, EAST) != null || jump(p, WEST) != null)
+				return p;
+		}
+	}
+
+	/**
+	 * Checks if a space is what we're looking for
+	 */
+	private boolean isGoal(Point p, Space sp)
+	{
+		if (target != null)
+			return p.equals(target);
+
+		return type != null && sp.getType() == type;
+	}
+
+	/**
+	 * Checks if a space is next to unexplored ground
+	 */
+	private boolean isFrontier(Point p, Space sp)
+	{
+		if (frontier != null)
+			return frontier.contains(p);
+
+		return MapUtils.bordersUnexplored(map, sp);
+	}
+
+	/**
+	 * Checks if we can walk onto a space. Doors are only walked onto if they're what we're looking for.
+	 */
+	private boolean canEnter(Point p, Space sp)
+	{
+		if (sp == null || sp.getType() == BoxType.Blocked)
+			return false;
+
+		return sp.getType() != BoxType.Door || type == BoxType.Door || p.equals(target);
+	}
+
+	private boolean canEnter(int x, int y)
+	{
+		Point p = new Point(x, y);
+		return canEnter(p, map.get(p));
+	}
+
+	/**
+	 * Records a new jump point
+	 * @return Its number
+	 */
+	private int add(Point p, int length, int from)
+	{
+		int id = points.size();
+		if (id == dist.length)
+		{
+			dist = Arrays.copyOf(dist, id * 2);
+			parent = Arrays.copyOf(parent, id * 2);
+		}
+
+		points.add(p);
+		ids.put(p, id);
+		dist[id] = length;
+		parent[id] = from;
+		return id;
+	}
+}
+
+/**
+ * A map packed into bitboards: one bit per space and 64 spaces to a long. Every row starts on a new long, so the spaces
+ * North and South of a long are the longs a row away and East and West are a shift of one bit (with the carry from the
+ * long next to it). That lets a flood fill or a breadth first search grow by 64 spaces at a time.
+ * 
+ * The board is a snapshot. Build a new one when the map changes.
+ * 
+ * @author Daniel Centore
+ *
+ */
+class BitBoard
+{
+	private final int minX;			// The space in the first bit of the first row
+	private final int minY;
+	private final int width;		// Size of the map in spaces
+	private final int height;
+	private final int stride;		// Longs in each row
+
+	private final long[][] types;	// The spaces of each BoxType, by ordinal
+	private final long[] known;		// Every space in the map
+	private final long[] walkable;	// Spaces we can walk onto without opening anything
+	private final long[] passable;	// Spaces we could walk onto if every door were open
+
+	/**
+	 * Packs a map into bitboards
+	 * @param map The map to pack
+	 */
+	public BitBoard(HashMap<Point, Space> map)
+	{
+		int loX = Integer.MAX_VALUE, loY = Integer.MAX_VALUE, hiX = Integer.MIN_VALUE, hiY = Integer.MIN_VALUE;
+		for (Point p : map.keySet())
+		{
+			loX = Math.min(loX, p.x);
+			loY = Math.min(loY, p.y);
+			hiX = Math.max(hiX, p.x);
+			hiY = Math.max(hiY, p.y);
+		}
+
+		if (map.isEmpty())
+			loX = loY = hiX = hiY = 0;
+
+		minX = loX;
+		minY = loY;
+		width = hiX - loX + 1;
+		height = hiY - loY + 1;
+		stride = (width + 63) >>> 6;
+
+		int size = stride * height;
+		types = new long[BoxType.values().length][size];
+		known = new long[size];
+		walkable = new long[size];
+		passable = new long[size];
+
+		for (Space s : map.values())
+		{
+			if (s.isUnexplored())
+				continue;
+
+			int bit = bit(s.getX(), s.getY());
+			long mask = 1L << bit;
+			int word = bit >>> 6;
+
+			types[s.getType().ordinal()][word] |= mask;
+			known[word] |= mask;
+		}
+
+		for (int i = 0; i < size; i++)
+		{
+			passable[i] = known[i] & ~types[BoxType.Blocked.ordinal()][i];
+			walkable[i] = passable[i] & ~types[BoxType.Door.ordinal()][i];
+		}
+	}
+
+	/**
+	 * Gets the spaces of a type. Please do not edit the result.
+	 * @param type The {@link BoxType}
+	 * @return The bitboard
+	 */
+	public long[] get(BoxType type)
+	{
+		return types[type.ordinal()];
+	}
+
+	/**
+	 * Finds the frontier: every space we could walk onto (or open) which is next to somewhere that isn't in the map
+	 * @return The bitboard
+	 */
+	public long[] getFrontier()
+	{
+		long[] result = new long[known.length];
+
+		for (int i = 0; i < known.length; i++)
+		{
+			int row = i / stride;
+			int col = i % stride;
+
+			long surrounded = north(known, row, col) & south(known, row, col) & east(known, row, col) & west(known, row, col);
+			result[i] = passable[i] & ~surrounded;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Finds every space we can walk to from a point without going through a door
+	 * @param start Where we start (which is included even if it's a door)
+	 * @return The bitboard
+	 */
+	public long[] reachable(Point start)
+	{
+		long[] reached = new long[known.length];
+		if (!inside(start.x, start.y))
+			return reached;
+
+		int bit = bit(start.x, start.y);
+		reached[bit >>> 6] |= 1L << bit;
+
+		// Sweep up and down the rows until nothing changes. Each sweep carries the fill along the rows in its direction.
+		boolean changed = true;
+		boolean up = true;
+		while (changed)
+		{
+			changed = false;
+			for (int n = 0; n < reached.length; n++)
+			{
+				int i = (up ? n : reached.length - 1 - n);
+				long grown = (reached[i] | around(reached, i)) & walkable[i];
+				if ((grown & ~reached[i]) != 0)
+				{
+					reached[i] |= grown;
+					changed = true;
+				}
+			}
+			up = !up;
+		}
+
+		return reached;
+	}
+
+	/**
+	 * Finds how far every space is from the nearest of some starting spaces, one layer of the breadth first search at a time
+	 * @param sources The bitboard of spaces to start from
+	 * @param throughDoors True to walk through doors as if they were open; False to stay out of them
+	 * @return The distance to each space, indexed like {@link #distance(int[], Point)} expects. -1 for spaces which can't be reached.
+	 */
+	public int[] distancesFrom(long[] sources, boolean throughDoors)
+	{
+		long[] mask = (throughDoors ? passable : walkable);
+		int[] result = new int[known.length << 6];
+		Arrays.fill(result, -1);
+
+		long[] visited = new long[known.length];
+		long[] layer = new long[known.length];
+		long[] next = new long[known.length];
+		for (int i = 0; i < known.length; i++)
+			visited[i] = layer[i] = sources[i] & mask[i];
+
+		for (int length = 0; ; length++)
+		{
+			boolean any = false;
+			for (int i = 0; i < layer.length; i++)
+			{
+				for (long w = layer[i]; w != 0; w &= w - 1)
+					result[(i << 6) + Long.numberOfTrailingZeros(w)] = length;
+
+				next[i] = around(layer, i) & mask[i] & ~visited[i];
+				any |= (next[i] != 0);
+			}
+
+			if (!any)
+				return result;
+
+			for (int i = 0; i < next.length; i++)
+				visited[i] |= next[i];
+
+			long[] swap = layer;
+			layer = next;
+			next = swap;
+		}
+	}
+
+	/**
+	 * Looks up a space's distance in the result of {@link #distancesFrom(long[], boolean)}
+	 * @param distances The distances
+	 * @param p The space
+	 * @return Its distance, or -1 if it can't be reached (or isn't on the board)
+	 */
+	public int distance(int[] distances, Point p)
+	{
+		if (!inside(p.x, p.y))
+			return -1;
+
+		return distances[bit(p.x, p.y)];
+	}
+
+	/**
+	 * Checks if a space is set in a bitboard
+	 * @param bits The bitboard
+	 * @param p The space
+	 * @return True if it is; False otherwise (or if it isn't on the board)
+	 */
+	public boolean contains(long[] bits, Point p)
+	{
+		if (!inside(p.x, p.y))
+			return false;
+
+		int bit = bit(p.x, p.y);
+		return (bits[bit >>> 6] & (1L << bit)) != 0;
+	}
+
+	/**
+	 * Gets every space next to a long of spaces
+	 * @param bits The bitboard
+	 * @param i The index of the long
+	 * @return The spaces North, South, East and West of the ones set in bits[i]
+	 */
+	private long around(long[] bits, int i)
+	{
+		int row = i / stride;
+		int col = i % stride;
+
+		return north(bits, row, col) | south(bits, row, col) | east(bits, row, col) | west(bits, row, col);
+	}
+
+	// The spaces whose neighbor in a direction is set. Nothing is set beyond the edges of the board.
+
+	private long north(long[] bits, int row, int col)
+	{
+		return (row + 1 < height ? bits[(row + 1) * stride + col] : 0);
+	}
+
+	private long south(long[] bits, int row, int col)
+	{
+		return (row > 0 ? bits[(row - 1) * stride + col] : 0);
+	}
+
+	private long east(long[] bits, int row, int col)
+	{
+		int i = row * stride + col;
+		return (bits[i] >>> 1) | (col + 1 < stride ? bits[i + 1] << 63 : 0);
+	}
+
+	private long west(long[] bits, int row, int col)
+	{
+		int i = row * stride + col;
+		return (bits[i] << 1) | (col > 0 ? bits[i - 1] >>> 63 : 0);
+	}
+
+	private boolean inside(int x, int y)
+	{
+		return x >= minX && y >= minY && x - minX < width && y - minY < height;
+	}
+
+	// The bit a space is in, counting along the rows. Its long is bit / 64.
+	private int bit(int x, int y)
+	{
+		return (((y - minY) * stride) << 6) + (x - minX);
+	}
+}
+
+/**
+ * Labels the regions of the learned map: the groups of spaces we can walk between without opening a door.
+ * Blocked spaces and doors aren't in any region.
+ * 
+ * Spaces are only ever learned and doors only ever opened, so regions only grow and join together. They're kept in a
+ * union-find which is updated as the {@link FieldMap} learns spaces and opens doors, and which tells whether two spaces
+ * are in the same region in nearly constant time instead of a search.
+ * 
+ * A {@link Path} simulated from the map may have opened more doors. {@link #reach(Point, Collection)} joins the regions
+ * on either side of those for one question without changing the index, so it works for every path.
+ * 
+ * @author Daniel Centore
+ *
+ */
+class RegionIndex
+{
+	private final HashMap<Point, Space> map;						// The map we're labelling
+	private final HashMap<Point, Integer> ids = new HashMap<>();	// The union-find entry of each space in a region
+	private int[] parent = new int[64];								// The entry each entry was joined to (itself for the root of a region)
+	private int[] size = new int[64];								// How many entries are under each root
+	private int count = 0;
+
+	/**
+	 * Creates an index for a map. Every space already in it is added.
+	 * @param map The map to label
+	 */
+	public RegionIndex(HashMap<Point, Space> map)
+	{
+		this.map = map;
+
+		for (Point p : map.keySet())
+			include(p);
+	}
+
+	/**
+	 * Lets the index know a space has been added to the map
+	 * @param x X coordinate of the space
+	 * @param y Y coordinate of the space
+	 */
+	public void added(int x, int y)
+	{
+		include(new Point(x, y));
+	}
+
+	/**
+	 * Lets the index know a door has been opened. Anything else is ignored, so it's fine to call for every space around us.
+	 * @param p The location of the door
+	 */
+	public void opened(Point p)
+	{
+		include(p);
+	}
+
+	/**
+	 * Puts a space in a region if we can walk on it and it isn't in one yet, joining it with the regions around it
+	 * @param p The location of the space
+	 */
+	private void include(Point p)
+	{
+		Space sp = map.get(p);
+		if (sp == null || !isWalkable(sp) || ids.containsKey(p))
+			return;
+
+		if (count == parent.length)
+		{
+			parent = Arrays.copyOf(parent, count * 2);
+			size = Arrays.copyOf(size, count * 2);
+		}
+
+		int id = count++;
+		parent[id] = id;
+		size[id] = 1;
+		ids.put(p, id);
+
+		for (Point d : MapUtils.DIRECTIONS)
+		{
+			Integer next = ids.get(new Point(p.x + d.x, p.y + d.y));
+			if (next != null)
+				union(id, next);
+		}
+	}
+
+	/**
+	 * Finds which region a space is in
+	 * @param p The location of the space
+	 * @return A number which is the same for every space in the region, or -1 if it isn't in one (it's unknown, blocked or a door)
+	 */
+	public int regionOf(Point p)
+	{
+		Integer id = ids.get(p);
+		if (id == null)
+			return -1;
+
+		return find(id);
+	}
+
+	/**
+	 * Checks if we can walk between two spaces without opening a door
+	 * @param a The first space
+	 * @param b The second space
+	 * @return True if they're in the same region; False otherwise
+	 */
+	public boolean sameRegion(Point a, Point b)
+	{
+		int region = regionOf(a);
+
+		return region >= 0 && region == regionOf(b);
+	}
+
+	/**
+	 * Finds everything we can walk to from a space on a simulated map, without opening any more doors
+	 * @param start Where we start
+	 * @param opened The doors which have been opened on the simulated map but not on ours
+	 * @return The regions and opened doors we can get to
+	 */
+	public Reach reach(Point start, Collection<Point> opened)
+	{
+		return new Reach(start, opened);
+	}
+
+	/**
+	 * Checks if a space is one that regions are made of
+	 * @param sp The space
+	 * @return True if it isn't blocked or a door; False otherwise
+	 */
+	public static boolean isWalkable(Space sp)
+	{
+		return sp.getType() != BoxType.Blocked && sp.getType() != BoxType.Door;
+	}
+
+	private int find(int id)
+	{
+		while (parent[id] != id)
+		{
+			parent[id] = parent[parent[id]];		// Halve the path on the way up
+			id = parent[id];
+		}
+
+		return id;
+	}
+
+	private void union(int a, int b)
+	{
+		a = find(a);
+		b = find(b);
+		if (a == b)
+			return;
+
+		// Hang the smaller region under the larger one
+		if (size[a] < size[b])
+		{
+			int swap = a;
+			a = b;
+			b = swap;
+		}
+
+		parent[b] = a;
+		size[a] += size[b];
+	}
+
+	/**
+	 * The regions (and opened doors) we can walk to from one space on a simulated map
+	 */
+	class Reach
+	{
+		private final HashSet<Integer> regions = new HashSet<>();	// The regions we can get to
+		private final HashSet<Point> doors = new HashSet<>();		// The opened doors we can get to
+
+		private Reach(Point start, Collection<Point> opened)
+		{
+			List<Point> left = new ArrayList<>(opened);
+
+			int region = regionOf(start);
+			if (region >= 0)
+				regions.add(region);
+			else
+			{
+				// Standing in an opened door
+				doors.add(start);
+				if (!left.contains(start))
+					left.add(start);
+			}
+
+			// Go through every opened door next to somewhere we can get to (and into the regions around it) until there are no more
+			boolean changed = true;
+			while (changed)
+			{
+				changed = false;
+
+				Iterator<Point> itr = left.iterator();
+				while (itr.hasNext())
+				{
+					Point door = itr.next();
+					if (!doors.contains(door) && !touches(door))
+						continue;
+
+					itr.remove();
+					changed = true;
+					doors.add(door);
+
+					for (Point d : MapUtils.DIRECTIONS)
+					{
+						int next = regionOf(new Point(door.x + d.x, door.y + d.y));
+						if (next >= 0)
+							regions.add(next);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Checks if we can walk onto a space
+		 * @param p The location of the space
+		 * @return True if it's in a region or opened door we can get to; False otherwise
+		 */
+		public boolean contains(Point p)
+		{
+			int region = regionOf(p);
+			if (region >= 0)
+				return regions.contains(region);
+
+			return doors.contains(p);
+		}
+
+		/**
+		 * Checks if we can walk next to a space (so we can get to a door)
+		 * @param p The location of the space
+		 * @return True if any of the 4 spaces around it is one we can walk onto; False otherwise
+		 */
+		public boolean touches(Point p)
+		{
+			for (Point d : MapUtils.DIRECTIONS)
+			{
+				if (contains(new Point(p.x + d.x, p.y + d.y)))
+					return true;
+			}
+
+			return false;
+		}
+	}
+}
+
+/**
+ * Looks for the shortest possible path to a type.
+ * This uses a combination of brute forcing and dijkstras algorithm to find the ideal path including door+key combinations.
+ * 
+ * Uses the following algorithm:
+ *  1. Look for all possible paths to the type. Add them to the 'solved' list.
+ *  2. Branch for all possible paths to keys.
+ *  3. Branch for all possible paths to doors.
+ *  4. Repeat until all possible key+door combinations are exhausted.
+ * 
+ * The algorithm uses some approximations in this "brute force" so it doesn't take days to run:
+ *  - Once a door has been opened, all keys before that door are marked as nonexistant for future iterations along the path
+ *  - Instead of finding *all* key combinations, it instead finds the shortest route to 0,1,2,...,n keys and uses each of these as a branch.
+ *  	This is further described within the algorithm
+ * 
+ * @author Daniel Centore
+ *
+ */
+class BruteForcePathfinder
+{
+	// The algorithm is first run cutting off all paths that get longer than 100 moves.
+	// If it failed to solve the map it is increased to 200, then 300, and so on.
+	// This is so we don't end up with massive amounts of time going into solving very long paths.
+	private static final int SMALLEST_DELTA = 100;
+
+	private int currentKeys;					// How many keys we have right now
+	private Point currentLocation;				// Our actual current location
+	private HashMap<Point, Space> currentMap;	// Our actual current map
+	private int bestCase;						// The best exit case we have encountered so far (or Integer.MAX_VALUE if it has not yet been solved)
+	private BitBoard board;						// currentMap packed into bitboards
+	private int[] lowerBounds;					// Distance from each space on the board to the goal if every door were open
+	private FieldMap source;					// The FieldMap currentMap was simulated from (or null)
+
+	/**
+	 * Instantiates the class
+	 * @param keys The number of keys we have right now
+	 * @param currentLocation The player's current location
+	 * @param currentMap The player's current map
+	 * @param bestCase The best case we have encountered on the map so far (or Integer.MAX_VALUE if it has never been solved)
+	 */
+	public BruteForcePathfinder(int keys, Point currentLocation, HashMap<Point, Space> currentMap, int bestCase)
+	{
+		this(keys, currentLocation, currentMap, bestCase, null);
+	}
+
+	/**
+	 * Instantiates the class
+	 * @param keys The number of keys we have right now
+	 * @param currentLocation The player's current location
+	 * @param currentMap The player's current map
+	 * @param bestCase The best case we have encountered on the map so far (or Integer.MAX_VALUE if it has never been solved)
+	 * @param source The {@link FieldMap} currentMap was simulated from, whose graphs and frontier every simulated path uses
+	 * 			(or null to search every space)
+	 */
+	public BruteForcePathfinder(int keys, Point currentLocation, HashMap<Point, Space> currentMap, int bestCase, FieldMap source)
+	{
+		this.currentKeys = keys;
+		this.currentLocation = currentLocation;
+		this.currentMap = currentMap;
+		this.bestCase = bestCase;
+		this.source = source;
+	}
+
+	/**
+	 * Finds the shortest path to a {@link BoxType} using the algorithm outlined in the class javadoc
+	 * @param type The {@link BoxType} to look for (you can also use null to indicate an unexplored area)
+	 * @return The stack of moves to follow
+	 */
+	public Stack<Space> toType(BoxType type)
+	{
+		long allocated = Allocations.current();
+		try
+		{
+			return toTypeCutoffs(type);
+		} finally
+		{
+			PlannerStats.current().recordToTypeAllocation(Allocations.current() - allocated);
+		}
+	}
+
+	/**
+	 * Runs the brute force with larger and larger cutoffs until it finds a path or reaches the best case
+	 * @param type The {@link BoxType} to look for (you can also use null to indicate an unexplored area)
+	 * @return The stack of moves to follow
+	 */
+	private Stack<Space> toTypeCutoffs(BoxType type)
+	{
+		// Same for every cutoff, so only calculate it once
+		board = (source != null ? source.getBoard() : new BitBoard(currentMap));
+		lowerBounds = (type == null && source != null) ? source.getFrontierDistances() : relaxedDistances(type);
+
+		int input = SMALLEST_DELTA;		// Initial cutoff value for path length
+		int shortest = (bestCase == Integer.MAX_VALUE ? Tournament.maxSteps : bestCase);		// Absolute maximum cutoff value
+		boolean lastTry = false;		// If this is the last iteration we can perform before giving up
+
+		// Once we are using the maximum cutoff value as out cutoff, label this as the last iteration
+		if (input > shortest)
+		{
+			input = shortest;
+			lastTry = true;
+		}
+
+		while (true)
+		{
+			Stack<Space> result = toTypeSub(type, input);		// Try getting a result for the current cutoff value
+
+			if (result != null)
+			{
+				return result;
+			}
+
+			input += SMALLEST_DELTA;	// Increase the cutoff value
+
+			if (lastTry)				// Time to give up
+				break;
+
+			PlannerStats.current().countDeltaRestart();
+
+			if (input > shortest)		// Once we are using the maximum cutoff value as out cutoff, label this as the last iteration
+			{
+				input = shortest;
+				lastTry = true;
+			}
+		}
+
+		return null;
+
+	}
+
+	/**
+	 * Actually does the calculation trying to find the shortest path to a type
+	 * @param type The {@link BoxType} we are trying to get to
+	 * @param shortest The maximum path length
+	 * @return The stack of moves to follow
+	 */
+	private Stack<Space> toTypeSub(BoxType type, int shortest)
+	{
+		if (SchoolPlayer.VERBOSE)
+			System.out.println("Goal: " + type);
+
+		int iteration = 1;
+		List<Path> solved = new ArrayList<>();		// List of paths that lead to an exit
+		List<Path> paths = new ArrayList<>();		// List of paths we are still evaluating
+
+		paths.add(new Path(currentMap, currentLocation, currentKeys, source));		// Add an initial path which we'll branch off of
+
+		// While there are still paths to evaluate, evaluate them!
+		while (paths.size() > 0)
+		{
+			if (SchoolPlayer.VERBOSE)
+			{
+				System.out.println();
+				System.out.println("=== STARTING ITERATION " + (iteration++) + " ===");
+				System.out.println("Checking for duplicates...");
+			}
+
+			PlannerStats.current().samplePaths(paths);
+
+			// Check for duplicates
+			List<Path> dups = findDups(paths);
+			int initialSize = paths.size();
+
+			paths.removeAll(dups);		// Remove all the duplicates
+			PlannerStats.current().countDupsRemoved(initialSize - paths.size());
+
+			if (SchoolPlayer.VERBOSE)
+				System.out.println("Finished Checking. Removed [" + (initialSize - paths.size()) + "]");
+
+			dups = null;		// Clean up our references
+
+			// PART 1: For each path, see if there is a way to get to the goal without going through doors
+			// If there is, add the path to the solved list.
+			if (SchoolPlayer.VERBOSE)
+				System.out.println("Looking for paths to goal [" + type + "]...");
+
+			Iterator<Path> itr = paths.iterator();
+			while (itr.hasNext())		// Go through all the paths
+			{
+				Path p = itr.next();
+
+				Dijkstras d = new Dijkstras(p.getKeys(), p.getLocation(), p.getMap(), -1, source);
+
+				Stack<Space> toExit = d.shortestToType(p.getLocation(), type);		// Find shortest path to an exit
+				if (toExit != null)			// There is such a path
+				{
+					p = p.clone();
+					p.addToPath(toExit);		// Add going to the exit to the path
+					solved.add(p);				// Add the path to the solved list
+
+					if (p.getPathSize() < shortest)		// Mark the path as shortest if it is
+						shortest = p.getPathSize();
+				}
+			}
+			itr = null;
+
+			if (SchoolPlayer.VERBOSE)
+			{
+				System.out.println("Solved Paths:  " + solved.size());
+				System.out.println("Shortest Path: " + shortest);
+				System.out.println("Total Paths:   " + paths.size());
+				System.out.println();
+			}
+
+			// PART 2: For each path, find all possible reasonable paths to keys
+
+			if (SchoolPlayer.VERBOSE)
+				System.out.println("Looking for paths to keys...");
+
+			List<Path> tempPaths = toKeys(paths, shortest);
+			paths.addAll(tempPaths);
+
+			if (SchoolPlayer.VERBOSE)
+			{
+				System.out.println("Added key paths. Total paths: " + paths.size());
+				System.out.println("Looking for paths to doors....");
+			}
+			tempPaths = null;
+			
+			// PART 3: For all paths, find all possible paths to doors
+			tempPaths = toDoors(paths, shortest);
+			paths.addAll(tempPaths);
+
+			if (SchoolPlayer.VERBOSE)
+				System.out.println("Found paths to doors. Total paths: " + paths.size());
+		}
+
+		// END: Find the shortest path in our solved list
+
+		Path ideal = null;
+		for (Path s : solved)
+		{
+			if (ideal == null || s.getPathSize() < ideal.getPathSize())
+				ideal = s;
+		}
+
+		if (ideal == null)		// No known path exits
+		{
+			return null;
+		}
+
+		// A path does exist - Put it on a stack in the format we like
+		List<Space> l = ideal.getPath();
+		Stack<Space> result = new Stack<>();
+		for (int i = l.size() - 1; i >= 0; i--)
+		{
+			result.push(l.get(i));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Finds all reasonable paths to doors (helper method)
+	 * @param paths The list of paths to iterate through
+	 * @param shortest The cutoff distance for paths
+	 * @return The new list of paths
+	 */
+	private List<Path> toDoors(List<Path> paths, int shortest)
+	{
+		List<Path> tempPaths = new ArrayList<>();
+
+		Iterator<Path> itr = paths.iterator();
+		while (itr.hasNext())		// Go through all the paths
+		{
+			Path p = itr.next();
+
+			itr.remove();		// Don't need the original path anymore. We'll either give up on it or branch from it.
+
+			if (p.getKeys() == 0)
+			{
+				// We can't go to a door from this path because there are no keys left
+				continue;
+			}
+			Point pLoc = p.getLocation();
+
+			// Get a list of all doors that we can walk to without going through other doors
+			Dijkstras k = new Dijkstras(p.getKeys(), pLoc, p.getMap(), -1, source);
+			RegionIndex.Reach reach = (source == null ? null : source.getRegions().reach(pLoc, p.getOpenedDoors()));
+
+			for (Space s : p.getMap().values())
+			{
+				if (s.getType() == BoxType.Door)
+				{
+					if (reach != null && !reach.touches(s.getPoint()))		// Nowhere next to the door is in a region we can get to
+						continue;
+
+					Stack<Space> toDoor = k.shortestToType(pLoc, s);
+
+					if (toDoor == null)			// No possible path to that door
+						continue;
+
+					// The path will be too long (even if the rest of the way is clear). Don't add it.
+					if (exceedsCutoff(toDoor.size() + p.getPathSize(), s.getPoint(), shortest))
+						continue;
+
+					Path next = p.clone();		// Clone the original path
+
+					next.addToPath(toDoor);		// Add the path to the door to it
+					tempPaths.add(next);		// Add it to the list of paths
+
+				}
+			}
+		}
+
+		return tempPaths;
+	}
+
+	/**
+	 * Finds all reasonable paths to keys (helper method)
+	 * @param paths The list of paths to iterate through
+	 * @param shortest The cutoff distance for paths
+	 * @return The new list of paths
+	 */
+	private List<Path> toKeys(List<Path> paths, int shortest)
+	{
+		List<Path> tempPaths = new ArrayList<>();
+
+		Iterator<Path> itr = paths.iterator();
+		while (itr.hasNext())
+		{
+			Path p = itr.next();
+
+			// Prune paths that can't possibly beat the shortest one so far
+			if (exceedsCutoff(p.getPathSize(), p.getLocation(), shortest))
+			{
+				itr.remove();
+				continue;
+			}
+
+			// Get a list of all keys that we can walk to without going through doors
+			Queue<Space> keys = new LinkedList<>();		// The list of keys
+			Path temp = p.clone();
+
+			Dijkstras k = new Dijkstras(temp.getKeys(), temp.getLocation(), temp.getMap(), -1, source);
+			while (true)
+			{
+				k = new Dijkstras(temp.getKeys(), temp.getLocation(), temp.getMap(), -1, source);
+
+				Stack<Space> toKey = k.shortestToType(temp.getLocation(), BoxType.Key);
+				if (toKey == null)
+					break;
+				else
+				{
+					temp.addToPath(toKey);
+					keys.offer(p.getMap().get(temp.getLocation()));		// Use p's map so we use original value
+				}
+			}
+
+			// There are no more keys to get and we're out of keys. Kill the potential path.
+			if (keys.size() == 0 && p.getKeys() == 0)
+			{
+				itr.remove();
+				continue;
+			}
+
+			// Count the number of doors left on the board
+			int doors = 0;
+			for (Space s : p.getMap().values())
+			{
+				if (s.getType() == BoxType.Door)
+					doors++;
+			}
+			
+			doors -= p.getKeys();		// Subtract the number of keys to find the number of doors which need keys
+
+			// Generate a list of keys in each direction
+			// This generates a list of lists such that the first list contains all keys in order of increasing distance in one
+			// direction, the second list contains all keys in another direction, and so on and so forth.
+			List<List<Space>> keyLists = new ArrayList<>();
+
+			while (!keys.isEmpty())
+			{
+				List<Space> curr = new ArrayList<>();
+				temp = p.clone();
+				k = new Dijkstras(temp.getKeys(), temp.getLocation(), temp.getMap(), -1, source);		// create a new path
+
+				Space key = keys.poll();	// Get the next key
+
+				temp.addToPath(k.shortestToType(temp.getLocation(), key));		// Add it to the path
+
+				curr.add(key);		// Add it to the current direction list
+
+				Iterator<Space> spi = keys.iterator();		// iterate through the remaining keys
+				while (spi.hasNext())
+				{
+					key = spi.next();
+
+					Stack<Space> original = k.shortestToType(p.getLocation(), key);
+					Stack<Space> after = k.shortestToType(temp.getLocation(), key);
+
+					if (after.size() < original.size())		// If we got closer to the key by taking the path
+					{
+						curr.add(key);		// Add it to the current direction list
+						spi.remove();		// Remove it from future iterations
+					}
+				}
+
+				keyLists.add(curr);		// Add the current direction to the list of directions
+			}
+
+			keys = null;
+
+			// Iterates through each of the directions and then finds the possible paths in each of those directions
+			for (List<Space> list : keyLists)
+			{
+				Path next = p.clone();
+
+				// Find paths to go to 0,1,...,n keys.
+				// Example: If there are 3 keys I can get to, then the paths are:
+				//  1. The original path (which is already accounted for)
+				//  2. Going to the closest key
+				//  3. Going to the closest key and then the next closest key
+				//  4. Going to the closest key, then the next closest, then the next closest after that
+				// Doesn't look for more keys than there are doors
+				int i = 0;
+				for (Space s : list)		// Go through all spaces in the current direction list
+				{
+					i++;
+					if (i > doors)		// If we are on more keys than there are doors, scrap the paths
+						break;
+
+					k = new Dijkstras(next.getKeys(), next.getLocation(), next.getMap(), -1, source);
+
+					Stack<Space> toKey = k.shortestToType(next.getLocation(), s);	// Find the path to the key
+
+					if (toKey == null)		// This happens if we are already standing on the key
+					{
+						continue;
+					}
+
+					if (exceedsCutoff(next.getPathSize() + toKey.size(), s.getPoint(), shortest))		// The path will be too long. Don't add it.
+						continue;
+
+					next.addToPath(toKey);		// Add the part to the path
+					tempPaths.add(next);		// Add the path to the list of paths
+
+					next = next.clone();		// Clone the Path for the next key iteration
+				}
+			}
+		}
+
+		return tempPaths;
+	}
+
+	/**
+	 * Checks if a path can be thrown away because it can never come in under the cutoff.
+	 * Uses the relaxed distance to the goal as an admissible lower bound on the rest of the path.
+	 * @param length The length of the path so far
+	 * @param location Where the path ends
+	 * @param shortest The cutoff distance for paths
+	 * @return True if the path is hopeless; False otherwise
+	 */
+	private boolean exceedsCutoff(int length, Point location, int shortest)
+	{
+		int bound = board.distance(lowerBounds, location);
+
+		if (bound < 0)		// Can't get to the goal from here no matter what we open
+			return true;
+
+		return (long) length + bound > shortest;
+	}
+
+	/**
+	 * Finds the distance from every space to the goal on a relaxed version of the map where every door is open.
+	 * Opening doors and picking up keys can only ever make the real map look more like this one,
+	 * so these distances never overestimate how far a path still has to go.
+	 * 
+	 * @param type The {@link BoxType} we are trying to get to (null for an unexplored area)
+	 * @return The distance from each space on the board to the goal. -1 for spaces which can't reach it.
+	 */
+	private int[] relaxedDistances(BoxType type)
+	{
+		// Start from every goal space at once: every space of the type we want, or every space next to somewhere we haven't been
+		return board.distancesFrom(type == null ? board.getFrontier() : board.get(type), true);
+	}
+
+	/**
+	 * Finds duplicates in a list of paths
+	 * @param paths The list of paths to go through
+	 * @return The elements to remove
+	 */
+	private List<Path> findDups(List<Path> paths)
+	{
+		List<Path> dups = new ArrayList<>();
+
+		for (int i = 0; i < paths.size(); i++)
+		{
+			Path p = paths.get(i);
+			List<Space> pPath = p.getPath();
+
+			// Only looks a maximum of 10000 spaces ahead in the list.
+			// This approximation works for most cases and really speeds things up
+			for (int j = i + 1; j < Math.min(Integer.MAX_VALUE, paths.size()); j++)
+			{
+				Path q = paths.get(j);
+
+				if (q.getPathSize() != p.getPathSize())
+					continue;
+
+				List<Space> qPath = q.getPath();
+
+				if (Path.pathsEqual(qPath, pPath))
+				{
+					dups.add(q);
+				}
+			}
+		}
+
+		return dups;
+	}
+
+}
+
+/**
+ * Represents a path we are simulating in a brute force
+ * We use these in a chain fashion so when one gets cloned, the clone links to the original to save memory
+ * You can thus only add to a Path and then the difference between the paths is stored
+ * 
+ * @author Daniel Centore
+ *
+ */
+class Path
+{
+	// The current state of the map in this path.
+	// Only stores values that are different than the previous map on the chain
+	private HashMap<Point, Space> map;
+
+	private int keys;							// The number of keys the player has
+	private ArrayList<Space> path;				// The path so far. The first element is first thing to perform
+	private int pathSize = 0;					// The path size
+
+	private Path previous;						// The previous path in the chain
+	private FieldMap source;					// The FieldMap the map we started from came from (or null)
+
+	/**
+	 * Creates a new Path from scratch
+	 * @param newMap The map to load (we do a shallow clone of it but deep clone any objects before changing them)
+	 * @param location The player's current location
+	 * @param keys The number of keys the player has
+	 * @param source The {@link FieldMap} newMap came from (or null)
+	 */
+	public Path(HashMap<Point, Space> newMap, Point location, int keys, FieldMap source)
+	{
+		PlannerStats.current().countPathCreated();
+		this.keys = keys;
+		this.source = source;
+
+		map = new HashMap<>();
+		load2(newMap);		// Clone the map
+
+		path = new ArrayList<>();		// Add our current location to the path
+		path.add(map.get(location));
+	}
+
+	/**
+	 * Creates a new path (for use by cloning)
+	 * @param newMap The map to clone
+	 * @param keys Number of keys the player has
+	 * @param path The path so far
+	 * @param previous The previous node on the chain of paths
+	 */
+	private Path(HashMap<Point, Space> newMap, int keys, ArrayList<Space> path, Path previous)
+	{
+		PlannerStats.current().countPathCreated();
+		this.keys = keys;
+
+		map = new HashMap<>();
+
+		this.path = new ArrayList<>();
+
+		this.previous = previous;
+		this.pathSize = previous.pathSize;
+		this.source = previous.source;
+	}
+
+	/**
+	 * Shallow copies the map
+	 * @param newMap The map to shallow copy
+	 */
+	private void load2(HashMap<Point, Space> newMap)
+	{
+		for (Space sp : newMap.values())
+			map.put(sp.getPoint(), sp);
+	}
+
+	@Override
+	public Path clone()
+	{
+		return new Path(this.map, this.keys, this.path, this);
+	}
+
+	/**
+	 * Concatenates another path onto this one
+	 * @param proceed The path to add onto it
+	 */
+	@SuppressWarnings("unchecked")
+	public long addToPath(Stack<Space> proceed)
+	{
+		proceed = (Stack<Space>) proceed.clone();
+
+		// Don't put on the first element of the path as it matches the last element of our current list
+		proceed.pop();
+
+		long time = 0;
+
+		while (!proceed.isEmpty())
+		{
+			Space next = proceed.pop();
+
+			if (next.isUnexplored())		// Do not include walking to unknown in the path
+			{
+				break;
+			}
+
+			// Set the type and location.
+			BoxType type = next.getType();
+
+			// Handle key usage along the path
+			switch (type)
+			{
+			case Door:
+				// Pretend any keys inside an area are nonexistant after we've opened a door.
+				// This is a pretty good approximation although not a perfect one.
+				// Without this pruning, the number of brute force paths quickly gets out of hand
+				long k = System.currentTimeMillis();
+				pruneKeys();
+				time += System.currentTimeMillis() - k;
+
+				keys--;
+				cloneSpaceToMap(next).setType(BoxType.Open);		// We open the door
+				break;
+
+			case Key:
+				keys++;
+				cloneSpaceToMap(next).setType(BoxType.Open);		// We pick up the key
+				break;
+
+			default:
+				break;
+			}
+
+			// Add the path element
+			path.add(next);
+			pathSize++;
+		}
+
+		return time;
+	}
+
+	/**
+	 * Prunes out any keys that are currently reachable
+	 */
+	private void pruneKeys()
+	{
+		HashMap<Point, Space> current = this.getMap();
+		Point location = this.getLocation();
+
+		// Everything we can walk to without going through a door.
+		// Look it up in the FieldMap's regions if we have them, otherwise flood fill the map.
+		RegionIndex.Reach reach = null;
+		BitBoard board = null;
+		long[] reachable = null;
+		if (source != null)
+			reach = source.getRegions().reach(location, getOpenedDoors());
+		else
+		{
+			board = new BitBoard(current);
+			reachable = board.reachable(location);
+		}
+
+		for (Space s : current.values())
+		{
+			if (s.getType() != BoxType.Key || s.getPoint().equals(location))		// Not a key, or we're standing on it
+				continue;
+
+			boolean canReach = (reach != null ? reach.contains(s.getPoint()) : board.contains(reachable, s.getPoint()));
+			if (!canReach)		// If we cannot get to the key, continue
+				continue;
+
+			cloneSpaceToMap(s).setType(BoxType.Open);		// Mark it as open (even though it's not!)
+		}
+
+	}
+
+	/**
+	 * Finds the doors opened along this path: spaces we changed which we can now walk on but which aren't in a region
+	 * of the {@link FieldMap}. Only works for paths simulated from a {@link FieldMap}.
+	 * @return Their locations
+	 */
+	public List<Point> getOpenedDoors()
+	{
+		RegionIndex regions = source.getRegions();
+		List<Point> result = new ArrayList<>();
+
+		// The first path on the chain is the FieldMap's own map, so only the ones after it have changes
+		for (Path p = this; p.previous != null; p = p.previous)
+		{
+			for (Space s : p.map.values())
+			{
+				if (RegionIndex.isWalkable(s) && regions.regionOf(s.getPoint()) < 0 && !result.contains(s.getPoint()))
+					result.add(s.getPoint());
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Clones a space that's in the map (which is also likely referenced elsewhere) and puts the clone in the map
+	 * @param me The {@link Space} to clone
+	 * @return The cloned spaces (so you can then make changes to it)
+	 */
+	private Space cloneSpaceToMap(Space me)
+	{
+		Point p = me.getPoint();
+
+		Space sp = new Space(me.getX(), me.getY(), me.getType());		// add space
+		map.put(p, sp);
+
+		return sp;
+	}
+
+	/**
+	 * Gets the number of keys that the path has
+	 * @return The number of keys
+	 */
+	public int getKeys()
+	{
+		return keys;
+	}
+
+	/**
+	 * Gets the current state of the map for this path
+	 * This is calculated on the fly based on the previous paths on the chain
+	 * @return The map
+	 */
+	public HashMap<Point, Space> getMap()
+	{
+		HashMap<Point, Space> temp = new HashMap<>();
+
+		Path p = this;
+		// Go through the chain
+		do
+		{
+			for (Space s : p.map.values())		// Add all the spaces to the map
+			{
+				if (!temp.containsKey(s.getPoint()))
+					temp.put(s.getPoint(), s);
+			}
+
+			p = p.previous;
+		} while (p != null);
+
+		return temp;
+	}
+
+	/**
+	 * Gets the current simulation's location
+	 * WARNING: This is slow so save the value and reuse it if possible
+	 * @return The player's current location
+	 */
+	public Point getLocation()
+	{
+		List<Space> temp = getPath();
+
+		return temp.get(temp.size() - 1).getPoint();
+	}
+
+	/**
+	 * Gets the current simulation path
+	 * This is calculated on the fly based on the previous paths on the chain
+	 * @return The current path
+	 */
+	public List<Space> getPath()
+	{
+		Stack<Path> backward = new Stack<>();		// Fills up the path backward on a stack
+
+		Path p = this;
+
+		do
+		{
+			backward.add(p);
+
+			p = p.previous;
+		} while (p != null);
+
+		List<Space> result = new ArrayList<>();
+
+		while (!backward.isEmpty())
+			// Pop them back off in the right order
+			result.addAll(backward.pop().path);
+
+		return result;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "Path [path=" + path + "]";
+	}
+
+	/**
+	 * Gets the path's current size
+	 * This is saved so it is much faster that getPath().size()
+	 * @return The size of the path
+	 */
+	public int getPathSize()
+	{
+		return pathSize;
+	}
+
+	/**
+	 * Checks if two paths are equal
+	 * This is optimized to be very quick for comparisons when we check for duplicates in the brute force
+	 * @param qPath The first path
+	 * @param pPath The second path
+	 * @return True if they are equal; false otherwise
+	 */
+	public static boolean pathsEqual(List<Space> qPath, List<Space> pPath)
+	{
+		for (int i = qPath.size() - 1; i >= 0; i--)
+		{
+			if (!qPath.get(i).equals(pPath.get(i)))
+				return false;
+		}
+
+		return true;
+	}
+}
+
+/**
+ * This class keeps track of maps as we learn them.
+ * This way, we can take data we've learned in the past to help us make better decision in the future.
+ * Mazes are identified by a fingerprint of their layout around the start rather than the order they are played in.
+ * It is safe to share between games running at the same time. Games on the same maze pool what they learn.
+ * Everything we learn is also handed to the {@link LearningStore} so future runs of the program start where we left off.
+ * 
+ * @author Daniel Centore
+ *
+ */
+class LearningTracker
+{
+	// Every maze we know about, grouped by fingerprint. Mazes that look the same around the start share a list.
+	private HashMap<Long, List<LearnedMaze>> mazes = new HashMap<>();
+
+	private LearningStore store = new LearningStore();		// Where we keep our knowledge between runs
+
+	/**
+	 * Creates the tracker and makes sure whatever we learned in the last game gets saved when the program exits
+	 */
+	public LearningTracker()
+	{
+		Runtime.getRuntime().addShutdownHook(new Thread()
+		{
+			@Override
+			public void run()
+			{
+				saveAll();
+				store.close();
+			}
+		});
+	}
+
+	/**
+	 * Lets the tracker know a new game is starting.
+	 * The last game is over so we pack up and write out what we learned from it.
+	 */
+	public synchronized void newGame()
+	{
+		saveAll();
+	}
+
+	/**
+	 * Forgets every maze in memory after saving what we learned about them
+	 */
+	public synchronized void forget()
+	{
+		saveAll();
+		mazes.clear();
+	}
+
+	/**
+	 * Gets all the mazes which have a given fingerprint.
+	 * The first time we see a fingerprint we load whatever a previous run learned about it.
+	 * @param fingerprint The fingerprint of the maze's layout around the start
+	 * @return A new list of the matching mazes (may be empty)
+	 */
+	public synchronized List<LearnedMaze> getCandidates(long fingerprint)
+	{
+		List<LearnedMaze> list = mazes.get(fingerprint);
+
+		if (list == null)
+		{
+			list = new ArrayList<>();
+
+			LearningStore.Entry entry;
+			while ((entry = store.load(LearnedMaze.getName(fingerprint, list.size()))) != null)
+				list.add(new LearnedMaze(fingerprint, list.size(), entry.getMap(), entry.getBestCase()));
+
+			mazes.put(fingerprint, list);
+		}
+
+		return new ArrayList<>(list);
+	}
+
+	/**
+	 * Starts keeping track of a maze we have never seen before
+	 * @param fingerprint The fingerprint of the maze's layout around the start
+	 * @return The (empty) learned maze
+	 */
+	public synchronized LearnedMaze create(long fingerprint)
+	{
+		getCandidates(fingerprint);		// Make sure anything on disk is loaded so we don't reuse its index
+
+		List<LearnedMaze> list = mazes.get(fingerprint);
+		LearnedMaze maze = new LearnedMaze(fingerprint, list.size(), new PackedMap(new HashMap<Point, Space>()), Integer.MAX_VALUE);
+		list.add(maze);
+
+		return maze;
+	}
+
+	/**
+	 * Hands every maze we learned something about since it was last saved to the {@link LearningStore}
+	 */
+	private synchronized void saveAll()
+	{
+		for (List<LearnedMaze> list : mazes.values())
+		{
+			for (LearnedMaze maze : list)
+			{
+				PackedMap snapshot = maze.getSnapshot();
+				int best = maze.getBestCase();
+
+				if (!maze.isDirty(snapshot, best))
+					continue;
+
+				store.save(maze.getName(), snapshot, best);
+				maze.markSaved(snapshot, best);
+			}
+		}
+	}
+}
+
+/**
+ * Everything we've learned about a single maze over all of our games.
+ * It is only kept as a {@link PackedMap} which costs 3 bits a space rather than a {@link Point}, a {@link Space} and a hash entry.
+ * Each game expands it into its own map when it starts.
+ * 
+ * Any number of games can use the same maze at once. The snapshot is never changed once made, so readers always see a
+ * consistent map without taking a lock. Writers build a new snapshot with their spaces added and swap it in with a
+ * compare-and-set, trying again if another game got there first.
+ * 
+ * @author Daniel Centore
+ *
+ */
+class LearnedMaze
+{
+	private final long fingerprint;				// The fingerprint of the layout around the start
+	private final int index;					// Which maze this is out of those sharing the fingerprint
+
+	// The maze as it was before any keys were picked up or doors opened
+	private final AtomicReference<PackedMap> snapshot;
+
+	// The best move case we have encountered (or Integer.MAX_VALUE)
+	private final AtomicInteger bestCase;
+
+	// What was last handed to the LearningStore
+	private volatile PackedMap savedSnapshot;
+	private volatile int savedBestCase;
+
+	/**
+	 * Creates a learned maze
+	 * @param fingerprint The fingerprint of the layout around the start
+	 * @param index Which maze this is out of those sharing the fingerprint
+	 * @param snapshot What we know about it
+	 * @param bestCase The best case (or Integer.MAX_VALUE if it has never been solved)
+	 */
+	public LearnedMaze(long fingerprint, int index, PackedMap snapshot, int bestCase)
+	{
+		this.fingerprint = fingerprint;
+		this.index = index;
+		this.snapshot = new AtomicReference<>(snapshot);
+		this.bestCase = new AtomicInteger(bestCase);
+
+		markSaved(snapshot, bestCase);
+	}
+
+	/**
+	 * Checks if everything we've seen in a game agrees with this maze
+	 * @param seen The spaces seen in the game (as they were originally)
+	 * @return True if none of them contradict what we know; False otherwise
+	 */
+	public boolean isConsistent(HashMap<Point, Space> seen)
+	{
+		PackedMap known = snapshot.get();
+
+		for (Space s : seen.values())
+		{
+			BoxType type = known.get(s.getX(), s.getY());
+			if (type != null && type != s.getType())
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Adds any spaces we didn't know about yet. Spaces another game already added are left alone.
+	 * If any of them contradicts what we know, they didn't come from this maze and nothing is added.
+	 * @param seen The spaces seen in a game (as they were originally)
+	 * @param added Where to put the spaces which were added
+	 * @param conflicts Where to put the spaces which contradict what we know
+	 * @return The snapshot including the new spaces
+	 */
+	public PackedMap merge(Collection<Space> seen, List<Space> added, List<Space> conflicts)
+	{
+		while (true)
+		{
+			List<Space> adding = new ArrayList<>();
+			conflicts.clear();
+
+			PackedMap current = snapshot.get();
+			PackedMap next = current.with(seen, adding, conflicts);
+
+			if (next == current || snapshot.compareAndSet(current, next))
+			{
+				added.addAll(adding);
+				return next;
+			}
+		}
+	}
+
+	/**
+	 * Takes back what a game added which turned out to come from a different maze.
+	 * The spaces are removed unless another game has changed them since, and the best case is put back if nobody has
+	 * beaten it since. The next save writes the maze out without them.
+	 * @param added The spaces the game added
+	 * @param offered The lowest best case the game offered (or Integer.MAX_VALUE)
+	 * @param replaced The best case before the game lowered it
+	 */
+	public void withdraw(Collection<Space> added, int offered, int replaced)
+	{
+		PackedMap current;
+		PackedMap next;
+		do
+		{
+			current = snapshot.get();
+			next = current.without(added);
+		} while (next != current && !snapshot.compareAndSet(current, next));
+
+		if (offered != Integer.MAX_VALUE)
+			bestCase.compareAndSet(offered, replaced);
+	}
+
+	/**
+	 * Gets the packed copy of the maze
+	 * @return The snapshot
+	 */
+	public PackedMap getSnapshot()
+	{
+		return snapshot.get();
+	}
+
+	/**
+	 * Gets the best encountered case
+	 * @return The best encountered number of moves or Integer.MAX_VALUE if we have not yet solved it
+	 */
+	public int getBestCase()
+	{
+		return bestCase.get();
+	}
+
+	/**
+	 * Records a solution. Only kept if it beats the best case so far.
+	 * @param i The number of moves
+	 * @return The best case before (i or less if it wasn't beaten)
+	 */
+	public int offerBestCase(int i)
+	{
+		int current;
+		do
+		{
+			current = bestCase.get();
+			if (i >= current)
+				return current;
+		} while (!bestCase.compareAndSet(current, i));
+
+		return current;
+	}
+
+	/**
+	 * Checks if the maze has changed since the last time it was saved
+	 * @param snapshot The snapshot we would save
+	 * @param best The best case we would save
+	 * @return True if we need saving; False otherwise
+	 */
+	public boolean isDirty(PackedMap snapshot, int best)
+	{
+		return snapshot != savedSnapshot || best != savedBestCase;
+	}
+
+	/**
+	 * Marks the maze as saved
+	 * @param snapshot The snapshot that was saved
+	 * @param best The best case that was saved
+	 */
+	public void markSaved(PackedMap snapshot, int best)
+	{
+		savedSnapshot = snapshot;
+		savedBestCase = best;
+	}
+
+	/**
+	 * Gets the name the maze is saved under
+	 * @return The name
+	 */
+	public String getName()
+	{
+		return getName(fingerprint, index);
+	}
+
+	/**
+	 * Gets the name a maze is saved under
+	 * @param fingerprint The fingerprint of the layout around the start
+	 * @param index Which maze this is out of those sharing the fingerprint
+	 * @return The name
+	 */
+	public static String getName(long fingerprint, int index)
+	{
+		return String.format("%016x-%d", fingerprint, index);
+	}
+}
+
+/**
+ * Keeps the {@link LearningTracker}'s knowledge on disk so it survives between runs of the program.
+ * Each maze gets its own small file containing its best case and a {@link PackedMap} of what we know about it.
+ * 
+ * Writes are done on a background thread (write-behind) so the game never has to wait on the disk.
+ * Files are read lazily the first time a maze is played.
+ * 
+ * @author Daniel Centore
+ *
+ */
+class LearningStore
+{
+	// Where the files are kept (relative to the working directory like res/). Set the amity.learning property to "" to turn saving off.
+	private static final String DIRECTORY = System.getProperty("amity.learning", "learning");
+	private static final int MAGIC = 0x414D4C54;				// "AMLT" - marks the file as one of ours
+	private static final int VERSION = 1;						// Bump this whenever the format changes. Old files are ignored.
+
+	// The single thread which does all our writing. Daemon so it never keeps the game running.
+	private final ExecutorService writer = Executors.newSingleThreadExecutor(new ThreadFactory()
+	{
+		@Override
+		public Thread newThread(Runnable r)
+		{
+			Thread t = new Thread(r, "LearningStore writer");
+			t.setDaemon(true);
+			return t;
+		}
+	});
+
+	/**
+	 * What we know about a single maze
+	 */
+	static class Entry
+	{
+		private final PackedMap map;
+		private final int bestCase;
+
+		public Entry(PackedMap map, int bestCase)
+		{
+			this.map = map;
+			this.bestCase = bestCase;
+		}
+
+		/**
+		 * Gets the learned map
+		 * @return The map
+		 */
+		public PackedMap getMap()
+		{
+			return map;
+		}
+
+		/**
+		 * Gets the best case
+		 * @return The best number of moves or Integer.MAX_VALUE if it has never been solved
+		 */
+		public int getBestCase()
+		{
+			return bestCase;
+		}
+	}
+
+	/**
+	 * Loads what a previous run learned about a maze
+	 * @param name The name of the maze
+	 * @return The {@link Entry} or null if we have never played it (or the file is unreadable)
+	 */
+	public Entry load(String name)
+	{
+		if (DIRECTORY.isEmpty())
+			return null;
+
+		File file = fileFor(name);
+		if (!file.isFile())
+			return null;
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+		{
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				return null;
+
+			int bestCase = in.readInt();
+			return new Entry(PackedMap.read(in), bestCase);
+
+		} catch (IOException e)
+		{
+			// A broken file is no worse than no file. We'll just learn the map again.
+			if (SchoolPlayer.VERBOSE)
+				e.printStackTrace();
+
+			return null;
+		}
+	}
+
+	/**
+	 * Queues up what we know about a maze to be written to disk.
+	 * The data is encoded right away so the caller is free to keep changing its map.
+	 * @param name The name of the maze
+	 * @param map The learned map
+	 * @param bestCase The best case (or Integer.MAX_VALUE if it has never been solved)
+	 */
+	public void save(final String name, PackedMap map, int bestCase)
+	{
+		if (DIRECTORY.isEmpty())
+			return;
+
+		final byte[] data;
+		try
+		{
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(bestCase);
+			map.write(out);
+			out.flush();
+
+			data = bytes.toByteArray();
+		} catch (IOException e)
+		{
+			throw new RuntimeException(e);		// Can't happen with a byte array
+		}
+
+		try
+		{
+			writer.execute(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					write(name, data);
+				}
+			});
+		} catch (RejectedExecutionException e)
+		{
+			write(name, data);		// We're shutting down so just write it now
+		}
+	}
+
+	/**
+	 * Finishes any writes which are still waiting and stops the writer thread
+	 */
+	public void close()
+	{
+		writer.shutdown();
+
+		try
+		{
+			writer.awaitTermination(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Writes a file out. Goes through a temporary file so a crash can't leave half a file behind.
+	 * @param name The name of the maze
+	 * @param data The encoded data
+	 */
+	private void write(String name, byte[] data)
+	{
+		File file = fileFor(name);
+		File temp = new File(file.getPath() + ".tmp");
+
+		try
+		{
+			file.getParentFile().mkdirs();
+
+			try (FileOutputStream out = new FileOutputStream(temp))
+			{
+				out.write(data);
+			}
+
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		} catch (IOException e)
+		{
+			// Not being able to save only costs us time next run
+			if (SchoolPlayer.VERBOSE)
+				e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Finds the file we use for a maze
+	 * @param name The name of the maze
+	 * @return The file
+	 */
+	private File fileFor(String name)
+	{
+		return new File(DIRECTORY, name.replaceAll("[^A-Za-z0-9._-]", "_") + ".bin");
+	}
+}
+
+/**
+ * A compact, read-only copy of a learned map.
+ * The map is cut into 16x16 chunks and each space in a chunk is stored in 3 bits spread over 3 bitplanes:
+ * 0 means we know nothing about the space and anything else is the {@link BoxType}'s ordinal + 1.
+ * The chunks are grouped into regions of 8x8 chunks so the index stays small even on very large mazes.
+ * 
+ * A map is never changed once made. Adding spaces copies only the chunks (and regions) they land in and shares
+ * everything else with the old map, so it costs the same however big the map is. Comparing the chunks two maps
+ * share also tells us what one has that the other doesn't without looking at the rest ({@link #addedSince(PackedMap)}).
+ * 
+ * @author Daniel Centore
+ *
+ */
+class PackedMap
+{
+	private static final BoxType[] TYPES = BoxType.values();
+	private static final int PLANES = 3;		// Enough bits for "unknown" plus every BoxType
+
+	private static final int CHUNK_BITS = 4;						// Chunks are 16x16 spaces
+	private static final int CHUNK_WORDS = (1 << (2 * CHUNK_BITS)) / 64;	// Longs each plane takes in a chunk
+	private static final int REGION_BITS = 3;						// Regions are 8x8 chunks
+
+	// The regions we know anything about, by their packed coordinates. Each holds its chunks in rows (null if nothing is known there).
+	// A chunk holds plane i in the longs from i * CHUNK_WORDS, 64 spaces per long.
+	private final HashMap<Long, long[][]> regions;
+	private final int size;				// The number of spaces we know about
+
+	/**
+	 * Packs a map
+	 * @param map The map to pack. Markers for unexplored territory are left out.
+	 */
+	public PackedMap(HashMap<Point, Space> map)
+	{
+		regions = new HashMap<>();
+
+		int count = 0;
+		for (Space s : map.values())
+		{
+			if (!s.isUnexplored())
+			{
+				set(regions, s.getX(), s.getY(), s.getType());
+				count++;
+			}
+		}
+
+		size = count;
+	}
+
+	/**
+	 * Creates a map from already packed data
+	 */
+	private PackedMap(HashMap<Long, long[][]> regions, int size)
+	{
+		this.regions = regions;
+		this.size = size;
+	}
+
+	/**
+	 * Gets the type of a space
+	 * @param x X coordinate of the space
+	 * @param y Y coordinate of the space
+	 * @return The {@link BoxType} or null if we know nothing about the space
+	 */
+	public BoxType get(int x, int y)
+	{
+		long[][] region = regions.get(regionKey(x, y));
+		if (region == null)
+			return null;
+
+		long[] chunk = region[chunkIndex(x, y)];
+		if (chunk == null)
+			return null;
+
+		return typeOf(chunk, spaceIndex(x, y));
+	}
+
+	/**
+	 * Makes a copy of this map with some spaces added. This map is left untouched.
+	 * Spaces we already know about are skipped. If any of them has a different type here than the one given, the spaces
+	 * can't have come from this maze: they are all reported as conflicts and nothing is added.
+	 * @param spaces The spaces to add. Markers for unexplored territory are skipped.
+	 * @param added Where to put the spaces which are new to this map (left empty if there were conflicts)
+	 * @param conflicts Where to put the spaces which contradict this map
+	 * @return The new map (or this map if there was nothing new to add or there were conflicts)
+	 */
+	public PackedMap with(Collection<Space> spaces, List<Space> added, List<Space> conflicts)
+	{
+		HashSet<Point> unique = new HashSet<>();
+
+		for (Space s : spaces)
+		{
+			if (s.isUnexplored())
+				continue;
+
+			BoxType known = get(s.getX(), s.getY());
+			if (known != null)
+			{
+				if (known != s.getType())
+					conflicts.add(s);
+			}
+			else if (unique.add(s.getPoint()))
+				added.add(s);
+		}
+
+		if (!conflicts.isEmpty())
+			added.clear();
+		if (added.isEmpty())
+			return this;
+
+		// Copy just the regions and chunks we write to. The rest are shared with this map.
+		HashMap<Long, long[][]> next = new HashMap<>(regions);
+		for (Space s : added)
+			setCode(writable(next, s.getX(), s.getY()), spaceIndex(s.getX(), s.getY()), s.getType());
+
+		return new PackedMap(next, size + added.size());
+	}
+
+	/**
+	 * Makes a copy of this map with some spaces forgotten. This map is left untouched.
+	 * Spaces which we don't know about, or know as a different type than the one given, are left alone.
+	 * @param spaces The spaces to forget (each only once)
+	 * @return The new map (or this map if none of them were here)
+	 */
+	public PackedMap without(Collection<Space> spaces)
+	{
+		HashMap<Long, long[][]> next = null;
+		int removed = 0;
+
+		for (Space s : spaces)
+		{
+			int x = s.getX(), y = s.getY();
+			if (get(x, y) != s.getType())
+				continue;
+
+			if (next == null)
+				next = new HashMap<>(regions);
+
+			long[] chunk = writable(next, x, y);
+			int index = spaceIndex(x, y);
+			for (int i = 0; i < PLANES; i++)
+				chunk[i * CHUNK_WORDS + (index >>> 6)] &= ~(1L << index);
+			removed++;
+		}
+
+		if (removed == 0)
+			return this;
+
+		return new PackedMap(next, size - removed);
+	}
+
+	/**
+	 * Finds the chunk holding a space in a copy of our regions, copying it (and its region) first if it's still shared with
+	 * this map
+	 * @param next The copy of our regions being written to
+	 * @return The chunk, which only next can see
+	 */
+	private long[] writable(HashMap<Long, long[][]> next, int x, int y)
+	{
+		Long key = regionKey(x, y);
+
+		long[][] old = regions.get(key);
+		long[][] region = next.get(key);
+		if (region == old)
+		{
+			region = (old == null ? new long[1 << (2 * REGION_BITS)][] : old.clone());
+			next.put(key, region);
+		}
+
+		int c = chunkIndex(x, y);
+		if (old == null || region[c] == old[c])
+			region[c] = (region[c] == null ? new long[PLANES * CHUNK_WORDS] : region[c].clone());
+
+		return region[c];
+	}
+
+	/**
+	 * Finds the spaces this map knows about which an older version of it didn't.
+	 * Only the chunks which aren't shared between the two are looked at.
+	 * @param old The older version of this map (or null to get every space)
+	 * @return The new spaces
+	 */
+	public List<Space> addedSince(PackedMap old)
+	{
+		List<Space> result = new ArrayList<>();
+
+		for (Long key : regions.keySet())
+		{
+			long[][] region = regions.get(key);
+			long[][] oldRegion = (old == null ? null : old.regions.get(key));
+			if (region == oldRegion)
+				continue;
+
+			int regionX = (int) (key >> 32) << REGION_BITS;
+			int regionY = key.intValue() << REGION_BITS;
+
+			for (int c = 0; c < region.length; c++)
+			{
+				long[] chunk = region[c];
+				long[] oldChunk = (oldRegion == null ? null : oldRegion[c]);
+				if (chunk == null || chunk == oldChunk)
+					continue;
+
+				int chunkX = (regionX + (c & ((1 << REGION_BITS) - 1))) << CHUNK_BITS;
+				int chunkY = (regionY + (c >> REGION_BITS)) << CHUNK_BITS;
+
+				for (int w = 0; w < CHUNK_WORDS; w++)
+				{
+					long fresh = known(chunk, w) & ~(oldChunk == null ? 0 : known(oldChunk, w));
+
+					while (fresh != 0)
+					{
+						int index = (w << 6) | Long.numberOfTrailingZeros(fresh);
+						fresh &= fresh - 1;
+
+						int x = chunkX + (index & ((1 << CHUNK_BITS) - 1));
+						int y = chunkY + (index >> CHUNK_BITS);
+						result.add(new Space(x, y, typeOf(chunk, index)));
+					}
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Gets the number of spaces we know about
+	 * @return The number of spaces
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Unpacks the map into fresh {@link Space}s
+	 * @return The map
+	 */
+	public HashMap<Point, Space> toMap()
+	{
+		HashMap<Point, Space> result = new HashMap<>();
+
+		for (Space s : addedSince(null))
+			result.put(s.getPoint(), s);
+
+		return result;
+	}
+
+	/**
+	 * Writes the map out as a bounding box of bitplanes
+	 * @param out Where to write it
+	 * @throws IOException If the write fails
+	 */
+	public void write(DataOutput out) throws IOException
+	{
+		List<Space> spaces = addedSince(null);
+
+		int loX = Integer.MAX_VALUE, loY = Integer.MAX_VALUE;
+		int hiX = Integer.MIN_VALUE, hiY = Integer.MIN_VALUE;
+
+		for (Space s : spaces)
+		{
+			loX = Math.min(loX, s.getX());
+			loY = Math.min(loY, s.getY());
+			hiX = Math.max(hiX, s.getX());
+			hiY = Math.max(hiY, s.getY());
+		}
+
+		int minX = 0, minY = 0, width = 0, height = 0;
+		if (loX <= hiX)
+		{
+			minX = loX;
+			minY = loY;
+			width = hiX - loX + 1;
+			height = hiY - loY + 1;
+		}
+
+		long[][] planes = new long[PLANES][words(width * height)];
+		for (Space s : spaces)
+		{
+			int index = (s.getY() - minY) * width + (s.getX() - minX);
+			int code = s.getType().ordinal() + 1;
+
+			for (int i = 0; i < PLANES; i++)
+			{
+				if ((code & (1 << i)) != 0)
+					planes[i][index >>> 6] |= 1L << index;
+			}
+		}
+
+		out.writeInt(minX);
+		out.writeInt(minY);
+		out.writeInt(width);
+		out.writeInt(height);
+
+		for (long[] plane : planes)
+		{
+			for (long word : plane)
+				out.writeLong(word);
+		}
+	}
+
+	/**
+	 * Reads a map written by {@link #write(DataOutput)}
+	 * @param in Where to read it from
+	 * @return The map
+	 * @throws IOException If the read fails or the data makes no sense
+	 */
+	public static PackedMap read(DataInput in) throws IOException
+	{
+		int minX = in.readInt();
+		int minY = in.readInt();
+		int width = in.readInt();
+		int height = in.readInt();
+
+		if (width < 0 || height < 0 || (long) width * height > Integer.MAX_VALUE)
+			throw new IOException("Bad map size " + width + "x" + height);
+
+		long[][] planes = new long[PLANES][words(width * height)];
+		for (long[] plane : planes)
+		{
+			for (int i = 0; i < plane.length; i++)
+				plane[i] = in.readLong();
+		}
+
+		HashMap<Long, long[][]> regions = new HashMap<>();
+		int size = 0;
+
+		for (int index = 0; index < width * height; index++)
+		{
+			int code = 0;
+			for (int i = 0; i < PLANES; i++)
+			{
+				if ((planes[i][index >>> 6] & (1L << index)) != 0)
+					code |= 1 << i;
+			}
+
+			if (code == 0)
+				continue;
+			if (code > TYPES.length)
+				throw new IOException("Bad space type " + code);
+
+			set(regions, minX + index % width, minY + index / width, TYPES[code - 1]);
+			size++;
+		}
+
+		return new PackedMap(regions, size);
+	}
+
+	/**
+	 * Sets the type of a space in regions nobody else can see yet
+	 */
+	private static void set(HashMap<Long, long[][]> regions, int x, int y, BoxType type)
+	{
+		Long key = regionKey(x, y);
+
+		long[][] region = regions.get(key);
+		if (region == null)
+		{
+			region = new long[1 << (2 * REGION_BITS)][];
+			regions.put(key, region);
+		}
+
+		int c = chunkIndex(x, y);
+		if (region[c] == null)
+			region[c] = new long[PLANES * CHUNK_WORDS];
+
+		setCode(region[c], spaceIndex(x, y), type);
+	}
+
+	/**
+	 * Sets the code of a space within a chunk
+	 */
+	private static void setCode(long[] chunk, int index, BoxType type)
+	{
+		int code = type.ordinal() + 1;
+
+		for (int i = 0; i < PLANES; i++)
+		{
+			if ((code & (1 << i)) != 0)
+				chunk[i * CHUNK_WORDS + (index >>> 6)] |= 1L << index;
+			else
+				chunk[i * CHUNK_WORDS + (index >>> 6)] &= ~(1L << index);
+		}
+	}
+
+	/**
+	 * Gets the type of a space within a chunk (or null if it is unknown)
+	 */
+	private static BoxType typeOf(long[] chunk, int index)
+	{
+		int code = 0;
+		for (int i = 0; i < PLANES; i++)
+		{
+			if ((chunk[i * CHUNK_WORDS + (index >>> 6)] & (1L << index)) != 0)
+				code |= 1 << i;
+		}
+
+		return code == 0 ? null : TYPES[code - 1];
+	}
+
+	/**
+	 * Gets the spaces with a nonzero code in one word of a chunk
+	 */
+	private static long known(long[] chunk, int word)
+	{
+		long known = 0;
+		for (int i = 0; i < PLANES; i++)
+			known |= chunk[i * CHUNK_WORDS + word];
+
+		return known;
+	}
+
+	/**
+	 * Finds the key of the region a space is in
+	 */
+	private static Long regionKey(int x, int y)
+	{
+		int shift = CHUNK_BITS + REGION_BITS;
+		return ((long) (x >> shift) << 32) | ((y >> shift) & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Finds which of its region's chunks a space is in
+	 */
+	private static int chunkIndex(int x, int y)
+	{
+		int mask = (1 << REGION_BITS) - 1;
+		return (((y >> CHUNK_BITS) & mask) << REGION_BITS) | ((x >> CHUNK_BITS) & mask);
+	}
+
+	/**
+	 * Finds the bit index of a space inside its chunk
+	 */
+	private static int spaceIndex(int x, int y)
+	{
+		int mask = (1 << CHUNK_BITS) - 1;
+		return ((y & mask) << CHUNK_BITS) | (x & mask);
+	}
+
+	/**
+	 * Finds the number of longs needed to hold one bit for each space
+	 */
+	private static int words(int spaces)
+	{
+		return (spaces + 63) >>> 6;
+	}
+}
+
+/**
+ * Tools for processing maps which aren't part of {@link FieldMap} (ie those within paths)
+ * 
+ * @author Daniel Centore
+ *
+ */
+class MapUtils
+{
+	// The offsets to the spaces North, South, East, and West of a space
+	public static final Point[] DIRECTIONS = { new Point(0, 1), new Point(0, -1), new Point(1, 0), new Point(-1, 0) };
+
+	/**
+	 * Finds all known unblocked spaces surrounding a space
+	 * @param map The map to look in
+	 * @param sp The space to look around
+	 * @return The spaces, in the order of {@link #DIRECTIONS}
+	 */
+	public static List<Space> findSurroundingSpaces(HashMap<Point, Space> map, Space sp)
+	{
+		List<Space> result = new ArrayList<>(5);
+		Point p = sp.getPoint();
+
+		for (Point d : DIRECTIONS)
+		{
+			Space k = map.get(new Point(p.x + d.x, p.y + d.y));
+			if (k != null && k.getType() != BoxType.Blocked)
+				result.add(k);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Pushes the spaces of the route from one space to another onto a stack, the end first. Of all the shortest routes
+	 * it takes the one {@link Dijkstras} would: each space is reached from the latest space in the map that is one step
+	 * closer to the start. The spaces need their order in the map set ({@link Space#setOrder(int)}) first.
+	 * 
+	 * This is for searches which only work out how far it is. Only spaces which could be on a route that short are looked at.
+	 * @param result The stack so far
+	 * @param map The map to look in
+	 * @param start The space the route starts from
+	 * @param end The space the route goes to
+	 * @param length How far end is from start
+	 * @param type The {@link BoxType} being looked for (or null). Doors are only walked onto if they're what we're looking for.
+	 * @param target The space being looked for (or null)
+	 * @return result with the route on it
+	 */
+	public static Stack<Space> route(Stack<Space> result, HashMap<Point, Space> map, Point start, Point end, int length, BoxType type,
+			Point target)
+	{
+		// Distances from the start, only for spaces no further from it than end is (going straight to end from them)
+		HashMap<Point, Integer> near = new HashMap<>();
+		Queue<Point> queue = new LinkedList<>();
+		near.put(start, 0);
+		queue.add(start);
+		while (!queue.isEmpty())
+		{
+			Point p = queue.remove();
+			int next = near.get(p) + 1;
+			for (Point d : DIRECTIONS)
+			{
+				Point q = new Point(p.x + d.x, p.y + d.y);
+				if (near.containsKey(q) || next + Math.abs(end.x - q.x) + Math.abs(end.y - q.y) > length)
+					continue;
+
+				Space sp = map.get(q);
+				if (sp == null || sp.getType() == BoxType.Blocked
+						|| (sp.getType() == BoxType.Door && type != BoxType.Door && !q.equals(target)))
+					continue;
+
+				near.put(q, next);
+				queue.add(q);
+			}
+		}
+
+		Point p = end;
+		while (true)
+		{
+			result.push(map.get(p));
+			if (p.equals(start))
+				return result;
+
+			int closer = near.get(p) - 1;
+			Point best = null;
+			for (Point d : DIRECTIONS)
+			{
+				Point q = new Point(p.x + d.x, p.y + d.y);
+				Integer qDist = near.get(q);
+				if (qDist != null && qDist == closer && (best == null || map.get(q).getOrder() > map.get(best).getOrder()))
+					best = q;
+			}
+			p = best;
+		}
+	}
+
+	/**
+	 * Checks if a space has a neighbor that we know nothing about
+	 * @param map The map to look in
+	 * @param sp The space to look around
+	 * @return True if any of the 4 surrounding spaces is missing from the map; False otherwise
+	 */
+	public static boolean bordersUnexplored(HashMap<Point, Space> map, Space sp)
+	{
+		Point p = sp.getPoint();
+
+		return !map.containsKey(new Point(p.x, p.y + 1))
+				|| !map.containsKey(new Point(p.x, p.y - 1))
+				|| !map.containsKey(new Point(p.x + 1, p.y))
+				|| !map.containsKey(new Point(p.x - 1, p.y));
+	}
+}
@@ -0,0 +1,168 @@
+package com.csc2013;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import com.csc2013.DungeonMaze.BoxType;
+
+/**
+ *
+ * This class reads the BoxType of every space out of a TMX map file without loading any graphics.
+ * It follows the same layer conventions as Map: a tile on the "collision" layer with collide=true
+ * is Blocked, then "key"/keyed, "door"/doored and "end"/ended each override the layers before them.
+ *
+ * @author GE
+ *
+ */
+public class TmxReader {
+	// layer name, tile property, and the BoxType it marks (in the order they are applied)
+	private final static String layers[][] = {{"collision", "collide"}, {"key", "keyed"}, {"door", "doored"}, {"end", "ended"}};
+	private final static BoxType types[] = {BoxType.Blocked, BoxType.Key, BoxType.Door, BoxType.Exit};
+
+	private int width;
+	private int height;
+	private int tileHeight;
+	private BoxType[][] grid;
+
+	public TmxReader(String ref) throws IOException {
+		Document doc;
+		try {
+			doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new File(ref));
+		} catch (Exception e) {
+			throw new IOException("Unable to parse " + ref, e);
+		}
+		Element root = doc.getDocumentElement();
+		width = Integer.parseInt(root.getAttribute("width"));
+		height = Integer.parseInt(root.getAttribute("height"));
+		tileHeight = Integer.parseInt(root.getAttribute("tileheight"));
+
+		// Find which global tile ids have each property set to true
+		HashMap<String, HashSet<Integer>> tilesWith = new HashMap<String, HashSet<Integer>>();
+		NodeList tilesets = root.getElementsByTagName("tileset");
+		for (int t = 0; t < tilesets.getLength(); t++) {
+			Element tileset = (Element) tilesets.item(t);
+			int firstGid = Integer.parseInt(tileset.getAttribute("firstgid"));
+			NodeList tiles = tileset.getElementsByTagName("tile");
+			for (int i = 0; i < tiles.getLength(); i++) {
+				Element tile = (Element) tiles.item(i);
+				int gid = firstGid + Integer.parseInt(tile.getAttribute("id"));
+				NodeList properties = tile.getElementsByTagName("property");
+				for (int p = 0; p < properties.getLength(); p++) {
+					Element property = (Element) properties.item(p);
+					if (property.getAttribute("value").equals("true")) {
+						String name = property.getAttribute("name");
+						if (!tilesWith.containsKey(name)) {
+							tilesWith.put(name, new HashSet<Integer>());
+						}
+						tilesWith.get(name).add(gid);
+					}
+				}
+			}
+		}
+
+		grid = new BoxType[width][height];
+		for (int i = 0; i < width; i++) {
+			for (int j = 0; j < height; j++) {
+				grid[i][j] = BoxType.Open;
+			}
+		}
+
+		NodeList layerList = root.getElementsByTagName("layer");
+		for (int l = 0; l < layers.length; l++) {
+			HashSet<Integer> marked = tilesWith.get(layers[l][1]);
+			Element layer = findLayer(layerList, layers[l][0]);
+			if (layer == null || marked == null) {
+				continue;
+			}
+			int gids[] = readLayer((Element) layer.getElementsByTagName("data").item(0));
+			for (int j = 0; j < height; j++) {
+				for (int i = 0; i < width; i++) {
+					if (marked.contains(gids[j * width + i])) {
+						grid[i][j] = types[l];
+					}
+				}
+			}
+		}
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getTileHeight() {
+		return tileHeight;
+	}
+
+	// Returns grid[x][y], same layout as Map.Grid
+	public BoxType[][] getGrid() {
+		return grid;
+	}
+
+	private Element findLayer(NodeList layerList, String name) {
+		for (int i = 0; i < layerList.getLength(); i++) {
+			Element layer = (Element) layerList.item(i);
+			if (layer.getAttribute("name").equals(name)) {
+				return layer;
+			}
+		}
+		return null;
+	}
+
+	// Reads the global tile id of every space in a layer, row by row
+	private int[] readLayer(Element data) throws IOException {
+		int gids[] = new int[width * height];
+		String encoding = data.getAttribute("encoding");
+
+		if (encoding.equals("base64")) {
+			byte raw[] = Base64.getMimeDecoder().decode(data.getTextContent().trim());
+			InputStream in = new ByteArrayInputStream(raw);
+			String compression = data.getAttribute("compression");
+			if (compression.equals("gzip")) {
+				in = new GZIPInputStream(in);
+			} else if (compression.equals("zlib")) {
+				in = new InflaterInputStream(in);
+			}
+			for (int i = 0; i < gids.length; i++) {
+				int gid = 0;
+				for (int b = 0; b < 4; b++) {
+					int next = in.read();
+					if (next < 0) {
+						throw new IOException("Layer data is too short");
+					}
+					gid |= next << (8 * b);
+				}
+				gids[i] = gid;
+			}
+			in.close();
+		} else if (encoding.equals("csv")) {
+			String values[] = data.getTextContent().trim().split("\\s*,\\s*");
+			for (int i = 0; i < gids.length; i++) {
+				gids[i] = (int) Long.parseLong(values[i]);
+			}
+		} else {
+			NodeList tiles = data.getElementsByTagName("tile");
+			for (int i = 0; i < gids.length; i++) {
+				gids[i] = Integer.parseInt(((Element) tiles.item(i)).getAttribute("gid"));
+			}
+		}
+
+		return gids;
+	}
+}
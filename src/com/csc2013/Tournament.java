@@ -1,52 +1,69 @@
-package com.csc2013;
-
-import org.newdawn.slick.AppGameContainer;
-import org.newdawn.slick.SlickException;
-
-import com.csc2013.DungeonMaze.PlayerType;
-
-/**
- * 
- * This class starts a tournament consisting of Dungeon Maze games
- * 
- * @author GE
- *
- */
-public class Tournament {
-	/*
-	 * This variable controls how many steps a player can take before starting the next game
-	 */
-	public final static int maxSteps = 150;
-	/*
-	 * Possible maps to use are:
-	 * map01.tmx
-	 * map02.tmx
-	 * map03.tmx
-	 */
-	public final static String maps[] = {"map01.tmx", "map03.tmx"};
-	/*
-	 * This is how many spaces ahead players can see.  Acceptable values 
-	 * are 1 through 15.	
-	 */
-	public final static int vision[] = {10, 5,15,1,2,10};
-	/*
-	 * Possible players are:
-	 * PlayerType.AI
-	 * PlayerType.School
-	 * PlayerType.Human
-	 */
-	public final static PlayerType players[] = {PlayerType.School};
-	
-	public static void main(String[] argv) {
-		DungeonMaze dm = new DungeonMaze();
-		AppGameContainer container;
-		try {
-			container = new AppGameContainer(dm, 640, 480, false);
-			container.setVerbose(false); // suppress Slick2Ds output
-			container.start();
-		} catch (SlickException e) {
-			System.out.println("There is an internal issue with the game framework.  Please send the following error code to CSC.CaseStudy@ge.com.");
-			e.printStackTrace();
-		}
-	}
+package com.csc2013;
+
+import org.newdawn.slick.AppGameContainer;
+import org.newdawn.slick.SlickException;
+
+import com.csc2013.DungeonMaze.PlayerType;
+
+/**
+ * 
+ * This class starts a tournament consisting of Dungeon Maze games
+ * 
+ * @author GE
+ *
+ */
+public class Tournament {
+	/*
+	 * This variable controls how many steps a player can take before starting the next game
+	 */
+	public final static int maxSteps = 150;
+	/*
+	 * Possible maps to use are:
+	 * map01.tmx
+	 * map02.tmx
+	 * map03.tmx
+	 */
+	public final static String maps[] = {"map01.tmx", "map03.tmx"};
+	/*
+	 * This is how many spaces ahead players can see.  Acceptable values 
+	 * are 1 through 15.	
+	 */
+	public final static int vision[] = {10, 5,15,1,2,10};
+	/*
+	 * Possible players are:
+	 * PlayerType.AI
+	 * PlayerType.School
+	 * PlayerType.Human
+	 */
+	public final static PlayerType players[] = {PlayerType.School};
+	/*
+	 * How many times faster than normal the AI and School players move in the window, or 0
+	 * to run as fast as possible. It can be changed while running with + and -.
+	 */
+	public final static int speed = 1;
+	/*
+	 * In the window the School player decides its moves on another thread so the game keeps
+	 * drawing. If a decision takes longer than this many milliseconds the game doesn't wait for
+	 * it: the player makes a simple move that turn (which counts as a step like any other) and
+	 * its decision is thrown away when it's done. 0 waits forever.
+	 */
+	public final static int planTimeout = 1000;
+	/*
+	 * The School player's planner statistics for every game are written to this file
+	 * with .json and .csv on the end when the tournament is over
+	 */
+	public final static String statsFile = "planner-stats";
+	
+	public static void main(String[] argv) {
+		DungeonMaze dm = new DungeonMaze();
+		AppGameContainer container;
+		try {
+			container = new AppGameContainer(dm, 640, 480, false);
+			container.setVerbose(false); // suppress Slick2Ds output
+			container.start();
+		} catch (SlickException e) {
+			System.out.println("There is an internal issue with the game framework.  Please send the following error code to CSC.CaseStudy@ge.com.");
+			e.printStackTrace();
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,124 @@
+package com.csc2013;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.csc2013.DungeonMaze.Action;
+import com.csc2013.DungeonMaze.PlayerType;
+
+/**
+ *
+ * This class reads the trace files written by TraceWriter back into the games they recorded.
+ *
+ * @author GE
+ *
+ */
+public class TraceReader {
+	private final static Action actions[] = Action.values();
+	private final static PlayerType players[] = PlayerType.values();
+
+	/*
+	 * One recorded game. Action i was taken at x[i],y[i] holding keys[i] and succeeded if result[i].
+	 */
+	public static class GameRecord {
+		public String mapName;
+		public int vision;
+		public PlayerType player;
+		public int startX;
+		public int startY;
+		public int length = 0;
+		public int x[] = new int[64];
+		public int y[] = new int[64];
+		public int keys[] = new int[64];
+		public Action action[] = new Action[64];
+		public boolean result[] = new boolean[64];
+		public int score;
+
+		private void add(int x, int y, int keys, Action action, boolean result) {
+			if (length == this.x.length) {
+				int size = length * 2;
+				this.x = java.util.Arrays.copyOf(this.x, size);
+				this.y = java.util.Arrays.copyOf(this.y, size);
+				this.keys = java.util.Arrays.copyOf(this.keys, size);
+				this.action = java.util.Arrays.copyOf(this.action, size);
+				this.result = java.util.Arrays.copyOf(this.result, size);
+			}
+			this.x[length] = x;
+			this.y[length] = y;
+			this.keys[length] = keys;
+			this.action[length] = action;
+			this.result[length] = result;
+			length++;
+		}
+	}
+
+	// Reads every game in a trace file, in the order they finished
+	public static List<GameRecord> read(File file) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+		try {
+			if (in.readInt() != TraceWriter.MAGIC) {
+				throw new IOException(file + " is not a trace file");
+			}
+			int version = in.readUnsignedByte();
+			if (version != TraceWriter.VERSION) {
+				throw new IOException(file + " has unsupported version " + version);
+			}
+
+			List<GameRecord> games = new ArrayList<GameRecord>();
+			while (true) {
+				int nameLength;
+				try {
+					nameLength = readVarint(in);
+				} catch (EOFException e) {
+					break;  // clean end of file
+				}
+				GameRecord game = new GameRecord();
+				byte name[] = new byte[nameLength];
+				in.readFully(name);
+				game.mapName = new String(name, java.nio.charset.StandardCharsets.UTF_8);
+				game.vision = readVarint(in);
+				game.player = players[readVarint(in)];
+				game.startX = readVarint(in);
+				game.startY = readVarint(in);
+
+				int x = game.startX;
+				int y = game.startY;
+				int keys = 0;
+				int code;
+				while ((code = in.readUnsignedByte()) != TraceWriter.END) {
+					x += unzigzag(readVarint(in));
+					y += unzigzag(readVarint(in));
+					keys += unzigzag(readVarint(in));
+					game.add(x, y, keys, actions[code & ~TraceWriter.SUCCEEDED], (code & TraceWriter.SUCCEEDED) != 0);
+				}
+				game.score = unzigzag(readVarint(in));
+				games.add(game);
+			}
+			return games;
+		} finally {
+			in.close();
+		}
+	}
+
+	private static int readVarint(DataInputStream in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Bad varint in trace");
+	}
+
+	private static int unzigzag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
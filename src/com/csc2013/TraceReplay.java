@@ -0,0 +1,151 @@
+package com.csc2013;
+
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.newdawn.slick.SlickException;
+
+import com.csc2013.DungeonMaze.Action;
+import com.csc2013.DungeonMaze.PlayerType;
+
+/**
+ *
+ * This class replays recorded traces into a player without running the game loop. At every recorded
+ * action it rebuilds the exact PlayerVision, key count and lastAction the player was given, times
+ * the player's decision, and checks it picks the same action. The recorded action is what gets
+ * applied. When a SchoolPlayer picks another one it is told the recorded move was made instead,
+ * the same way as when it runs out of time in a game, so its own map keeps up with the game.
+ * Its plans and learning don't, so only the first different action of each game is counted.
+ *
+ * SchoolPlayer learns from game to game, so games are replayed in the order they were played
+ * and its learning is forgotten before each pass. For the actions to match exactly, record and
+ * replay with -Damity.learning= so nothing is loaded from earlier runs, and with
+ * -XX:+UnlockExperimentalVMOptions -XX:hashCode=2. SchoolPlayer keeps its maps in HashMaps of
+ * Points, and where many Points share a hash their order comes from identity hash codes. That
+ * order decides which of several equally short paths it takes, and without the flag it changes
+ * from run to run and even between passes.
+ *
+ * Usage: java com.csc2013.TraceReplay file.trace [passes]
+ * Allocations are always counted during replays. Human games are skipped.
+ *
+ * @author GE
+ *
+ */
+public class TraceReplay {
+	private LatencyHistogram latency = new LatencyHistogram();
+	private LatencyHistogram allocated = new LatencyHistogram();
+	private int decisions = 0;
+	private int mismatches = 0;  // games with a different action
+	private int games = 0;
+	private int skipped = 0;
+
+	// Replays every game in a trace once
+	public void replay(List<TraceReader.GameRecord> trace) throws SlickException {
+		SchoolPlayer.forgetLearning();
+		for (TraceReader.GameRecord game : trace) {
+			if (game.player == PlayerType.Human || !replay(game)) {
+				skipped++;
+			}
+		}
+	}
+
+	// Replays one game. Returns false if its map can't be loaded.
+	public boolean replay(TraceReader.GameRecord game) throws SlickException {
+		Map map = new Map();
+		File file = new File("res/" + game.mapName);
+		if (!file.isFile()) {
+			return false;
+		} else if (game.mapName.endsWith(".tmx")) {
+			map.setMapHeadless(game.mapName);
+		} else {
+			map.setMapChunked(game.mapName, ChunkedGrid.defaultBudget);
+		}
+
+		PlayerVision.distanceToView = game.vision;
+		Player player = new Player(map, false);
+		SchoolPlayer school = (game.player == PlayerType.School) ? new SchoolPlayer() : null;
+		AIPlayer ai = (game.player == PlayerType.AI) ? new AIPlayer() : null;
+		boolean lastAction = true;
+		int firstMismatch = -1;
+
+		for (int i = 0; i < game.length; i++) {
+			Point location = player.getPlayerGridLocation();
+			if (location.x != game.x[i] || location.y != game.y[i] || player.getKeys() != game.keys[i]) {
+				throw new IllegalStateException(game.mapName + " action " + i + ": the trace doesn't match the map");
+			}
+			player.setMapBox();
+			PlayerVision vision = new PlayerVision(map, location);
+
+			long before = Allocations.current();
+			long start = System.nanoTime();
+			Action action = (school != null) ? school.nextMove(vision, game.keys[i], lastAction) : ai.nextMove(vision, game.keys[i], lastAction);
+			latency.record(System.nanoTime() - start);
+			allocated.record(Allocations.current() - before);
+			decisions++;
+
+			if (action != game.action[i]) {
+				if (firstMismatch < 0) {
+					firstMismatch = i;
+					mismatches++;
+				}
+				if (school != null) {
+					school.moveReplaced(game.action[i]);
+				}
+			}
+
+			lastAction = player.move(game.action[i]);
+			if (lastAction != game.result[i]) {
+				throw new IllegalStateException(game.mapName + " action " + i + ": " + game.action[i] + " didn't have the recorded result");
+			}
+		}
+
+		if (firstMismatch >= 0) {
+			System.out.println("  " + game.mapName + " vision " + game.vision + " " + game.player + ": first different action at " + firstMismatch);
+		}
+		games++;
+		return true;
+	}
+
+	public LatencyHistogram getLatency() {
+		return latency;
+	}
+
+	public LatencyHistogram getAllocated() {
+		return allocated;
+	}
+
+	public int getDecisions() {
+		return decisions;
+	}
+
+	public int getMismatches() {
+		return mismatches;
+	}
+
+	public static void main(String[] argv) throws IOException, SlickException {
+		if (argv.length < 1) {
+			System.out.println("Usage: java com.csc2013.TraceReplay file.trace [passes]");
+			return;
+		}
+		if (System.getProperty("amity.allocations") == null) {
+			System.setProperty("amity.allocations", "true");  // read when Allocations is first used
+		}
+		List<TraceReader.GameRecord> trace = TraceReader.read(new File(argv[0]));
+		int passes = (argv.length > 1) ? Integer.parseInt(argv[1]) : 1;
+
+		for (int pass = 1; pass <= passes; pass++) {
+			TraceReplay replay = new TraceReplay();
+			replay.replay(trace);
+			LatencyHistogram latency = replay.getLatency();
+			LatencyHistogram allocated = replay.getAllocated();
+			System.out.println("Pass " + pass + ": " + replay.games + " games (" + replay.skipped + " skipped), " + replay.decisions + " decisions, "
+					+ replay.mismatches + " games with a different action");
+			System.out.println("  latency ns: p50 " + latency.getPercentile(50) + ", p99 " + latency.getPercentile(99) + ", max " + latency.getMax()
+					+ ", total " + latency.getTotal());
+			System.out.println("  allocated bytes: p50 " + allocated.getPercentile(50) + ", p99 " + allocated.getPercentile(99) + ", max " + allocated.getMax()
+					+ ", total " + allocated.getTotal());
+		}
+	}
+}
@@ -0,0 +1,216 @@
+package com.csc2013;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+
+import com.csc2013.DungeonMaze.Action;
+import com.csc2013.DungeonMaze.PlayerType;
+
+/**
+ *
+ * This class records every game played in this run into one compact binary trace file, for
+ * offline analysis and replays. Each game is built up in its own small buffer while it's played
+ * and added to the file in one piece when it ends, so games running at the same time don't mix.
+ * The file is written through a FileChannel with a large buffer and flushed when the run ends.
+ *
+ * Traces go in the directory given by -Damity.traces (default "traces"), or nowhere if it's empty.
+ *
+ * File layout: int MAGIC, byte VERSION, then one record per game:
+ *   varint name length, name (UTF-8), varint vision, varint player (PlayerType ordinal),
+ *   varint start x, varint start y,
+ *   one entry per action: byte (Action ordinal | 8 if it succeeded), then zigzag varints of the
+ *   change in x, y and keys since the last action (the first one is relative to the start),
+ *   byte END, zigzag varint score (steps, or -1 if the player didn't escape)
+ *
+ * @author GE
+ *
+ */
+public class TraceWriter {
+	public final static int MAGIC = 0x414D5452;  // "AMTR"
+	public final static int VERSION = 1;
+	public final static int END = 0xFF;
+	public final static int SUCCEEDED = 8;
+
+	public final static String directory = System.getProperty("amity.traces", "traces");
+
+	private static TraceWriter shared;
+	private static boolean opened = false;
+
+	private RandomAccessFile file;
+	private FileChannel channel;
+	private ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+	private File path;
+
+	/*
+	 * Returns the trace file for this run, opening it the first time. Returns null if tracing is off
+	 * or the file couldn't be opened.
+	 */
+	public static synchronized TraceWriter shared() {
+		if (!opened) {
+			opened = true;
+			if (directory.length() > 0) {
+				try {
+					File dir = new File(directory);
+					dir.mkdirs();
+					String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+					File trace = new File(dir, "run-" + stamp + ".trace");
+					for (int n = 2; trace.exists(); n++) {
+						trace = new File(dir, "run-" + stamp + "-" + n + ".trace");
+					}
+					shared = new TraceWriter(trace);
+					Runtime.getRuntime().addShutdownHook(new Thread() {
+						public void run() {
+							shared.close();
+						}
+					});
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+		return shared;
+	}
+
+	/*
+	 * Starts recording a game. Returns a recorder that throws everything away if tracing is off.
+	 */
+	public static Game begin(String mapName, int vision, PlayerType player, int startX, int startY) {
+		return new Game(shared(), mapName, vision, player, startX, startY);
+	}
+
+	public TraceWriter(File path) throws IOException {
+		this.path = path;
+		file = new RandomAccessFile(path, "rw");
+		file.setLength(0);
+		channel = file.getChannel();
+		buffer.putInt(MAGIC);
+		buffer.put((byte) VERSION);
+	}
+
+	public File getPath() {
+		return path;
+	}
+
+	// Adds a finished game's record to the file
+	private synchronized void append(byte data[], int length) {
+		if (channel == null) {
+			return;
+		}
+		try {
+			int offset = 0;
+			while (offset < length) {
+				if (!buffer.hasRemaining()) {
+					flush();
+				}
+				int n = Math.min(buffer.remaining(), length - offset);
+				buffer.put(data, offset, n);
+				offset += n;
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	public synchronized void close() {
+		if (channel == null) {
+			return;
+		}
+		try {
+			flush();
+			file.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		channel = null;
+	}
+
+	/*
+	 * The trace of one game while it's being played. Not thread safe, one per game.
+	 */
+	public static class Game {
+		private TraceWriter writer;
+		private byte data[] = new byte[1024];
+		private int length = 0;
+		private int lastX;
+		private int lastY;
+		private int lastKeys = 0;
+
+		private Game(TraceWriter writer, String mapName, int vision, PlayerType player, int startX, int startY) {
+			this.writer = writer;
+			if (writer == null) {
+				return;
+			}
+			byte name[] = mapName.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+			putVarint(name.length);
+			ensure(name.length);
+			System.arraycopy(name, 0, data, length, name.length);
+			length += name.length;
+			putVarint(vision);
+			putVarint(player.ordinal());
+			putVarint(startX);
+			putVarint(startY);
+			lastX = startX;
+			lastY = startY;
+		}
+
+		// Records one action, taken at x,y holding keys, and whether it worked
+		public void step(int x, int y, int keys, Action action, boolean result) {
+			if (writer == null) {
+				return;
+			}
+			ensure(16);
+			data[length++] = (byte) (action.ordinal() | (result ? SUCCEEDED : 0));
+			putVarint(zigzag(x - lastX));
+			putVarint(zigzag(y - lastY));
+			putVarint(zigzag(keys - lastKeys));
+			lastX = x;
+			lastY = y;
+			lastKeys = keys;
+		}
+
+		// Ends the game and adds it to the trace file
+		public void end(int score) {
+			if (writer == null) {
+				return;
+			}
+			ensure(8);
+			data[length++] = (byte) END;
+			putVarint(zigzag(score));
+			writer.append(data, length);
+			writer = null;
+		}
+
+		private void putVarint(int value) {
+			ensure(5);
+			while ((value & ~0x7F) != 0) {
+				data[length++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			data[length++] = (byte) value;
+		}
+
+		private void ensure(int bytes) {
+			if (length + bytes > data.length) {
+				data = Arrays.copyOf(data, Math.max(data.length * 2, length + bytes));
+			}
+		}
+
+		private static int zigzag(int value) {
+			return (value << 1) ^ (value >> 31);
+		}
+	}
+}